@@ -0,0 +1,65 @@
+package bench;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import device.DataPacket;
+import routing.IPv4;
+
+// 데이터 패킷 헤더 해석/생성
+// parseHeader: 전달할 때 읽는 필드 (예전 Router.extractDestinationIP의 문자열 파싱을 대신함)
+// parseLegacy: 예전 쿼리 문자열 패킷 변환 (텍스트 전용 장치와 섞여 있을 때의 비용)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataPacketBenchmark {
+    private static final int SOURCE = IPv4.parse("10.10.1.2");
+    private static final int DESTINATION = IPv4.parse("10.10.2.2");
+
+    private final byte[] payload = "Hello".getBytes(StandardCharsets.UTF_8);
+    private ByteBuffer packet;
+    private ByteBuffer out;
+    private String legacy;
+
+    @Setup
+    public void setUp() {
+        packet = DataPacket.create(SOURCE, DESTINATION, DataPacket.DEFAULT_TTL, 7, 1, payload);
+        out = ByteBuffer.allocate(DataPacket.HEADER_SIZE + payload.length);
+        legacy = "destination=10.10.2.2&payload=Hello";
+    }
+
+    @Benchmark
+    public int parseHeader() {
+        if (!DataPacket.isDataPacket(packet)) {
+            return -1;
+        }
+        return DataPacket.getDestination(packet) ^ DataPacket.getTtl(packet) ^ DataPacket.flowHash(packet);
+    }
+
+    @Benchmark
+    public ByteBuffer encode() {
+        out.clear();
+        DataPacket.encode(out, SOURCE, DESTINATION, DataPacket.DEFAULT_TTL, 7, 1, payload);
+        return out;
+    }
+
+    @Benchmark
+    public ByteBuffer parseLegacy() {
+        return DataPacket.fromLegacy(legacy, SOURCE, 0, 0);
+    }
+}
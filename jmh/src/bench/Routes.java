@@ -0,0 +1,65 @@
+package bench;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import logging.Logger;
+import routing.RouteList;
+import routing.RoutingPacket;
+import routing.RoutingTable;
+
+// 벤치마크 공통 경로 데이터
+// RoutingTableFootprint와 같이 10.0.0.0/8 안의 서로 다른 /32 경로를 이웃 4개에 나눠 만듦
+final class Routes {
+    static final int MAX_DATAGRAM_SIZE = 1500 - 28; // 기본 MTU 기준 광고 페이지 크기
+    static final String NEIGHBOR = "10.255.0.1"; // 병합할 때 광고를 보낸 이웃
+
+    private static final int[] NEXT_HOPS = { 0x0AFF0001, 0x0AFF0002, 0x0AFF0003, 0x0AFF0004 }; // 10.255.0.1 ~ 10.255.0.4
+    static final Logger QUIET = new Logger("bench", Logger.Level.OFF, 1); // 경로 변경/패킷 로그는 측정 대상이 아님
+
+    private Routes() {
+    }
+
+    static int address(int i) {
+        return 0x0A000000 | i;
+    }
+
+    // count개 경로, distanceOffset만큼 거리를 늘려 다른 내용의 광고를 만듦
+    static RouteList list(int count, int distanceOffset) {
+        RouteList routes = new RouteList();
+
+        for (int i = 0; i < count; i++) {
+            routes.add(address(i), 32, 100 + (i % 900) + distanceOffset, 1 + (i % 8), NEXT_HOPS[i % NEXT_HOPS.length]);
+        }
+        return routes;
+    }
+
+    static List<ByteBuffer> pages(RouteList routes) {
+        return RoutingPacket.encodePages(RoutingPacket.TYPE_FULL_TABLE, 1, 1, routes, MAX_DATAGRAM_SIZE);
+    }
+
+    // 광고 페이지를 병합해 count개 경로가 있는 테이블을 만듦
+    static RoutingTable table(String type, int count) {
+        RoutingTable table = RoutingTable.create(type, 1, 0, QUIET);
+        merge(table, pages(list(count, 0)));
+        return table;
+    }
+
+    static void merge(RoutingTable table, List<ByteBuffer> pages) {
+        for (ByteBuffer page : pages) {
+            table.mergeRoutingTable(page.duplicate(), NEIGHBOR, 1);
+        }
+    }
+
+    // 조회할 주소: 대부분은 있는 경로, 1/8은 없는 주소 (크기는 2의 거듭제곱)
+    static int[] lookups(int routes, int size) {
+        SplittableRandom random = new SplittableRandom(42);
+        int[] addresses = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            addresses[i] = random.nextInt(8) == 0 ? 0x0B000000 | random.nextInt(1 << 24) : address(random.nextInt(routes));
+        }
+        return addresses;
+    }
+}
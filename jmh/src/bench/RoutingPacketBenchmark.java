@@ -0,0 +1,68 @@
+package bench;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import routing.RouteList;
+import routing.RoutingPacket;
+
+// 라우팅 광고 생성/해석 (바이너리 페이지와 텍스트 페이지), 한 번에 테이블 전체
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xmx4g" })
+public class RoutingPacketBenchmark {
+    @Param({ "10", "1000", "100000", "1000000" })
+    public int routes;
+
+    private RouteList list;
+    private List<ByteBuffer> binaryPages;
+    private List<String> textPages;
+
+    @Setup
+    public void setUp() {
+        list = Routes.list(routes, 0);
+        binaryPages = Routes.pages(list);
+        textPages = RoutingPacket.createPages(list, true, Routes.MAX_DATAGRAM_SIZE);
+    }
+
+    @Benchmark
+    public List<ByteBuffer> encodeBinary() {
+        return Routes.pages(list);
+    }
+
+    @Benchmark
+    public void decodeBinary(Blackhole blackhole) {
+        for (ByteBuffer page : binaryPages) {
+            RoutingPacket.decode(page.duplicate(), (address, prefixLength, distance, hops) -> blackhole.consume(address ^ distance));
+        }
+    }
+
+    @Benchmark
+    public List<String> createText() {
+        return RoutingPacket.createPages(list, true, Routes.MAX_DATAGRAM_SIZE);
+    }
+
+    @Benchmark
+    public void parseText(Blackhole blackhole) {
+        for (String page : textPages) {
+            blackhole.consume(new RoutingPacket(page).getRouteInfos());
+        }
+    }
+}
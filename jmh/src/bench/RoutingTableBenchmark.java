@@ -0,0 +1,83 @@
+package bench;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import routing.RoutingInfo;
+import routing.RoutingTable;
+
+// 라우팅 테이블 병합과 조회 (구현별, 테이블 크기별)
+// mergeUnchanged: 같은 내용의 주기적 전체 광고 (갱신 시각만 바뀜)
+// mergeChanged: 모든 경로의 거리가 바뀌는 광고 (경로 변경과 공개까지 포함)
+// get: 최장 접두사 일치 조회 하나
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xmx4g" })
+public class RoutingTableBenchmark {
+    private static final int LOOKUPS = 1 << 16;
+
+    @Param({ "map", "int" })
+    public String type;
+
+    @Param({ "10", "1000", "100000", "1000000" })
+    public int routes;
+
+    private RoutingTable table;
+    private List<ByteBuffer> pages;
+    private List<ByteBuffer> changedPages; // 거리가 1씩 긴 같은 경로
+    private boolean changed;
+    private int[] lookups;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        table = Routes.table(type, routes);
+        pages = Routes.pages(Routes.list(routes, 0));
+        changedPages = Routes.pages(Routes.list(routes, 1));
+        lookups = Routes.lookups(routes, LOOKUPS);
+    }
+
+    @Benchmark
+    public RoutingTable mergeUnchanged() {
+        Routes.merge(table, changed ? changedPages : pages);
+        return table;
+    }
+
+    @Benchmark
+    public RoutingTable mergeChanged() {
+        changed = !changed;
+        Routes.merge(table, changed ? changedPages : pages);
+        return table;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public RoutingInfo get() {
+        return table.get(lookups[next++ & (LOOKUPS - 1)]);
+    }
+
+    // 전달 경로가 쓰는 조회 (RoutingInfo 없이 다음 홉만)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int nextHop() {
+        int address = lookups[next++ & (LOOKUPS - 1)];
+        return table.nextHop(address, address);
+    }
+}
@@ -0,0 +1,137 @@
+package device;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import logging.Logger;
+import metrics.Metrics;
+import routing.IPv4;
+import routing.RoutingTable;
+import transport.TransportSocket;
+import transport.UdpTransport;
+
+// 루프백 UDP로 ForwardingEngine 하나를 거치는 전달 처리량
+// 보내는 쪽 -> 엔진(127.0.0.1) -> 싱크(127.0.0.1, 다음 홉) 순서로, WINDOW개를 보내고 모두 받을 때까지 기다림
+// 받지 못한 패킷은 lost로 따로 셈 (소켓 버퍼가 넘치면 처리량과 함께 확인)
+// workers=0은 리스너에서 바로 전달, 1 이상은 입력 큐와 전달 작업 스레드를 거침
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ForwardingBenchmark {
+    private static final int WINDOW = 32;
+    private static final int RECEIVE_TIMEOUT = 200; // ms
+    private static final int DESTINATION = IPv4.parse("10.1.2.3");
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long forwarded;
+        public long lost;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            forwarded = 0;
+            lost = 0;
+        }
+    }
+
+    @Param({ "0", "1" })
+    public int workers;
+
+    private DeviceThreads engineThreads;
+    private DatagramSocket sender;
+    private DatagramSocket sink;
+    private DatagramPacket[] packets;
+    private DatagramPacket received;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // 패킷 단위 로그는 끔 (켜진 경우의 비용은 log-sample로 따로 조절)
+        Logger log = new Logger("bench", Logger.Level.OFF, 1);
+
+        sink = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        sink.setSoTimeout(RECEIVE_TIMEOUT);
+        sender = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+
+        // 모든 목적지를 싱크(127.0.0.1)로 보내는 경로 하나
+        RoutingTable table = RoutingTable.create("map", 1, 0, log);
+        table.improve(IPv4.parse("10.0.0.0"), 8, 1, 1, IPv4.parse("127.0.0.1"));
+        table.publish();
+
+        int enginePort = freePort();
+        engineThreads = new DeviceThreads("bench", new DeviceOptions().set("threads", "platform"), log);
+        TransportSocket engineSocket = engineThreads.register(new UdpTransport().open(enginePort));
+        Metrics metrics = new Metrics();
+        ForwardingEngine engine = new ForwardingEngine(engineSocket, table, List.of(), sink.getLocalPort(), null, metrics, log);
+        engine.startQueues(engineThreads, new DeviceOptions().set("forwarding-workers", String.valueOf(workers)),
+            ForwardingEngine.PACKET_BUFFER_SIZE, new Random(1), metrics);
+        engineThreads.listen("forwarding", engineSocket, ByteBuffer.allocateDirect(ForwardingEngine.PACKET_BUFFER_SIZE), engine::receive);
+
+        byte[] payload = "Hello".getBytes(StandardCharsets.UTF_8);
+        packets = new DatagramPacket[WINDOW];
+
+        for (int i = 0; i < WINDOW; i++) {
+            ByteBuffer packet = DataPacket.create(IPv4.parse("10.1.1.2"), DESTINATION, DataPacket.DEFAULT_TTL, i, 0, payload);
+            packets[i] = new DatagramPacket(packet.array(), packet.limit(), InetAddress.getLoopbackAddress(), enginePort);
+        }
+        received = new DatagramPacket(new byte[1024], 1024);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engineThreads.close(); // 소켓을 닫아 생기는 수신 오류는 종료로 처리
+        sender.close();
+        sink.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WINDOW)
+    public void forward(Counters counters) throws IOException {
+        for (DatagramPacket packet : packets) {
+            sender.send(packet);
+        }
+
+        for (int i = 0; i < WINDOW; i++) {
+            try {
+                sink.receive(received);
+                counters.forwarded++;
+            } catch (SocketTimeoutException e) {
+                counters.lost += WINDOW - i;
+                return;
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (DatagramSocket probe = new DatagramSocket(0)) {
+            return probe.getLocalPort();
+        }
+    }
+}
@@ -1,19 +1,41 @@
+import device.DeviceOptions;
 import device.Host;
+import device.IRunnerable;
 import device.Router;
+import simulation.Simulation;
+import transport.UdpTransport;
 
 public class App {
-    public static void main(String args[]) {
-        if (args.length != 1) {
-            System.out.println("Need one args [host|router]");
+    public static void main(String args[]) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Need one args [host|router|sim <topology-file>] [--key=value...]");
+            return;
         }
 
+        IRunnerable device;
+
         switch(args[0].toLowerCase()) {
             case "host":
-                new Host().run();
+                device = new Host(new UdpTransport(), DeviceOptions.parse(args, 1));
                 break;
             case "router":
-                new Router().run();
+                device = new Router(new UdpTransport(), DeviceOptions.parse(args, 1));
+                break;
+            case "sim":
+                if (args.length < 2) {
+                    System.out.println("Need topology file for sim mode");
+                    return;
+                }
+                device = new Simulation(args[1], DeviceOptions.parse(args, 2));
                 break;
+            default:
+                System.out.println("Unknown device type: " + args[0]);
+                return;
         }
+
+        // docker stop 등 종료 신호에 리스너와 소켓을 정리
+        Runtime.getRuntime().addShutdownHook(new Thread(device::shutdown));
+        device.run();
+        device.awaitShutdown();
     }
 }
@@ -0,0 +1,46 @@
+package bench;
+
+import logging.Logger;
+import routing.RoutingTable;
+
+// 라우팅 테이블 구현별 힙 사용량 비교
+// 사용법: java -cp bin bench.RoutingTableFootprint [경로 수]
+public class RoutingTableFootprint {
+    public static void main(String[] args) {
+        int routes = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        // 경로 추가 로그는 측정과 무관하므로 끔 (로그 버퍼에 쌓인 문자열이 힙 측정에 섞이지 않도록)
+        Logger log = new Logger("footprint", Logger.Level.OFF, 1);
+
+        System.out.printf("%-10s %-12s %-15s %-12s\n", "Table", "Routes", "Heap (bytes)", "Bytes/route");
+
+        for (String type : new String[] { "map", "int" }) {
+            long before = usedHeap();
+            RoutingTable table = fill(RoutingTable.create(type, 1, 0, log), routes);
+            long after = usedHeap();
+
+            System.out.printf("%-10s %-12d %-15d %-12.1f\n", type, table.size(), after - before,
+                (after - before) / (double) table.size());
+        }
+    }
+
+    // 10.0.0.0/8 안의 서로 다른 /32 경로를 이웃 4개에 나눠 추가 (병합처럼 한 번에 공개)
+    private static RoutingTable fill(RoutingTable table, int routes) {
+        int[] neighbors = { 0x0AFF0001, 0x0AFF0002, 0x0AFF0003, 0x0AFF0004 }; // 10.255.0.1 ~ 10.255.0.4
+
+        for (int i = 0; i < routes; i++) {
+            table.improve(0x0A000000 | i, 32, 100 + (i % 900), 1 + (i % 8), neighbors[i % neighbors.length]);
+        }
+        table.publish();
+        return table;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,43 @@
+package clock;
+
+// 장치와 라우팅 테이블이 읽는 현재 시각 (경로 갱신 시각, 타이머, 링크 RTT, 로그 시각)
+// 기본은 시스템 시계이고, 이산 사건 시뮬레이션은 가상 시계로 바꿔서 모든 장치가 같은 가상 시각을 보게 함
+// 처리 시간 측정(히스토그램)은 실제로 걸린 시간이어야 하므로 이 시계가 아닌 System.nanoTime을 씀
+public final class Clock {
+    // 시각 공급원
+    public interface Source {
+        long millis(); // epoch 기준 ms
+
+        long nanos(); // 임의 기준 ns (차이만 의미 있음)
+    }
+
+    private static final Source SYSTEM = new Source() {
+        @Override
+        public long millis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public long nanos() {
+            return System.nanoTime();
+        }
+    };
+
+    private static volatile Source source = SYSTEM;
+
+    private Clock() {
+    }
+
+    public static long millis() {
+        return source.millis();
+    }
+
+    public static long nanos() {
+        return source.nanos();
+    }
+
+    // 시각 공급원 교체 (null이면 시스템 시계로 되돌림), 장치를 만들기 전에 바꿔야 모든 시각이 같은 기준이 됨
+    public static void use(Source clock) {
+        source = clock == null ? SYSTEM : clock;
+    }
+}
@@ -0,0 +1,63 @@
+package device;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+
+// int IPv4 주소 -> 소켓 주소 캐시 (개방 주소법, 단일 스레드 전용)
+// 패킷마다 InetAddress를 만들거나 이름을 해석하지 않도록 함
+class AddressCache {
+    private static final int CAPACITY = 8192;
+    private static final int MAX_ENTRIES = CAPACITY / 2; // 넘으면 비우고 다시 채움
+
+    private final int port;
+    private final int[] keys;
+    private final InetSocketAddress[] values;
+    private int size;
+
+    AddressCache(int port) {
+        this.port = port;
+        this.keys = new int[CAPACITY];
+        this.values = new InetSocketAddress[CAPACITY];
+    }
+
+    InetSocketAddress get(int address) {
+        int slot = slot(address);
+
+        if (values[slot] != null) {
+            return values[slot];
+        }
+
+        if (size >= MAX_ENTRIES) {
+            Arrays.fill(values, null);
+            size = 0;
+            slot = slot(address);
+        }
+
+        InetSocketAddress socketAddress = new InetSocketAddress(toInetAddress(address), port);
+        keys[slot] = address;
+        values[slot] = socketAddress;
+        size++;
+        return socketAddress;
+    }
+
+    private int slot(int address) {
+        int mask = CAPACITY - 1;
+        int slot = (address * 0x9E3779B9) >>> 19 & mask;
+
+        while (values[slot] != null && keys[slot] != address) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static InetAddress toInetAddress(int address) {
+        try {
+            return InetAddress.getByAddress(new byte[] {
+                (byte) (address >>> 24), (byte) (address >>> 16), (byte) (address >>> 8), (byte) address });
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException(e); // 4바이트 주소는 항상 유효
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package device;
+
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import routing.IPv4;
+
+// 데이터 평면 패킷
+// 헤더(24): MAGIC(1) VERSION(1) TTL(1) FLAGS(1) 출발지(4) 목적지(4) 흐름 ID(4) 순번(4) 페이로드 길이(2) 조각 위치(2)
+// 조각: 경로 MTU보다 큰 패킷은 출발 호스트가 나눠 보냄 (패킷 ID = (출발지, 흐름 ID, 순번), 위치는 원래 페이로드 안의 바이트,
+//       마지막이 아닌 조각은 FLAG_MORE_FRAGMENTS), 라우터는 조각을 보통 패킷처럼 전달하고 목적지 호스트가 다시 합침
+// 모든 필드는 버퍼 위치 기준 절대 위치로 읽고 쓰므로 받은 버퍼를 그대로 해석/수정 가능 (할당 없음)
+// 예전 "destination=a.b.c.d&payload=..." 형식과 JSON 한 줄은 fromLegacy/fromJson으로 변환해서 받음
+public class DataPacket {
+    public static final int HEADER_SIZE = 24;
+    public static final int DEFAULT_TTL = 64;
+    public static final int MAX_PAYLOAD_SIZE = 0xFFFF;
+    public static final int FLAG_ECHO_REQUEST = 0x01; // 링크 지연 측정용 에코 요청 (페이로드: 보낸 시각)
+    public static final int FLAG_ECHO_REPLY = 0x02; // 에코 응답 (요청의 페이로드를 그대로 돌려줌)
+    public static final int FLAG_TRAFFIC = 0x04; // 부하 측정 패킷 (페이로드: 보낸 시각(ns), 응답 요청 여부(1), 채움)
+    public static final int FLAG_TRAFFIC_REPLY = 0x08; // 부하 측정 응답 (페이로드: 받은 패킷의 보낸 시각)
+    public static final int FLAG_MORE_FRAGMENTS = 0x10; // 뒤에 같은 패킷의 조각이 더 있음
+    public static final int MIN_TRAFFIC_PAYLOAD = 9;
+
+    private static final byte MAGIC = (byte) 0xDA; // 텍스트 패킷의 첫 글자 'd'와 구분
+    private static final byte VERSION = 1;
+
+    private static final int TTL_OFFSET = 2;
+    private static final int FLAGS_OFFSET = 3;
+    private static final int SOURCE_OFFSET = 4;
+    private static final int DESTINATION_OFFSET = 8;
+    private static final int FLOW_OFFSET = 12;
+    private static final int SEQUENCE_OFFSET = 16;
+    private static final int LENGTH_OFFSET = 20;
+    private static final int FRAGMENT_OFFSET = 22;
+
+    private DataPacket() {
+    }
+
+    // 바이너리 데이터 패킷인지 (헤더와 페이로드 길이까지 확인)
+    public static boolean isDataPacket(ByteBuffer packet) {
+        int position = packet.position();
+
+        return packet.remaining() >= HEADER_SIZE
+            && packet.get(position) == MAGIC
+            && packet.get(position + 1) == VERSION
+            && HEADER_SIZE + getPayloadLength(packet) <= packet.remaining();
+    }
+
+    // 헤더와 페이로드를 out의 현재 위치에 쓰고 위치를 패킷 끝으로 옮김
+    public static void encode(ByteBuffer out, int source, int destination, int ttl, int flowId, int sequence, byte[] payload) {
+        if (payload.length > MAX_PAYLOAD_SIZE) {
+            throw new IllegalArgumentException("Payload too large: " + payload.length);
+        }
+
+        out.put(MAGIC)
+            .put(VERSION)
+            .put((byte) ttl)
+            .put((byte) 0)
+            .putInt(source)
+            .putInt(destination)
+            .putInt(flowId)
+            .putInt(sequence)
+            .putShort((short) payload.length)
+            .putShort((short) 0)
+            .put(payload);
+    }
+
+    // 새 패킷 생성 (읽을 수 있도록 flip된 상태)
+    public static ByteBuffer create(int source, int destination, int ttl, int flowId, int sequence, byte[] payload) {
+        ByteBuffer packet = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        encode(packet, source, destination, ttl, flowId, sequence, payload);
+        return packet.flip();
+    }
+
+    public static int getTtl(ByteBuffer packet) {
+        return packet.get(packet.position() + TTL_OFFSET) & 0xFF;
+    }
+
+    public static void setTtl(ByteBuffer packet, int ttl) {
+        packet.put(packet.position() + TTL_OFFSET, (byte) ttl);
+    }
+
+    public static int getFlags(ByteBuffer packet) {
+        return packet.get(packet.position() + FLAGS_OFFSET) & 0xFF;
+    }
+
+    public static void setFlags(ByteBuffer packet, int flags) {
+        packet.put(packet.position() + FLAGS_OFFSET, (byte) flags);
+    }
+
+    // 흐름 해시 (출발지, 목적지, 흐름 ID), 같은 흐름은 같은 ECMP 다음 홉으로 보내 순서가 바뀌지 않도록
+    public static int flowHash(ByteBuffer packet) {
+        int h = (getSource(packet) * 0x9E3779B9 ^ getDestination(packet)) * 0x9E3779B9 ^ getFlowId(packet);
+        h ^= h >>> 16; // murmur3 finalizer
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    public static int getSource(ByteBuffer packet) {
+        return packet.getInt(packet.position() + SOURCE_OFFSET);
+    }
+
+    public static int getDestination(ByteBuffer packet) {
+        return packet.getInt(packet.position() + DESTINATION_OFFSET);
+    }
+
+    public static int getFlowId(ByteBuffer packet) {
+        return packet.getInt(packet.position() + FLOW_OFFSET);
+    }
+
+    public static int getSequence(ByteBuffer packet) {
+        return packet.getInt(packet.position() + SEQUENCE_OFFSET);
+    }
+
+    public static int getPayloadLength(ByteBuffer packet) {
+        return packet.getShort(packet.position() + LENGTH_OFFSET) & 0xFFFF;
+    }
+
+    // 페이로드 사본 (출력/전달용)
+    public static byte[] getPayload(ByteBuffer packet) {
+        byte[] payload = new byte[getPayloadLength(packet)];
+        packet.get(packet.position() + HEADER_SIZE, payload);
+        return payload;
+    }
+
+    // 조각의 페이로드 위치 (조각이 아니면 0)
+    public static int getFragmentOffset(ByteBuffer packet) {
+        return packet.getShort(packet.position() + FRAGMENT_OFFSET) & 0xFFFF;
+    }
+
+    // 큰 패킷의 일부인지 (첫 조각도 FLAG_MORE_FRAGMENTS가 있으므로 포함)
+    public static boolean isFragment(ByteBuffer packet) {
+        return (getFlags(packet) & FLAG_MORE_FRAGMENTS) != 0 || getFragmentOffset(packet) != 0;
+    }
+
+    // packet 페이로드의 [offset, offset + length)를 조각으로 out의 현재 위치에 쓰고 위치를 조각 끝으로 옮김 (헤더는 복사)
+    public static void encodeFragment(ByteBuffer out, ByteBuffer packet, int offset, int length, boolean more) {
+        int position = packet.position();
+        int start = out.position();
+
+        out.put(packet.slice(position, HEADER_SIZE))
+            .put(packet.slice(position + HEADER_SIZE + offset, length));
+        out.put(start + FLAGS_OFFSET, (byte) (more ? getFlags(packet) | FLAG_MORE_FRAGMENTS : getFlags(packet) & ~FLAG_MORE_FRAGMENTS))
+            .putShort(start + LENGTH_OFFSET, (short) length)
+            .putShort(start + FRAGMENT_OFFSET, (short) offset);
+    }
+
+    // 다시 합친 패킷의 헤더로 바꿈 (조각 표시를 지우고 전체 길이로)
+    static void setReassembled(ByteBuffer packet, int payloadLength) {
+        setFlags(packet, getFlags(packet) & ~FLAG_MORE_FRAGMENTS);
+        packet.putShort(packet.position() + LENGTH_OFFSET, (short) payloadLength);
+        packet.putShort(packet.position() + FRAGMENT_OFFSET, (short) 0);
+    }
+
+    public static void setSource(ByteBuffer packet, int source) {
+        packet.putInt(packet.position() + SOURCE_OFFSET, source);
+    }
+
+    public static void setDestination(ByteBuffer packet, int destination) {
+        packet.putInt(packet.position() + DESTINATION_OFFSET, destination);
+    }
+
+    // 에코 요청 생성 (페이로드: 보낸 시각(ns))
+    public static ByteBuffer createEcho(int source, int destination, int sequence, long sentAt) {
+        ByteBuffer packet = create(source, destination, 1, 0, sequence, ByteBuffer.allocate(8).putLong(sentAt).array());
+        setFlags(packet, FLAG_ECHO_REQUEST);
+        return packet;
+    }
+
+    // 받은 에코 요청을 그 자리에서 응답으로 바꿈 (출발지/목적지 교환)
+    public static void toEchoReply(ByteBuffer packet) {
+        int source = getSource(packet);
+        setSource(packet, getDestination(packet));
+        setDestination(packet, source);
+        setFlags(packet, FLAG_ECHO_REPLY);
+        setTtl(packet, 1);
+    }
+
+    // 에코/부하 측정 패킷에 담긴 보낸 시각(ns)
+    public static long getTimestamp(ByteBuffer packet) {
+        return getPayloadLength(packet) < 8 ? 0 : packet.getLong(packet.position() + HEADER_SIZE);
+    }
+
+    // 부하 측정 패킷 생성 (페이로드 size 바이트, 나머지는 0으로 채움)
+    public static ByteBuffer createTraffic(int destination, int flowId, int sequence, long sentAt, boolean reply, int size) {
+        byte[] payload = new byte[Math.max(MIN_TRAFFIC_PAYLOAD, size)];
+        ByteBuffer.wrap(payload).putLong(sentAt).put((byte) (reply ? 1 : 0));
+
+        ByteBuffer packet = create(0, destination, DEFAULT_TTL, flowId, sequence, payload);
+        setFlags(packet, FLAG_TRAFFIC);
+        return packet;
+    }
+
+    // 보낸 쪽이 RTT 측정용 응답을 요청했는지
+    public static boolean isReplyRequested(ByteBuffer packet) {
+        return getPayloadLength(packet) >= MIN_TRAFFIC_PAYLOAD && packet.get(packet.position() + HEADER_SIZE + 8) != 0;
+    }
+
+    // 받은 부하 측정 패킷에 대한 응답 (같은 흐름/순번, 보낸 시각만 담아 돌려줌)
+    public static ByteBuffer createTrafficReply(ByteBuffer packet) {
+        ByteBuffer reply = create(0, getSource(packet), DEFAULT_TTL, getFlowId(packet), getSequence(packet),
+            ByteBuffer.allocate(8).putLong(getTimestamp(packet)).array());
+        setFlags(reply, FLAG_TRAFFIC_REPLY);
+        return reply;
+    }
+
+    // 예전 쿼리 문자열 형식을 바이너리 패킷으로 변환, destination이 없거나 잘못되면 null
+    // 선택 필드: ttl, flow, seq (없으면 기본값)
+    public static ByteBuffer fromLegacy(String query, int source, int defaultFlowId, int defaultSequence) {
+        Map<String, String> fields = new HashMap<>();
+
+        try {
+            for (String pair : query.trim().split("&")) {
+                int equals = pair.indexOf('=');
+
+                if (equals < 0) {
+                    continue;
+                }
+                fields.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        } catch (IllegalArgumentException e) { // 잘못된 URL 인코딩
+            return null;
+        }
+        return fromFields(fields, source, defaultFlowId, defaultSequence);
+    }
+
+    // {"destination":"a.b.c.d","payload":"...","ttl":8} 형식의 한 줄(JSON 객체)을 바이너리 패킷으로 변환, 잘못되면 null
+    public static ByteBuffer fromJson(String line, int source, int defaultFlowId, int defaultSequence) {
+        Map<String, String> fields = parseFlatJson(line);
+        return fields == null ? null : fromFields(fields, source, defaultFlowId, defaultSequence);
+    }
+
+    private static ByteBuffer fromFields(Map<String, String> fields, int source, int defaultFlowId, int defaultSequence) {
+        String destination = fields.get("destination");
+
+        if (destination == null) {
+            return null;
+        }
+
+        try {
+            int ttl = fields.containsKey("ttl") ? Math.max(1, Math.min(255, Integer.parseInt(fields.get("ttl")))) : DEFAULT_TTL;
+            int flowId = fields.containsKey("flow") ? Integer.parseInt(fields.get("flow")) : defaultFlowId;
+            int sequence = fields.containsKey("seq") ? Integer.parseInt(fields.get("seq")) : defaultSequence;
+            byte[] payload = fields.getOrDefault("payload", "").getBytes(StandardCharsets.UTF_8);
+
+            return create(source, IPv4.parse(destination), ttl, flowId, sequence, payload);
+        } catch (IllegalArgumentException e) { // 잘못된 주소, 숫자, 너무 큰 페이로드
+            return null;
+        }
+    }
+
+    // 값이 문자열/숫자/true/false/null뿐인 한 단계 JSON 객체 해석, 형식이 틀리면 null
+    private static Map<String, String> parseFlatJson(String text) {
+        Map<String, String> fields = new HashMap<>();
+        int[] at = { skipSpaces(text, 0) };
+
+        if (!expect(text, at, '{')) {
+            return null;
+        }
+        if (expect(text, at, '}')) {
+            return skipSpaces(text, at[0]) == text.length() ? fields : null;
+        }
+
+        do {
+            String key = readJsonString(text, at);
+
+            if (key == null || !expect(text, at, ':')) {
+                return null;
+            }
+
+            at[0] = skipSpaces(text, at[0]);
+            String value;
+
+            if (at[0] < text.length() && text.charAt(at[0]) == '"') {
+                value = readJsonString(text, at);
+            } else {
+                int start = at[0];
+
+                while (at[0] < text.length() && ",} \t\r\n".indexOf(text.charAt(at[0])) < 0) {
+                    at[0]++;
+                }
+                value = text.substring(start, at[0]);
+
+                if (value.isEmpty()) {
+                    return null;
+                }
+                if (value.equals("null")) {
+                    value = null;
+                }
+            }
+
+            if (value != null) {
+                fields.put(key, value);
+            }
+        } while (expect(text, at, ','));
+
+        if (!expect(text, at, '}') || skipSpaces(text, at[0]) != text.length()) {
+            return null;
+        }
+        return fields;
+    }
+
+    private static String readJsonString(String text, int[] at) {
+        if (!expect(text, at, '"')) {
+            return null;
+        }
+
+        StringBuilder value = new StringBuilder();
+
+        while (at[0] < text.length()) {
+            char c = text.charAt(at[0]++);
+
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (at[0] >= text.length()) {
+                return null;
+            }
+
+            char escaped = text.charAt(at[0]++);
+
+            switch (escaped) {
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'u':
+                    if (at[0] + 4 > text.length()) {
+                        return null;
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(text.substring(at[0], at[0] + 4), 16));
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                    at[0] += 4;
+                    break;
+                default: // \" \\ \/
+                    value.append(escaped);
+                    break;
+            }
+        }
+        return null;
+    }
+
+    // 공백을 건너뛰고 다음 글자가 c면 소비
+    private static boolean expect(String text, int[] at, char c) {
+        at[0] = skipSpaces(text, at[0]);
+
+        if (at[0] < text.length() && text.charAt(at[0]) == c) {
+            at[0]++;
+            return true;
+        }
+        return false;
+    }
+
+    private static int skipSpaces(String text, int from) {
+        while (from < text.length() && Character.isWhitespace(text.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    // 로그 출력용 요약
+    public static String describe(ByteBuffer packet) {
+        return IPv4.format(getSource(packet)) + " -> " + IPv4.format(getDestination(packet))
+            + " (flow " + getFlowId(packet) + ", seq " + getSequence(packet) + ", ttl " + getTtl(packet)
+            + ", " + getPayloadLength(packet) + " bytes"
+            + (isFragment(packet) ? ", fragment at " + getFragmentOffset(packet) + ((getFlags(packet) & FLAG_MORE_FRAGMENTS) != 0 ? "+" : "") : "")
+            + ")";
+    }
+}
@@ -0,0 +1,72 @@
+package device;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// "--key=value" 또는 "key=value" 형식의 장치 설정
+public class DeviceOptions {
+    private final Map<String, String> values;
+
+    public DeviceOptions() {
+        this.values = new HashMap<>();
+    }
+
+    // 인자 배열의 from 번째부터 옵션으로 해석
+    public static DeviceOptions parse(String[] args, int from) {
+        DeviceOptions options = new DeviceOptions();
+
+        for (int i = from; i < args.length; i++) {
+            String arg = args[i].startsWith("--") ? args[i].substring(2) : args[i];
+            int equals = arg.indexOf('=');
+
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Invalid option: " + args[i]);
+            }
+            options.set(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+        return options;
+    }
+
+    public static boolean isOption(String arg) {
+        return arg.indexOf('=') > 0;
+    }
+
+    public DeviceOptions set(String key, String value) {
+        values.put(key.toLowerCase(), value);
+        return this;
+    }
+
+    // 다른 설정의 값을 덮어씀
+    public DeviceOptions putAll(DeviceOptions other) {
+        values.putAll(other.values);
+        return this;
+    }
+
+    public boolean has(String key) {
+        return values.containsKey(key.toLowerCase());
+    }
+
+    public String get(String key, String defaultValue) {
+        return values.getOrDefault(key.toLowerCase(), defaultValue);
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = values.get(key.toLowerCase());
+
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for option " + key + ": " + value);
+        }
+    }
+
+    public double getDouble(String key, double defaultValue) {
+        String value = values.get(key.toLowerCase());
+
+        try {
+            return value == null ? defaultValue : Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for option " + key + ": " + value);
+        }
+    }
+}
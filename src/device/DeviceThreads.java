@@ -0,0 +1,223 @@
+package device;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import logging.Logger;
+import transport.TransportSocket;
+
+// 장치 하나가 쓰는 스레드와 자원 관리
+// threads=virtual(기본)이면 리스너/요청/스케줄러 작업을 가상 스레드로, platform이면 기존처럼 OS 스레드로 실행
+// 사건 모드(이산 사건 시뮬레이션)에서는 스레드를 만들지 않음: 스케줄러는 공용 사건 루프이고, 수신은 도착할 때마다 사건 루프에서 처리
+// close()는 리스너를 깨우고 소켓/서버/실행기를 닫은 뒤 리스너가 끝날 때까지 기다리고, 마지막으로 로그를 비움
+class DeviceThreads implements AutoCloseable {
+    private static final long JOIN_TIMEOUT_MS = 2000;
+
+    // 받은 데이터그램 하나 처리 (packet은 position~limit에 내용이 담긴 수신 버퍼, 돌아온 뒤 다시 씀)
+    interface PacketHandler {
+        void handle(ByteBuffer packet, InetSocketAddress source) throws IOException;
+    }
+
+    private final String name;
+    private final Logger log;
+    private final ScheduledExecutorService events; // 사건 모드의 공용 사건 루프 (스레드 모드면 null)
+    private final boolean virtual;
+    private final List<Thread> threads; // 시작한 리스너
+    private final List<AutoCloseable> resources; // 종료 시 닫을 소켓, 서버 등 (등록 역순으로 닫음)
+    private final List<ExecutorService> executors;
+    private final CountDownLatch terminated;
+    private volatile boolean closed;
+
+    DeviceThreads(String name, DeviceOptions options, Logger log) {
+        this(name, options, log, null);
+    }
+
+    DeviceThreads(String name, DeviceOptions options, Logger log, ScheduledExecutorService events) {
+        this.name = name;
+        this.log = log;
+        this.events = events;
+        this.virtual = parseMode(options.get("threads", "virtual"));
+        this.threads = new CopyOnWriteArrayList<>();
+        this.resources = new CopyOnWriteArrayList<>();
+        this.executors = new CopyOnWriteArrayList<>();
+        this.terminated = new CountDownLatch(1);
+    }
+
+    private static boolean parseMode(String mode) {
+        switch (mode.toLowerCase()) {
+            case "virtual":
+                return true;
+            case "platform":
+                return false;
+            default:
+                throw new IllegalArgumentException("Unknown thread mode: " + mode);
+        }
+    }
+
+    boolean isVirtual() {
+        return virtual;
+    }
+
+    boolean isEventDriven() {
+        return events != null;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    // close()가 끝날 때까지 대기 (가상 스레드는 데몬이라 main이 대신 기다려야 함)
+    void awaitTermination() throws InterruptedException {
+        terminated.await();
+    }
+
+    // 이름 붙은 리스너 스레드 시작
+    Thread start(String task, Runnable runnable) {
+        if (closed) {
+            throw new IllegalStateException(name + " is shut down");
+        }
+        requireThreads(task);
+
+        Thread thread = factory(name + "-" + task).newThread(runnable);
+        threads.add(thread);
+        thread.start();
+        return thread;
+    }
+
+    // 소켓으로 받은 데이터그램을 buffer에 담아 handler로 처리 (buffer보다 큰 데이터는 잘림)
+    // 스레드 모드는 이름 붙은 리스너 스레드가 계속 받고, 사건 모드는 도착할 때마다 사건 루프에서 바로 호출
+    // 스레드 모드에서 처리 중 예외가 나면 리스너가 끝나므로 계속 받아야 하는 오류는 handler 안에서 처리
+    void listen(String task, TransportSocket socket, ByteBuffer buffer, PacketHandler handler) {
+        if (events != null) {
+            socket.setReceiver((data, source) -> {
+                buffer.clear();
+                buffer.put(data.limit(Math.min(data.limit(), buffer.remaining()))).flip();
+
+                try {
+                    handler.handle(buffer, source);
+                } catch (IOException e) {
+                    if (!closed) {
+                        log.error("Error handling " + task + " packet: " + e.getMessage());
+                    }
+                }
+            });
+            return;
+        }
+
+        start(task, () -> {
+            try {
+                while (true) {
+                    buffer.clear();
+                    InetSocketAddress source = socket.receive(buffer);
+                    buffer.flip();
+                    handler.handle(buffer, source);
+                }
+            } catch (Exception e) {
+                if (!closed) { // 종료 중이면 소켓이 닫힌 것
+                    log.error("Error receiving " + task + " packets: " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    // 주기 작업용 스케줄러 (가상 모드에서도 타이머 스레드 수는 threads 개로 제한)
+    // 사건 모드는 공용 사건 루프를 그대로 돌려주며, 시뮬레이션이 끝나면 함께 버려지므로 종료하지 않음
+    ScheduledExecutorService newScheduler(int threads) {
+        if (events != null) {
+            return events;
+        }
+        return track(Executors.newScheduledThreadPool(threads, factory(name + "-scheduler")));
+    }
+
+    // 요청 처리용 실행기, 가상 모드는 요청마다 스레드 하나, 플랫폼 모드는 threads 개 고정 풀
+    ExecutorService newRequestExecutor(int threads) {
+        requireThreads("request");
+        return track(virtual
+            ? Executors.newThreadPerTaskExecutor(factory(name + "-request"))
+            : Executors.newFixedThreadPool(threads, factory(name + "-request")));
+    }
+
+    // 요청 하나 동안 함께 도는 보조 작업용 실행기 (스트림 결과 쓰기 등)
+    // 요청 처리 스레드가 이 작업을 기다리므로 요청 풀과 따로 두고, 플랫폼 모드도 작업마다 스레드를 씀 (쉬는 스레드는 재사용)
+    ExecutorService newCompanionExecutor() {
+        requireThreads("companion");
+        return track(virtual
+            ? Executors.newThreadPerTaskExecutor(factory(name + "-companion"))
+            : Executors.newCachedThreadPool(factory(name + "-companion")));
+    }
+
+    // 종료 시 닫을 자원 등록
+    <T extends AutoCloseable> T register(T resource) {
+        resources.add(resource);
+        return resource;
+    }
+
+    // 사건 모드에서는 모든 처리가 사건 루프 한 스레드에서 일어나야 재현됨
+    private void requireThreads(String task) {
+        if (events != null) {
+            throw new IllegalStateException(name + "-" + task + " needs its own thread, which event-driven simulation does not allow");
+        }
+    }
+
+    private <T extends ExecutorService> T track(T executor) {
+        executors.add(executor);
+        return executor;
+    }
+
+    private ThreadFactory factory(String prefix) {
+        return virtual
+            ? Thread.ofVirtual().name(prefix + "-", 0).factory()
+            : Thread.ofPlatform().name(prefix + "-", 0).factory();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        for (ExecutorService executor : executors) {
+            executor.shutdownNow();
+        }
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+
+        // 나중에 연 자원부터 닫아서 막혀 있는 수신을 깨움
+        for (int i = resources.size() - 1; i >= 0; i--) {
+            try {
+                resources.get(i).close();
+            } catch (Exception e) {
+                log.error("Error closing " + name + " resource: " + e.getMessage());
+            }
+        }
+
+        try {
+            for (ExecutorService executor : executors) {
+                executor.awaitTermination(JOIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            }
+            for (Thread thread : threads) {
+                thread.join(JOIN_TIMEOUT_MS);
+
+                if (thread.isAlive()) {
+                    log.warn("Thread did not stop: " + thread.getName());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            log.close();
+            terminated.countDown();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package device;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// (출발지, 흐름 ID)별 순번 창으로 중복 패킷 판별 (IPsec 재전송 방지 창과 같은 방식)
+// 창보다 조금 오래된 순번은 중복으로 보고, 창 몇 개 이상 뒤로 돌아간 순번은 송신 측 재시작으로 보고 창을 초기화
+// (호스트 순번은 시작할 때마다 0부터이므로, 재시작한 호스트의 새 패킷을 중복으로 버리지 않도록)
+class DuplicateFilter {
+    private static final int WINDOW = 64;
+    private static final int RESTART_GAP = 4 * WINDOW;
+
+    private static class Window {
+        private int highest; // 지금까지 받은 가장 큰 순번
+        private long seen; // bit i: highest - i 를 받았는지
+
+        private Window(int sequence) {
+            this.highest = sequence;
+            this.seen = 1;
+        }
+    }
+
+    private final Map<Long, Window> flows;
+
+    DuplicateFilter(int maxFlows) {
+        // 오래 쓰지 않은 흐름부터 버림
+        this.flows = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Window> eldest) {
+                return size() > maxFlows;
+            }
+        };
+    }
+
+    // 처음 보는 패킷이면 기록하고 false, 이미 받은 패킷이면 true
+    synchronized boolean isDuplicate(int source, int flowId, int sequence) {
+        long key = ((long) source << 32) | (flowId & 0xFFFFFFFFL);
+        Window window = flows.get(key);
+
+        if (window == null) {
+            flows.put(key, new Window(sequence));
+            return false;
+        }
+
+        int ahead = sequence - window.highest; // 순번이 넘쳐도 차이로 비교
+
+        if (ahead > 0) {
+            window.seen = ahead >= WINDOW ? 1 : (window.seen << ahead) | 1;
+            window.highest = sequence;
+            return false;
+        }
+
+        int behind = -ahead;
+
+        if (behind >= RESTART_GAP) {
+            flows.put(key, new Window(sequence));
+            return false;
+        }
+        if (behind >= WINDOW) {
+            return true;
+        }
+
+        long bit = 1L << behind;
+
+        if ((window.seen & bit) != 0) {
+            return true;
+        }
+        window.seen |= bit;
+        return false;
+    }
+}
@@ -0,0 +1,108 @@
+package device;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import clock.Clock;
+import logging.Logger;
+import metrics.Histogram;
+import metrics.Metrics;
+import transport.TransportSocket;
+
+// 라우터 인터페이스 하나의 출력 큐와 송신 속도 제한 (egress-rate 옵션이 있을 때만)
+// 전달 작업은 다음 홉과 함께 큐에 넣고 돌아가며, 큐를 비우는 쪽은 토큰 버킷이 허락할 때만 보냄
+// 스레드 모드는 인터페이스마다 송신 스레드 하나가, 사건 모드는 토큰이 찰 시각에 예약한 사건이 비움
+class EgressPort implements Runnable {
+    private final PacketQueue queue;
+    private final TokenBucket bucket;
+    private final TransportSocket socket;
+    private final AddressCache addressCache; // 큐를 비우는 쪽 전용
+    private final ScheduledExecutorService events; // 사건 모드의 사건 루프 (스레드 모드면 null)
+    private final Metrics.Counters<String> dropped;
+    private final Histogram waitTime; // 큐에 넣은 뒤 보낼 때까지 (Clock 기준, 사건 모드는 가상 시간)
+    private final Logger log;
+    private boolean scheduled; // 사건 모드: 비우기 사건이 예약되어 있는지
+
+    EgressPort(PacketQueue queue, TokenBucket bucket, TransportSocket socket, int port, ScheduledExecutorService events,
+            Metrics.Counters<String> dropped, Histogram waitTime, Logger log) {
+        this.queue = queue;
+        this.bucket = bucket;
+        this.socket = socket;
+        this.addressCache = new AddressCache(port);
+        this.events = events;
+        this.dropped = dropped;
+        this.waitTime = waitTime;
+        this.log = log;
+    }
+
+    PacketQueue getQueue() {
+        return queue;
+    }
+
+    // 다음 홉으로 보낼 패킷을 큐에 넣음 (packet은 복사하므로 바로 다시 써도 됨)
+    PacketQueue.Admission offer(ByteBuffer packet, int nextHop) {
+        PacketQueue.Admission admission = queue.offer(packet, nextHop, Clock.nanos());
+
+        if (admission == PacketQueue.Admission.ACCEPTED && events != null && !scheduled) {
+            drain();
+        }
+        return admission;
+    }
+
+    // 스레드 모드 송신 루프
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                PacketQueue.Entry entry = queue.take();
+                long wait;
+
+                while ((wait = bucket.acquire(entry.packet().remaining())) > 0) {
+                    LockSupport.parkNanos(wait);
+
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                }
+                send(entry);
+                queue.release();
+            }
+        } catch (InterruptedException e) {
+            // 종료
+        }
+    }
+
+    // 사건 모드: 토큰이 있는 만큼 보내고, 모자라면 찰 시각에 다시 예약
+    private void drain() {
+        scheduled = false;
+        PacketQueue.Entry entry;
+
+        while ((entry = queue.peek()) != null) {
+            long wait = bucket.acquire(entry.packet().remaining());
+
+            if (wait > 0) {
+                scheduled = true;
+                events.schedule(this::drain, wait, TimeUnit.NANOSECONDS);
+                return;
+            }
+            send(entry);
+            queue.release();
+        }
+    }
+
+    private void send(PacketQueue.Entry entry) {
+        try {
+            if (!socket.send(entry.packet(), addressCache.get(entry.address()))) {
+                dropped.increment("send_buffer_full");
+                return;
+            }
+            waitTime.record(Clock.nanos() - entry.time());
+        } catch (IOException e) {
+            dropped.increment("send_error");
+            log.error("Error sending queued packet on " + queue.getName() + ": " + e.getMessage());
+        }
+    }
+}
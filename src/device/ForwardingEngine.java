@@ -0,0 +1,355 @@
+package device;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+import logging.Logger;
+import metrics.Histogram;
+import metrics.Metrics;
+import routing.IPv4;
+import routing.RoutingTable;
+import transport.TransportSocket;
+
+// 라우터 데이터 평면
+// 계속 열어둔 소켓 하나로 받고 보내며, 받은 버퍼의 헤더만 고쳐서(TTL) 그대로 다음 홉에 전달
+// 같은 비용의 다음 홉이 여러 개면 흐름 해시로 골라 흐름 안의 순서는 유지하면서 링크에 나눠 보냄
+// 수신은 DeviceThreads.listen이 맡고 (리스너 스레드 또는 사건 루프), 받은 버퍼는 다음 수신에 다시 씀
+// startQueues를 부르면 스레드 모드에서는 받은 패킷을 흐름 해시로 고른 작업 스레드의 입력 큐에 넣어 처리하고
+// (리스너는 소켓만 비우므로 폭주는 소켓 버퍼가 아닌 셀 수 있는 큐에서 버려짐), egress-rate가 있는 인터페이스는
+// 출력 큐와 토큰 버킷을 거쳐 보냄 (사건 모드는 처리 시간이 없으므로 입력 큐 없이 출력 큐만)
+// 링크 측정 에코는 큐를 거치지 않고 리스너에서 바로 처리
+class ForwardingEngine {
+    static final int PACKET_BUFFER_SIZE = 1024;
+    private static final int WORKERS = 1; // 스레드 모드의 기본 전달 작업 스레드 수 (0이면 리스너에서 바로 전달)
+    private static final int QUEUE_SIZE = 512; // 큐 하나의 기본 패킷 수
+    private static final double RED_PROBABILITY = 0.1;
+    private static final double RED_WEIGHT = 0.002;
+    private static final int EGRESS_BURST_PACKETS = 8; // 기본 버킷 크기 (최대 크기 패킷 수)
+
+    private final TransportSocket socket;
+    private final RoutingTable routingTable;
+    private final List<String> selfIPs;
+    private final int[] selfAddresses;
+    private final int port;
+    private final AddressCache addressCache; // 다음 홉 주소 캐시 (리스너 전용, 작업 스레드는 각자 가짐)
+    private final LinkProber prober; // 링크 비용 측정 (없으면 null)
+    private final Logger log; // 패킷 단위 기록은 log-sample 비율로만
+    private final LongAdder received;
+    private final LongAdder delivered;
+    private final LongAdder forwarded;
+    private final Metrics.Counters<Integer> forwardedByNextHop; // 다음 홉 -> 전달한 패킷 수 (ECMP 분산 확인용)
+    private final Metrics.Counters<String> dropped; // 버린 이유 -> 패킷 수
+    private final Histogram forwardingTime; // 받은 뒤 다음 홉으로 보낼 때까지 (입력 큐 대기 포함)
+    private PacketQueue[] ingress; // 작업 스레드별 입력 큐 (없으면 받은 스레드에서 바로 전달)
+    private EgressPort[] egress; // 인터페이스(selfIPs 순서)별 출력 큐, 속도 제한이 없는 인터페이스는 null
+    private Metrics.Counters<String> queueDrops; // 큐 이름 -> 버린 패킷 수
+
+    ForwardingEngine(TransportSocket socket, RoutingTable routingTable, List<String> selfIPs, int port, LinkProber prober,
+            Metrics metrics, Logger log) {
+        this.socket = socket;
+        this.routingTable = routingTable;
+        this.selfIPs = selfIPs;
+        this.selfAddresses = new int[selfIPs.size()];
+        this.port = port;
+        this.addressCache = new AddressCache(port);
+        this.prober = prober;
+        this.log = log;
+        this.received = metrics.counter("packets_received_total", "Data packets received by the forwarding engine");
+        this.delivered = metrics.counter("packets_delivered_total", "Data packets addressed to this device");
+        this.forwarded = metrics.counter("packets_forwarded_total", "Data packets sent on to a next hop");
+        this.forwardedByNextHop = metrics.counters("packets_forwarded_by_next_hop_total",
+            "Data packets sent to each learned next hop", "next_hop", IPv4::format);
+        this.dropped = metrics.counters("packets_dropped_total", "Data packets dropped by reason", "reason", reason -> reason);
+        this.forwardingTime = metrics.histogram("forwarding_seconds", "Time from receiving a data packet to sending it on");
+
+        for (int i = 0; i < selfAddresses.length; i++) {
+            selfAddresses[i] = IPv4.parse(selfIPs.get(i));
+        }
+    }
+
+    // 입력 큐와 작업 스레드, 인터페이스별 출력 큐 시작 (수신 전에 한 번, packetSize는 큐 칸 크기)
+    // forwarding-workers, queue-size, queue-policy=tail|red (red-min, red-max, red-probability, red-weight),
+    // egress-rate(kbit/s, 인터페이스별은 egress-rate-<인터페이스 IP>), egress-burst(바이트)
+    void startQueues(DeviceThreads threads, DeviceOptions options, int packetSize, Random random, Metrics metrics) {
+        int queueSize = options.getInt("queue-size", QUEUE_SIZE);
+        String policy = options.get("queue-policy", "tail").toLowerCase();
+
+        if (!policy.equals("tail") && !policy.equals("red")) {
+            throw new IllegalArgumentException("Unknown queue policy: " + policy);
+        }
+
+        List<PacketQueue> queues = new ArrayList<>();
+        int workers = threads.isEventDriven() ? 0 : options.getInt("forwarding-workers", WORKERS);
+
+        if (workers > 0) {
+            ingress = new PacketQueue[workers];
+
+            for (int i = 0; i < workers; i++) {
+                PacketQueue queue = new PacketQueue("ingress-" + i, queueSize, packetSize, red(policy, queueSize, options, random));
+                AddressCache cache = new AddressCache(port);
+
+                ingress[i] = queue;
+                queues.add(queue);
+                threads.start("forwarding-" + i, () -> work(queue, cache));
+            }
+        }
+
+        Histogram egressWait = null;
+        double defaultRate = options.getDouble("egress-rate", 0);
+
+        for (int i = 0; i < selfAddresses.length; i++) {
+            double rate = options.getDouble("egress-rate-" + selfIPs.get(i), defaultRate);
+
+            if (rate <= 0) {
+                continue;
+            }
+            if (egress == null) {
+                egress = new EgressPort[selfAddresses.length];
+                egressWait = metrics.histogram("egress_wait_seconds", "Time a data packet waits in an output queue for the link rate");
+            }
+
+            PacketQueue queue = new PacketQueue("egress-" + selfIPs.get(i), queueSize, packetSize, red(policy, queueSize, options, random));
+            TokenBucket bucket = new TokenBucket(rate * 1000 / 8, options.getInt("egress-burst", EGRESS_BURST_PACKETS * packetSize));
+
+            egress[i] = new EgressPort(queue, bucket, socket, port, threads.isEventDriven() ? threads.newScheduler(1) : null,
+                dropped, egressWait, log);
+            queues.add(queue);
+
+            if (!threads.isEventDriven()) {
+                threads.start("egress-" + selfIPs.get(i), egress[i]);
+            }
+        }
+
+        queueDrops = metrics.counters("queue_dropped_total", "Data packets dropped by each forwarding queue", "queue", name -> name);
+        metrics.gauges("queue_depth", "Data packets waiting in each forwarding queue", "queue", gauge ->
+            queues.forEach(queue -> gauge.accept(queue.getName(), queue.size())));
+    }
+
+    // red-min/red-max 기본값은 큐 크기의 1/4, 3/4
+    private static PacketQueue.Red red(String policy, int queueSize, DeviceOptions options, Random random) {
+        if (!policy.equals("red")) {
+            return null;
+        }
+        return new PacketQueue.Red(options.getDouble("red-min", queueSize / 4.0), options.getDouble("red-max", queueSize * 3 / 4.0),
+            options.getDouble("red-probability", RED_PROBABILITY), options.getDouble("red-weight", RED_WEIGHT), random);
+    }
+
+    // 받은 패킷 해석, 에코는 바로 처리하고 데이터 패킷은 입력 큐에 넣거나 (작업 스레드가 없으면) 바로 전달
+    void receive(ByteBuffer packet, InetSocketAddress source) {
+        long receivedAt = System.nanoTime();
+
+        if (!DataPacket.isDataPacket(packet)) {
+            packet = fromLegacy(packet, source);
+
+            if (packet == null) {
+                dropped.increment("invalid");
+                return;
+            }
+        }
+
+        // 이웃 라우터의 링크 측정 에코는 기록하지 않고 바로 처리
+        if ((DataPacket.getFlags(packet) & (DataPacket.FLAG_ECHO_REQUEST | DataPacket.FLAG_ECHO_REPLY)) != 0) {
+            if (isSelf(DataPacket.getDestination(packet))) {
+                handleEcho(packet);
+            }
+            return;
+        }
+
+        received.increment();
+        int sourceIP = addressOf(source);
+
+        if (ingress == null) {
+            forward(packet, sourceIP, addressCache, receivedAt);
+            return;
+        }
+
+        // 같은 흐름은 같은 작업 스레드로 보내 흐름 안의 순서를 유지
+        PacketQueue queue = ingress[Math.floorMod(DataPacket.flowHash(packet), ingress.length)];
+        PacketQueue.Admission admission = queue.offer(packet, sourceIP, receivedAt);
+
+        if (admission != PacketQueue.Admission.ACCEPTED) {
+            drop(queue, admission);
+        }
+    }
+
+    // 작업 스레드: 입력 큐의 패킷을 그 자리에서 전달
+    private void work(PacketQueue queue, AddressCache cache) {
+        try {
+            while (true) {
+                PacketQueue.Entry entry = queue.take();
+
+                try {
+                    forward(entry.packet(), entry.address(), cache, entry.time());
+                } catch (RuntimeException e) {
+                    log.error("Error forwarding packet: " + e);
+                } finally {
+                    queue.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            // 종료
+        }
+    }
+
+    // 다음 홉으로 전달 (cache는 호출하는 스레드 전용)
+    private void forward(ByteBuffer packet, int source, AddressCache cache, long receivedAt) {
+        int destination = DataPacket.getDestination(packet);
+        boolean sampled = log.samplePacket();
+        boolean trace = sampled && log.isEnabled(Logger.Level.INFO);
+
+        if (trace) {
+            log.info("Received packet: " + DataPacket.describe(packet) + " from " + IPv4.format(source));
+        }
+
+        if (isSelf(destination)) {
+            delivered.increment();
+
+            if (trace) {
+                log.info("Packet delivered to router: " + new String(DataPacket.getPayload(packet), StandardCharsets.UTF_8));
+            }
+            return;
+        }
+
+        // TTL이 다하면 버림 (라우팅 루프 방지)
+        int ttl = DataPacket.getTtl(packet);
+
+        if (ttl <= 1) {
+            dropped.increment("ttl");
+
+            if (sampled && log.isEnabled(Logger.Level.WARN)) {
+                log.warn("TTL expired: " + DataPacket.describe(packet));
+            }
+            return;
+        }
+        DataPacket.setTtl(packet, ttl - 1);
+
+        int nextHop = routingTable.nextHop(destination, DataPacket.flowHash(packet));
+
+        if (nextHop == RoutingTable.NO_ROUTE) {
+            dropped.increment("no_route");
+
+            if (sampled && log.isEnabled(Logger.Level.WARN)) {
+                log.warn("No route to destination: " + IPv4.format(destination));
+            }
+            return;
+        }
+
+        // 직접 연결된 서브넷이면 (다음 홉이 자신의 인터페이스) 목적지로 바로 전달
+        boolean connected = isSelf(nextHop);
+
+        if (connected) {
+            nextHop = destination;
+        }
+
+        EgressPort output = egress == null ? null : egress[interfaceFor(nextHop)];
+
+        try {
+            if (output == null) {
+                int position = packet.position();
+                boolean sent = socket.send(packet, cache.get(nextHop));
+                packet.position(position); // 전송으로 옮겨진 위치를 되돌려 헤더를 다시 읽음
+
+                if (!sent) {
+                    dropped.increment("send_buffer_full");
+                    return;
+                }
+            } else {
+                PacketQueue.Admission admission = output.offer(packet, nextHop);
+
+                if (admission != PacketQueue.Admission.ACCEPTED) {
+                    drop(output.getQueue(), admission);
+                    return;
+                }
+            }
+            forwardingTime.recordSince(receivedAt);
+            forwarded.increment();
+
+            if (!connected) {
+                forwardedByNextHop.increment(nextHop);
+            }
+            if (trace) {
+                log.info("Forwarded packet: " + DataPacket.describe(packet) + " to " + IPv4.format(nextHop));
+            }
+        } catch (IOException e) {
+            dropped.increment("send_error");
+            log.error("Error forwarding packet: " + e.getMessage());
+        }
+    }
+
+    // 에코 요청은 보낸 쪽으로 되돌려 보내고, 응답은 측정값에 반영
+    private void handleEcho(ByteBuffer packet) {
+        if ((DataPacket.getFlags(packet) & DataPacket.FLAG_ECHO_REPLY) != 0) {
+            if (prober != null) {
+                prober.onReply(packet);
+            }
+            return;
+        }
+
+        DataPacket.toEchoReply(packet);
+
+        try {
+            socket.send(packet, addressCache.get(DataPacket.getDestination(packet)));
+        } catch (IOException e) {
+            log.error("Error sending echo reply: " + e.getMessage());
+        }
+    }
+
+    // 다음 홉별 전달 패킷 수
+    String statistics() {
+        StringBuilder builder = new StringBuilder();
+
+        forwardedByNextHop.forEach((nextHop, count) ->
+            builder.append(String.format("%-16s %d packets%n", IPv4.format(nextHop), count)));
+        return builder.toString();
+    }
+
+    private void drop(PacketQueue queue, PacketQueue.Admission admission) {
+        dropped.increment(admission == PacketQueue.Admission.EARLY_DROP ? "red" : "queue_full");
+        queueDrops.increment(queue.getName());
+    }
+
+    // 주소와 같은 서브넷의 자기 인터페이스 순서 (출력 큐 선택용)
+    // 경로의 다음 홉은 항상 연결된 서브넷에 있으므로 찾지 못하면 첫 인터페이스
+    private int interfaceFor(int address) {
+        int mask = IPv4.mask(NetworkDevice.SUBNET_PREFIX_LENGTH);
+
+        for (int i = 0; i < selfAddresses.length; i++) {
+            if (((selfAddresses[i] ^ address) & mask) == 0) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private static int addressOf(InetSocketAddress source) {
+        byte[] address = source.getAddress().getAddress();
+        return address.length != 4 ? 0
+            : (address[0] & 0xFF) << 24 | (address[1] & 0xFF) << 16 | (address[2] & 0xFF) << 8 | address[3] & 0xFF;
+    }
+
+    private boolean isSelf(int address) {
+        for (int self : selfAddresses) {
+            if (self == address) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 예전 쿼리 문자열 패킷을 바이너리 패킷으로 변환 (보낸 쪽 주소를 출발지로 사용)
+    private ByteBuffer fromLegacy(ByteBuffer packet, InetSocketAddress source) {
+        String message = StandardCharsets.UTF_8.decode(packet).toString();
+        ByteBuffer converted = DataPacket.fromLegacy(message, IPv4.parse(source.getAddress().getHostAddress()), 0, 0);
+
+        if (converted == null) {
+            log.warn("Invalid packet from " + source.getAddress().getHostAddress() + ": " + message);
+        }
+        return converted;
+    }
+}
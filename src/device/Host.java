@@ -1,83 +1,413 @@
 package device;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.net.URLDecoder;
 import java.net.DatagramPacket;
-import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
-import java.util.concurrent.Executors;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 
+import clock.Clock;
+import logging.Logger;
+import metrics.Metrics;
+import routing.IPv4;
+import routing.LinkStatePacket;
+import routing.RouteList;
 import routing.RoutingPacket;
-import routing.RoutingTable;
+import transport.Transport;
+import transport.TransportSocket;
+import transport.UdpTransport;
 
 public class Host extends NetworkDevice {
-    private final RoutingTable routingTable;
+    private static final int HTTP_THREADS = 4; // 플랫폼 스레드 모드의 HTTP 작업 스레드 수
+    private static final int SEND_QUEUE = 4096; // 송신 대기 패킷 수
+    private static final String END_OF_RESULTS = ""; // 스트림 결과 끝 표시
+    private static final int PACKET_BUFFER_SIZE = 65536;
+    private static final int MAX_TRACKED_FLOWS = 4096; // 중복 판별용으로 기억하는 흐름 수
+    private static final double TRAFFIC_RATE = 100; // 부하 생성 흐름의 기본 초당 패킷 수
+    private static final int TRAFFIC_SIZE = 64; // 부하 생성 패킷의 기본 페이로드 크기
+    private static final int REASSEMBLY_TIMEOUT = 5000; // ms, 조각이 다 모이기를 기다리는 시간
+    private static final int REASSEMBLY_KB = 4096; // 재조립 중인 패킷에 쓰는 메모리 한도
+
+    private final RouteList connectedRoutes; // 라우터에 응답할 때 광고하는 경로 (배운 경로는 다시 광고하지 않음)
+    private final DuplicateFilter duplicateFilter;
+    private final TrafficSink trafficSink; // 받은 부하 측정 패킷 집계
+    private final Reassembler reassembler; // 조각 재조립 (패킷 수신 스레드 전용)
+    private final int httpPort; // 0이면 HTTP 서버를 띄우지 않음
+    private final List<PacketSender.Target> broadcastTargets; // 인터페이스별 패킷 브로드캐스트 주소와 출발지
+    private TransportSocket packetSocket; // 패킷 전송용으로 계속 열어두는 소켓
+    private PacketSender sender; // 송신 큐
+    private TrafficGenerator trafficGenerator; // traffic 옵션이나 HTTP 서버가 있을 때만
+    private ScheduledExecutorService scheduler; // 경로 노화와 부하 생성
+    private ExecutorService streamExecutor; // 스트림 결과 전송 (요청 스레드가 기다리므로 요청 풀과 분리)
+    private final AtomicInteger nextSequence; // 보낸 데이터 패킷 순번
+    private final LongAdder received;
+    private final LongAdder delivered;
+    private final LongAdder fragmentsReceived;
+    private final Metrics.Counters<String> dropped; // 버린 이유 -> 패킷 수
+    private final Metrics.Counters<String> advertsReceived; // 라우터 IP -> 받은 광고 수
+    private final LongAdder advertsSent;
 
     public Host() {
-        super();
-        routingTable = new RoutingTable();
+        this(new UdpTransport(), new DeviceOptions());
+    }
+
+    public Host(Transport transport, DeviceOptions options) {
+        this(transport, options, null);
+    }
+
+    // events가 있으면 스레드 없이 그 사건 루프에서만 동작 (이산 사건 시뮬레이션, HTTP 서버 없음)
+    public Host(Transport transport, DeviceOptions options, ScheduledExecutorService events) {
+        super(transport, options, events);
+        this.connectedRoutes = new RouteList();
+        this.duplicateFilter = new DuplicateFilter(MAX_TRACKED_FLOWS);
+        this.trafficSink = new TrafficSink(MAX_TRACKED_FLOWS, metrics);
+        this.httpPort = options.getInt("http", HTTP_PORT);
+        this.broadcastTargets = new ArrayList<>();
+        this.nextSequence = new AtomicInteger();
+        this.received = metrics.counter("packets_received_total", "Data packets addressed to this host");
+        this.delivered = metrics.counter("packets_delivered_total", "Data packets delivered to the application");
+        this.dropped = metrics.counters("packets_dropped_total", "Data packets dropped by reason", "reason", reason -> reason);
+        this.fragmentsReceived = metrics.counter("fragments_received_total", "Fragments received for reassembly");
+        this.reassembler = new Reassembler(options.getInt("reassembly-timeout", REASSEMBLY_TIMEOUT),
+            options.getInt("reassembly-kb", REASSEMBLY_KB) * 1024L, metrics, dropped);
+        this.advertsReceived = metrics.counters("adverts_received_total", "Routing advertisements received from each router",
+            "neighbor", neighbor -> neighbor);
+        this.advertsSent = metrics.counter("adverts_sent_total", "Routing advertisement pages sent in reply to routers");
     }
 
     @Override
     public void run() {
+        // 자신이 연결된 서브넷으로 라우팅 테이블 초기화
+        for (String ip : getIPAddresses()) {
+            String subnet = getSubnetPrefix(ip);
+
+            routingTable.addRoutingPath(subnet, 0, 0, ip);
+            connectedRoutes.add(IPv4.prefixAddress(subnet), SUBNET_PREFIX_LENGTH, 0, 0, IPv4.parse(ip));
+        }
+
+        for (String ip : getIPAddresses()) {
+            InetAddress broadcastAddress = getBroadcastAddress(ip);
+
+            if (broadcastAddress != null) {
+                broadcastTargets.add(new PacketSender.Target(new InetSocketAddress(broadcastAddress, PACKET_RECEIVE_PORT), IPv4.parse(ip)));
+            }
+        }
+
         try {
-            startHttpServer();
+            packetSocket = threads.register(openSocket(0));
+            packetSocket.setBroadcast(true);
+            sender = new PacketSender(packetSocket, routingTable, broadcastTargets, PACKET_RECEIVE_PORT,
+                options.getInt("send-queue", SEND_QUEUE), getMaxDatagramSize(), metrics, threads.isEventDriven());
+
+            if (!threads.isEventDriven()) {
+                threads.start("sender", sender);
+            }
+            scheduler = threads.newScheduler(1);
+            startRouteAging();
+
+            if (options.has("traffic") || httpPort > 0) {
+                trafficGenerator = new TrafficGenerator(sender, scheduler, DataPacket.MAX_PAYLOAD_SIZE, metrics);
+            }
+            listenForPackets();
+
+            if (httpPort > 0) {
+                startHttpServer();
+            }
             listenForRoutingBroadcasts();
+            startConfiguredTraffic();
         } catch (IOException e) {
-            System.err.println("Failed to start services: " + e.getMessage());
+            log.error("Failed to start services: " + e.getMessage());
         }
     }
 
-    // HTTP 서버 시작
+    // HTTP 서버 시작 (송신 경로와 /metrics, /routes)
     private void startHttpServer() throws IOException {
-        HttpServer server = HttpServer.create(new InetSocketAddress(HTTP_PORT), 0);
+        HttpServer server = createHttpServer(httpPort, routingTable);
+
+        ExecutorService requestExecutor = threads.newRequestExecutor(options.getInt("http-threads", HTTP_THREADS)); // 가상 모드는 요청마다 스레드
+        streamExecutor = threads.newCompanionExecutor();
 
         server.createContext("/send-packet", new SendPacketHandler());
-        server.setExecutor(Executors.newFixedThreadPool(4)); // 스레드 풀 설정
+        server.createContext("/send-batch", new BatchSendHandler(false));
+        server.createContext("/send-stream", new BatchSendHandler(true));
+        server.createContext("/traffic", new TrafficHandler());
+        server.setExecutor(requestExecutor);
         server.start();
-        
-        System.out.println("HTTP server started on port " + HTTP_PORT);
+        threads.register(() -> server.stop(0));
+
+        log.info("HTTP server started on port " + httpPort);
+    }
+
+    // 게이트웨이에게 배운 경로 노화 (라우터와 같은 full-interval, route-timeout, route-gc 설정과 주기)
+    // 게이트웨이가 죽으면 그 경로가 도달 불가를 거쳐 삭제되므로 다른 라우터로 바뀌거나 브로드캐스트로 돌아감
+    private void startRouteAging() {
+        int fullDumpInterval = options.getInt("full-interval", FULL_DUMP_INTERVAL);
+        int routeTimeout = options.getInt("route-timeout", ROUTE_TIMEOUT_DUMPS * fullDumpInterval);
+        int routeGc = options.getInt("route-gc", ROUTE_GC_DUMPS * fullDumpInterval);
+        int period = Math.max(1, routeTimeout / 6);
+
+        scheduler.scheduleAtFixedRate(() -> {
+            if (routingTable.expire(Clock.millis(), routeTimeout * 1000L, routeGc * 1000L) > 0) {
+                routingTable.publish();
+            }
+        }, period, period, TimeUnit.SECONDS);
     }
 
     // 브로드캐스트 수신 및 응답
-    private void listenForRoutingBroadcasts() {
-        new Thread(() -> {
-            try (DatagramSocket recvSocket = new DatagramSocket(ROUTING_BROADCAST_PORT)) {
-                byte[] buffer = new byte[1024];
-                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
-
-                while (true) {
-                    recvSocket.receive(packet);
-                    String message = new String(packet.getData(), 0, packet.getLength());
-
-                    if (!RoutingPacket.isRoutingPacket(message)) {
-                        System.err.println("Invalid routing broadcast packet");
-                        return;
-                    }
+    private void listenForRoutingBroadcasts() throws IOException {
+        TransportSocket socket = threads.register(openSocket(ROUTING_BROADCAST_PORT));
+        threads.listen("routing", socket, ByteBuffer.allocate(MAX_DATAGRAM_SIZE), this::handleRoutingBroadcast);
+    }
+
+    private void handleRoutingBroadcast(ByteBuffer packet, InetSocketAddress source) {
+        byte[] data = packet.array();
+        int length = packet.remaining();
+
+        // 링크 상태 라우터끼리의 HELLO/LSA는 호스트와 무관
+        if (LinkStatePacket.isLinkState(data, 0, length)) {
+            return;
+        }
+
+        // 받은 광고와 같은 형식으로 응답 (바이너리/텍스트 자동 판별)
+        boolean binary = RoutingPacket.isBinary(data, 0, length);
+
+        if (!binary && !RoutingPacket.isRoutingPacket(new String(data, 0, length))) {
+            log.warn("Invalid routing broadcast packet");
+            return;
+        }
+
+        String sourceIP = source.getAddress().getHostAddress();
+        advertsReceived.increment(sourceIP);
+
+        // 광고한 라우터를 다음 홉으로 경로 학습 (게이트웨이), 전체 광고의 첫 페이지에만 응답
+        if (binary) {
+            int type = RoutingPacket.getType(packet);
+            boolean firstPage = RoutingPacket.getPage(packet) == 0;
+
+            if (type == RoutingPacket.TYPE_RESYNC_REQUEST) {
+                return;
+            }
+            routingTable.mergeRoutingTable(packet, sourceIP, 0);
+
+            if (type != RoutingPacket.TYPE_FULL_TABLE || !firstPage) {
+                return;
+            }
+        } else {
+            routingTable.mergeRoutingTable(new String(data, 0, length), sourceIP, 0);
+        }
+
+        try (TransportSocket sendSocket = openSocket(0)) {
+            InetAddress address = InetAddress.getByName(sourceIP);
+
+            if (binary) {
+                for (ByteBuffer page : RoutingPacket.encodePages(RoutingPacket.TYPE_FULL_TABLE, 0, 0, connectedRoutes, getMaxDatagramSize())) {
+                    sendSocket.send(new DatagramPacket(page.array(), page.limit(), address, ROUTING_BROADCAST_PORT));
+                    advertsSent.increment();
+                }
+            } else {
+                for (String page : RoutingPacket.createPages(connectedRoutes, true, getMaxDatagramSize())) {
+                    byte[] response = page.getBytes();
+                    sendSocket.send(new DatagramPacket(response, response.length, address, ROUTING_BROADCAST_PORT));
+                    advertsSent.increment();
+                }
+            }
+            // log.info("Sent routing response to " + sourceIP);
+        } catch (Exception e) {
+            log.error("Error sending routing response: " + e.getMessage());
+        }
+    }
+
+    // 자신에게 온 데이터 패킷 수신, 조각은 다시 합친 뒤 처리하고 같은 (출발지, 흐름, 순번)은 한 번만 전달
+    private void listenForPackets() throws IOException {
+        TransportSocket socket = threads.register(openSocket(PACKET_RECEIVE_PORT));
+        int[] selfAddresses = getIPAddresses().stream().mapToInt(IPv4::parse).toArray();
+
+        threads.listen("packets", socket, ByteBuffer.allocateDirect(PACKET_BUFFER_SIZE), (buffer, source) -> {
+            // 브로드캐스트로 온 다른 목적지의 패킷이나 예전 형식은 무시
+            if (!DataPacket.isDataPacket(buffer) || !isSelf(selfAddresses, DataPacket.getDestination(buffer))) {
+                return;
+            }
+
+            if (DataPacket.isFragment(buffer)) {
+                fragmentsReceived.increment();
+                buffer = reassembler.add(buffer);
+
+                if (buffer == null) {
+                    return; // 아직 다 모이지 않음
+                }
+            }
+
+            // 라우터의 링크 측정 에코 요청은 그대로 되돌려 보냄
+            if ((DataPacket.getFlags(buffer) & DataPacket.FLAG_ECHO_REQUEST) != 0) {
+                DataPacket.toEchoReply(buffer);
+                socket.send(buffer, new InetSocketAddress(IPv4.format(DataPacket.getDestination(buffer)), PACKET_RECEIVE_PORT));
+                return;
+            }
+            if ((DataPacket.getFlags(buffer) & DataPacket.FLAG_ECHO_REPLY) != 0) {
+                return;
+            }
+            if ((DataPacket.getFlags(buffer) & DataPacket.FLAG_TRAFFIC_REPLY) != 0) {
+                if (trafficGenerator != null) {
+                    trafficGenerator.onReply(buffer);
+                }
+                return;
+            }
+            received.increment();
+            boolean trace = log.samplePacket() && log.isEnabled(Logger.Level.INFO);
+            boolean traffic = (DataPacket.getFlags(buffer) & DataPacket.FLAG_TRAFFIC) != 0;
+            boolean duplicate = duplicateFilter.isDuplicate(DataPacket.getSource(buffer), DataPacket.getFlowId(buffer),
+                DataPacket.getSequence(buffer));
+
+            if (traffic) {
+                trafficSink.receive(buffer, duplicate);
+            }
+
+            if (duplicate) {
+                dropped.increment("duplicate");
+
+                if (trace) {
+                    log.info("Duplicate packet dropped: " + DataPacket.describe(buffer));
+                }
+                return;
+            }
+
+            delivered.increment();
 
-                    String sourceIP = packet.getAddress().getHostAddress();
-                    
-                    try (DatagramSocket sendSocket = new DatagramSocket()) {
-                        String response = RoutingPacket.create(routingTable, getIPAddresses());
-                        buffer = response.getBytes();
-                        InetAddress address = InetAddress.getByName(sourceIP);
-                        packet = new DatagramPacket(buffer, buffer.length, address, ROUTING_BROADCAST_PORT);
-
-                        sendSocket.send(packet);
-                        // System.out.println("Sent routing response to " + sourceIP);
-                    } catch (Exception e) {
-                        System.err.println("Error sending routing response: " + e.getMessage());
+            // 부하 측정 패킷의 페이로드는 출력하지 않고, 요청이 있으면 RTT 측정용 응답만 보냄
+            // 송신 큐가 가득 차면 응답은 버림 (보낸 쪽의 응답 수로 보임)
+            if (traffic) {
+                if (DataPacket.isReplyRequested(buffer)) {
+                    sender.offer(DataPacket.createTrafficReply(buffer));
+                }
+                return;
+            }
+
+            if (trace) {
+                log.info("Packet delivered to host: " + DataPacket.describe(buffer) + " "
+                    + new String(DataPacket.getPayload(buffer), StandardCharsets.UTF_8));
+            }
+        });
+    }
+
+    private static boolean isSelf(int[] selfAddresses, int address) {
+        for (int self : selfAddresses) {
+            if (self == address) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // traffic=<목적지>[,<목적지>...] 옵션의 흐름 시작
+    // traffic-rate(초당 패킷 수), traffic-size(페이로드 바이트), traffic-count(0이면 계속), traffic-start(ms 뒤 시작), traffic-reply(0이면 RTT 응답 없음)
+    private void startConfiguredTraffic() {
+        if (!options.has("traffic")) {
+            return;
+        }
+
+        for (String destination : options.get("traffic", "").split(",")) {
+            try {
+                TrafficGenerator.Flow flow = trafficGenerator.start(IPv4.parse(destination.strip()),
+                    options.getDouble("traffic-rate", TRAFFIC_RATE), options.getInt("traffic-size", TRAFFIC_SIZE),
+                    options.getInt("traffic-count", 0), options.getInt("traffic-reply", 1) != 0, options.getInt("traffic-start", 0));
+
+                log.info("Traffic flow " + flow.getId() + " to " + destination.strip() + " scheduled");
+            } catch (IllegalArgumentException e) {
+                log.error("Invalid traffic option: " + e.getMessage());
+            }
+        }
+    }
+
+    // 부하 생성/수신 결과 (흐름마다 한 줄, 없으면 빈 목록)
+    public List<String> trafficSummary() {
+        List<String> lines = new ArrayList<>();
+
+        if (trafficGenerator != null) {
+            lines.addAll(trafficGenerator.summary());
+        }
+        lines.addAll(trafficSink.summary());
+        return lines;
+    }
+
+    // 부하 생성 핸들러
+    // POST: 본문 "destination=...&rate=...&size=...&count=...&reply=0|1&delay=ms" 로 흐름 시작
+    // GET: 보낸 흐름과 받은 흐름의 결과 JSON, DELETE: 모든 흐름을 멈추고 결과를 지움
+    private class TrafficHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            switch (exchange.getRequestMethod().toUpperCase()) {
+                case "POST":
+                    start(exchange);
+                    break;
+                case "GET":
+                    sendResponse(exchange, 200, "{\"flows\":" + trafficGenerator.toJson() + ",\n\"received\":" + trafficSink.toJson() + "}\n");
+                    break;
+                case "DELETE":
+                    int cleared = trafficGenerator.clear();
+                    trafficSink.clear();
+                    sendResponse(exchange, 200, "{\"stopped\":" + cleared + "}\n");
+                    break;
+                default:
+                    sendResponse(exchange, 405, "Method Not Allowed");
+            }
+        }
+
+        private void start(HttpExchange exchange) throws IOException {
+            Map<String, String> fields = new HashMap<>();
+
+            try {
+                for (String pair : new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8).strip().split("&")) {
+                    int equals = pair.indexOf('=');
+
+                    if (equals > 0) {
+                        fields.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                            URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
                     }
                 }
-            } catch (Exception e) {
-                System.err.println("Error listening for broadcasts: " + e.getMessage());
+
+                if (!fields.containsKey("destination")) {
+                    throw new IllegalArgumentException("Missing destination");
+                }
+
+                TrafficGenerator.Flow flow = trafficGenerator.start(IPv4.parse(fields.get("destination")),
+                    Double.parseDouble(fields.getOrDefault("rate", String.valueOf(TRAFFIC_RATE))),
+                    Integer.parseInt(fields.getOrDefault("size", String.valueOf(TRAFFIC_SIZE))),
+                    Long.parseLong(fields.getOrDefault("count", "0")),
+                    !fields.getOrDefault("reply", "1").equals("0"),
+                    Long.parseLong(fields.getOrDefault("delay", "0")));
+
+                log.info("Traffic flow " + flow.getId() + " to " + fields.get("destination") + " started");
+                sendResponse(exchange, 200, "{\"flow\":" + flow.getId() + "}\n");
+            } catch (IllegalArgumentException e) { // 잘못된 주소, 숫자, URL 인코딩
+                sendResponse(exchange, 400, "Invalid traffic request: " + e.getMessage() + "\n");
             }
-        }).start();
+        }
     }
 
     // 패킷 전송 핸들러
@@ -91,11 +421,14 @@ public class Host extends NetworkDevice {
 
             byte[] requestBody = exchange.getRequestBody().readAllBytes();
             String requestData = new String(requestBody);
+            boolean trace = log.samplePacket() && log.isEnabled(Logger.Level.INFO); // 패킷마다 생기는 줄은 표본만
 
-            System.out.println("Received packet data: " + requestData);
+            if (trace) {
+                log.info("Received packet data: " + requestData);
+            }
 
             // 패킷 데이터 전송
-            boolean success = sendPacket(requestData);
+            boolean success = sendPacket(requestData, trace);
 
             if (success) {
                 sendResponse(exchange, 200, "Packet sent successfully\n");
@@ -105,26 +438,242 @@ public class Host extends NetworkDevice {
         }
     }
 
-    // 브로드캐스트로 패킷 전송
-    private boolean sendPacket(String data) {
-        try (DatagramSocket socket = new DatagramSocket()) {
-            socket.setBroadcast(true);
+    // 여러 패킷 전송 핸들러
+    // 본문: 한 줄에 패킷 하나 (JSON 객체 또는 "destination=...&payload=..."), Content-Type이
+    // application/octet-stream이면 길이(2바이트) + 바이너리 데이터 패킷의 반복
+    // /send-batch는 모두 보낸 뒤 요약을, /send-stream은 본문을 읽는 동안 패킷별 결과를 한 줄씩 바로 응답
+    private class BatchSendHandler implements HttpHandler {
+        private final boolean streaming;
+
+        private BatchSendHandler(boolean streaming) {
+            this.streaming = streaming;
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!exchange.getRequestMethod().equalsIgnoreCase("POST")) {
+                sendResponse(exchange, 405, "Method Not Allowed");
+                return;
+            }
+
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            boolean binary = contentType != null && contentType.startsWith("application/octet-stream");
+            BatchResults results = new BatchResults();
+            BlockingQueue<String> resultLines = null;
+            Future<?> resultWriter = null;
+
+            if (streaming) {
+                // 결과는 별도 작업이 쓰므로 송신 스레드나 본문 읽기가 느린 클라이언트를 기다리지 않음
+                exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+                exchange.sendResponseHeaders(200, 0);
+
+                BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+                resultLines = lines;
+                resultWriter = streamExecutor.submit(() -> {
+                    writeResults(exchange, lines);
+                    return null;
+                });
+            }
+
+            try (InputStream body = exchange.getRequestBody()) {
+                if (binary) {
+                    readBinary(body, results, resultLines);
+                } else {
+                    readLines(body, results, resultLines);
+                }
+                results.awaitCompletion();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (!streaming) {
+                sendResponse(exchange, 200, results.summary(true) + "\n");
+                return;
+            }
 
-            for (String ip : getIPAddresses()) {
-                InetAddress broadcastAddress = getBroadcastAddress(ip);
+            resultLines.add(results.summary(false));
+            resultLines.add(END_OF_RESULTS);
+
+            try {
+                resultWriter.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                log.error("Error streaming send results: " + e.getCause().getMessage());
+            } finally {
+                exchange.close();
+            }
+        }
 
-                if (broadcastAddress != null) {
-                    byte[] buffer = data.getBytes();
-                    DatagramPacket packet = new DatagramPacket(buffer, buffer.length, broadcastAddress, PACKET_RECEIVE_PORT);
+        private void readLines(InputStream body, BatchResults results, BlockingQueue<String> resultLines) throws IOException, InterruptedException {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            String line;
 
-                    socket.send(packet);
-                    
-                    System.out.println("Packet broadcasted to " + broadcastAddress.getHostAddress());
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+
+                if (line.isEmpty()) {
+                    continue;
                 }
+
+                int sequence = nextSequence.getAndIncrement();
+                ByteBuffer packet = line.startsWith("{")
+                    ? DataPacket.fromJson(line, 0, 0, sequence)
+                    : DataPacket.fromLegacy(line, 0, 0, sequence);
+
+                submit(packet, results, resultLines);
+            }
+        }
+
+        private void readBinary(InputStream body, BatchResults results, BlockingQueue<String> resultLines) throws IOException, InterruptedException {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(body));
+
+            while (true) {
+                int length;
+
+                try {
+                    length = input.readUnsignedShort();
+                } catch (EOFException e) {
+                    return;
+                }
+
+                byte[] data = new byte[length];
+                input.readFully(data);
+
+                ByteBuffer packet = ByteBuffer.wrap(data);
+                submit(DataPacket.isDataPacket(packet) ? packet : null, results, resultLines);
+            }
+        }
+
+        // 큐에 넣고 결과가 나오면 집계 (스트림이면 결과 줄 추가)
+        private void submit(ByteBuffer packet, BatchResults results, BlockingQueue<String> resultLines) throws InterruptedException {
+            int index = results.accepted.getAndIncrement();
+
+            if (packet == null) {
+                results.record(index, -1, "invalid packet", resultLines);
+                return;
+            }
+
+            results.pending.incrementAndGet();
+            sender.submit(packet).whenComplete((sequence, error) ->
+                results.complete(index, sequence == null ? -1 : sequence, error == null ? null : error.getMessage(), resultLines));
+        }
+
+        // 결과 줄을 모아서 쓰고, 더 쌓인 줄이 없을 때만 flush
+        private void writeResults(HttpExchange exchange, BlockingQueue<String> lines) throws IOException, InterruptedException {
+            OutputStream output = exchange.getResponseBody();
+
+            while (true) {
+                String line = lines.take();
+
+                if (line == END_OF_RESULTS) {
+                    output.flush();
+                    return;
+                }
+
+                output.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+
+                if (lines.isEmpty()) {
+                    output.flush();
+                }
+            }
+        }
+    }
+
+    // 한 요청의 패킷별 결과 집계
+    private static class BatchResults {
+        private static final int MAX_REPORTED_ERRORS = 100; // 요약에 담을 실패 수
+
+        private final AtomicInteger accepted = new AtomicInteger();
+        private final AtomicInteger sent = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final List<String> errors = new ArrayList<>();
+
+        // 송신 결과 기록 후 대기 수 감소
+        private void complete(int index, int sequence, String error, BlockingQueue<String> resultLines) {
+            record(index, sequence, error, resultLines);
+
+            synchronized (this) {
+                pending.decrementAndGet();
+                notifyAll();
+            }
+        }
+
+        private void record(int index, int sequence, String error, BlockingQueue<String> resultLines) {
+            if (error == null) {
+                sent.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+
+                synchronized (errors) {
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add("{\"index\":" + index + ",\"error\":" + jsonString(error) + "}");
+                    }
+                }
+            }
+
+            if (resultLines != null) {
+                resultLines.add(error == null
+                    ? "{\"index\":" + index + ",\"seq\":" + sequence + ",\"status\":\"sent\"}"
+                    : "{\"index\":" + index + ",\"status\":\"failed\",\"error\":" + jsonString(error) + "}");
+            }
+        }
+
+        private synchronized void awaitCompletion() throws InterruptedException {
+            while (pending.get() > 0) {
+                wait();
+            }
+        }
+
+        private String summary(boolean withErrors) {
+            String summary = "{\"accepted\":" + accepted.get() + ",\"sent\":" + sent.get() + ",\"failed\":" + failed.get();
+
+            if (withErrors) {
+                synchronized (errors) {
+                    summary += ",\"errors\":[" + String.join(",", errors) + "]";
+                }
+            }
+            return summary + "}";
+        }
+
+        private static String jsonString(String value) {
+            StringBuilder json = new StringBuilder("\"");
+
+            for (char c : String.valueOf(value).toCharArray()) {
+                if (c == '"' || c == '\\') {
+                    json.append('\\').append(c);
+                } else if (c < 0x20) {
+                    json.append(String.format("\\u%04x", (int) c));
+                } else {
+                    json.append(c);
+                }
+            }
+            return json.append('"').toString();
+        }
+    }
+
+    // 데이터 패킷 헤더를 붙여 게이트웨이로 전송 (요청 본문은 "destination=...&payload=..." 형식)
+    private boolean sendPacket(String data, boolean trace) {
+        ByteBuffer packet = DataPacket.fromLegacy(data, 0, 0, nextSequence.getAndIncrement());
+
+        if (packet == null) {
+            log.warn("Invalid packet data: " + data);
+            return false;
+        }
+
+        try {
+            sender.submit(packet).get();
+
+            if (trace) {
+                log.info("Packet sent: " + DataPacket.describe(packet));
             }
             return true;
-        } catch (Exception e) {
-            System.err.println("Error sending packet: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            log.error("Error sending packet: " + e.getCause().getMessage());
             return false;
         }
     }
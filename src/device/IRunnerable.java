@@ -2,4 +2,12 @@ package device;
 
 public interface IRunnerable {
     void run();
+
+    // 시작한 스레드와 소켓을 정리하고 끝날 때까지 대기
+    default void shutdown() {
+    }
+
+    // shutdown이 끝날 때까지 대기
+    default void awaitShutdown() throws InterruptedException {
+    }
 }
@@ -0,0 +1,205 @@
+package device;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import clock.Clock;
+import routing.IPv4;
+import transport.TransportSocket;
+
+// 이웃 라우터까지의 링크 비용 측정
+// 라우팅 포트로 광고를 보낸 이웃마다 주기적으로 보낸 시각이 담긴 에코 요청을 보내고,
+// 응답으로 RTT와 지터의 지수 가중 이동 평균(TCP RTO 계산과 같은 방식)을 갱신
+// 비용은 RTT + 지터를 COST_UNIT_NS 단위로 올림한 값이며, 작은 변동으로 경로가 바뀌지 않도록
+// 현재 비용과의 차이가 충분히 크고, 마지막으로 바꾼 뒤 일정 시간이 지났을 때만 바꿈
+class LinkProber {
+    private static final int PROBE_INTERVAL = 1000; // ms
+    private static final long COST_UNIT_NS = 1_000_000; // 비용 1 = 1ms
+    private static final int MIN_COST = 1;
+    private static final int HYSTERESIS_MIN = 2; // 비용이 최소 이만큼 달라져야 바꿈
+    private static final int HYSTERESIS_PERCENT = 25; // 또는 현재 비용의 이 비율 이상
+    private static final int HOLD_PROBES = 10; // 비용을 바꾼 뒤 이만큼의 측정 간격 동안은 다시 바꾸지 않음
+    private static final long MAX_RTT_NS = 10_000_000_000L; // 이보다 늦은 응답은 버림
+
+    // 이웃 하나의 측정값
+    private static class Link {
+        private final int neighbor; // 이웃 인터페이스 IP
+        private final int source; // 같은 서브넷에 있는 자신의 인터페이스 IP
+        private double srtt; // 평활 RTT(ns), 첫 응답 전에는 0
+        private double rttvar; // RTT 변동(ns)
+        private volatile int cost; // 첫 응답 전에는 0
+        private volatile long lastHeard;
+        private long changedAt; // 마지막으로 비용을 바꾼 시각(ms)
+        private int sent;
+        private int received;
+
+        private Link(int neighbor, int source, long lastHeard) {
+            this.neighbor = neighbor;
+            this.source = source;
+            this.lastHeard = lastHeard;
+        }
+
+        private synchronized double rttSeconds() {
+            return srtt / 1e9;
+        }
+
+        private synchronized double lossRatio() {
+            return sent == 0 ? 0 : Math.max(0, sent - received) / (double) sent;
+        }
+    }
+
+    // 비용이 바뀐 이웃 알림
+    interface CostListener {
+        void costChanged(String neighborIP, int cost);
+    }
+
+    private final Router router;
+    private final int probeInterval;
+    private final long expireMs; // 이 시간 동안 광고가 없으면 이웃에서 제외
+    private final CostListener listener;
+    private final Map<Integer, Link> links; // 이웃 IP -> 측정값
+    private final AddressCache addressCache; // 스케줄러 작업에서만 사용
+    private TransportSocket socket;
+
+    LinkProber(Router router, DeviceOptions options, long expireMs, CostListener listener) {
+        this.router = router;
+        this.probeInterval = options.getInt("probe-interval", PROBE_INTERVAL);
+        this.expireMs = expireMs;
+        this.listener = listener;
+        this.links = new ConcurrentHashMap<>();
+        this.addressCache = new AddressCache(NetworkDevice.PACKET_RECEIVE_PORT);
+
+        router.metrics.gauges("link_cost", "Measured link cost to each neighbor", "neighbor", gauge ->
+            links.values().forEach(link -> gauge.accept(IPv4.format(link.neighbor), link.cost)));
+        router.metrics.gauges("link_rtt_seconds", "Smoothed echo round-trip time to each neighbor", "neighbor", gauge ->
+            links.values().forEach(link -> gauge.accept(IPv4.format(link.neighbor), link.rttSeconds())));
+        router.metrics.gauges("link_probe_loss_ratio", "Share of echo probes without a reply", "neighbor", gauge ->
+            links.values().forEach(link -> gauge.accept(IPv4.format(link.neighbor), link.lossRatio())));
+    }
+
+    void start(ScheduledExecutorService scheduler) throws IOException {
+        socket = router.threads.register(router.openSocket(0));
+        scheduler.scheduleAtFixedRate(this::probe, probeInterval, probeInterval, TimeUnit.MILLISECONDS);
+    }
+
+    // 라우팅 포트로 패킷을 받을 때마다 호출 (처음 보는 이웃이면 측정 시작)
+    void heard(String neighborIP) {
+        int neighbor = IPv4.parse(neighborIP);
+        long now = Clock.millis();
+        Link link = links.get(neighbor);
+
+        if (link != null) {
+            link.lastHeard = now;
+            return;
+        }
+
+        String sourceIP = router.getInterfaceFor(neighborIP);
+
+        if (sourceIP != null) {
+            links.putIfAbsent(neighbor, new Link(neighbor, IPv4.parse(sourceIP), now));
+        }
+    }
+
+    // 이웃까지의 링크 비용, 아직 측정값이 없으면 MIN_COST
+    int cost(String neighborIP) {
+        return cost(IPv4.parse(neighborIP));
+    }
+
+    int cost(int neighbor) {
+        Link link = links.get(neighbor);
+        return link == null || link.cost == 0 ? MIN_COST : link.cost;
+    }
+
+    // 에코 응답 처리 (ForwardingEngine 스레드)
+    void onReply(ByteBuffer packet) {
+        Link link = links.get(DataPacket.getSource(packet));
+        long rtt = Clock.nanos() - DataPacket.getTimestamp(packet);
+
+        if (link == null || rtt < 0 || rtt > MAX_RTT_NS) {
+            return;
+        }
+
+        int previous;
+        int cost;
+
+        synchronized (link) {
+            link.received++;
+
+            // RFC 6298과 같은 가중치 (RTT 1/8, 변동 1/4)
+            if (link.srtt == 0) {
+                link.srtt = rtt;
+                link.rttvar = rtt / 2.0;
+            } else {
+                link.rttvar += (Math.abs(link.srtt - rtt) - link.rttvar) / 4;
+                link.srtt += (rtt - link.srtt) / 8;
+            }
+
+            cost = (int) Math.max(MIN_COST, Math.ceil((link.srtt + link.rttvar) / COST_UNIT_NS));
+            previous = link.cost == 0 ? MIN_COST : link.cost;
+
+            long now = Clock.millis();
+
+            // 변동(지터)보다 작은 차이도 잡음으로 봄
+            int threshold = Math.max(Math.max(HYSTERESIS_MIN, previous * HYSTERESIS_PERCENT / 100),
+                (int) Math.ceil(link.rttvar / COST_UNIT_NS));
+
+            if (link.cost != 0 && (Math.abs(cost - previous) < threshold
+                || now - link.changedAt < (long) probeInterval * HOLD_PROBES)) {
+                return;
+            }
+            link.cost = cost;
+            link.changedAt = now;
+        }
+
+        if (cost != previous) {
+            router.log.info("Link cost changed: " + IPv4.format(link.neighbor) + " " + previous + " -> " + cost);
+            listener.costChanged(IPv4.format(link.neighbor), cost);
+        }
+    }
+
+    // 이웃마다 에코 요청 전송, 오래 소식이 없는 이웃은 제외 (스케줄러)
+    private void probe() {
+        long now = Clock.millis();
+
+        for (Iterator<Link> it = links.values().iterator(); it.hasNext(); ) {
+            Link link = it.next();
+
+            if (now - link.lastHeard > expireMs) {
+                it.remove();
+                continue;
+            }
+
+            int sequence;
+
+            synchronized (link) {
+                sequence = ++link.sent;
+            }
+
+            try {
+                socket.send(DataPacket.createEcho(link.source, link.neighbor, sequence, Clock.nanos()),
+                    addressCache.get(link.neighbor));
+            } catch (IOException e) {
+                if (!router.threads.isClosed()) {
+                    router.log.error("Error sending probe to " + IPv4.format(link.neighbor) + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    String statistics() {
+        StringBuilder builder = new StringBuilder();
+
+        for (Link link : links.values()) {
+            synchronized (link) {
+                builder.append(String.format("%-16s cost %-6d rtt %.2fms jitter %.2fms probes %d/%d%n",
+                    IPv4.format(link.neighbor), link.cost, link.srtt / 1e6, link.rttvar / 1e6, link.received, link.sent));
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,267 @@
+package device;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
+
+import clock.Clock;
+import routing.IPv4;
+import routing.LinkStateAdvert;
+import routing.LinkStateDatabase;
+import routing.LinkStatePacket;
+import routing.RoutingTable;
+import transport.TransportSocket;
+
+// 링크 상태 모드 제어 평면 (mode=ls)
+// HELLO로 인접 라우터를 찾고, 인접 관계가 바뀌면 자신의 LSA를 새 순번으로 만들어 모든 인터페이스로 플러딩
+// 새 인접 라우터에게는 가진 LSA를 모두 보내 데이터베이스를 맞춤
+// 받은 LSA는 더 새로운 것만 데이터베이스에 넣고 다시 플러딩
+class LinkStateProtocol {
+    private static final int HELLO_INTERVAL = 1000; // ms
+    private static final int DEAD_MULTIPLIER = 4; // HELLO 간격의 몇 배 동안 못 들으면 인접 관계 해제
+    private static final int MAX_AGE_MULTIPLIER = 3; // 갱신 간격의 몇 배 동안 갱신이 없으면 LSA 삭제
+
+    // 인접 라우터
+    private static class Neighbor {
+        private final int address; // HELLO를 보낸 인터페이스 IP (다음 홉)
+        private long lastSeen;
+
+        private Neighbor(int address, long lastSeen) {
+            this.address = address;
+            this.lastSeen = lastSeen;
+        }
+    }
+
+    private final Router router;
+    private final int routerId;
+    private final IntUnaryOperator linkCost; // 인접 라우터 주소 -> 링크 비용
+    private final int helloInterval;
+    private final int refreshInterval; // 자신의 LSA 재광고 간격(초)
+    private final LinkStateDatabase database;
+    private final Map<Integer, Neighbor> neighbors; // 라우터 ID -> 인접 라우터
+    private final Runnable onRoutesChanged;
+    private TransportSocket socket;
+    private int sequence;
+
+    LinkStateProtocol(Router router, RoutingTable routingTable, IntUnaryOperator linkCost, int refreshInterval,
+            DeviceOptions options, Runnable onRoutesChanged) {
+        this.router = router;
+        this.routerId = routerId(router.getIPAddresses());
+        this.linkCost = linkCost;
+        this.helloInterval = options.getInt("hello-interval", HELLO_INTERVAL);
+        this.refreshInterval = refreshInterval;
+        this.database = new LinkStateDatabase(routerId, routingTable, router.log);
+        this.neighbors = new HashMap<>();
+        this.onRoutesChanged = onRoutesChanged;
+        this.sequence = (int) (Clock.millis() / 1000); // 재시작해도 이전 순번보다 크도록
+    }
+
+    // 인터페이스 IP 중 가장 작은 값
+    private static int routerId(List<String> ipAddresses) {
+        int id = 0;
+
+        for (String ip : ipAddresses) {
+            int address = IPv4.parse(ip);
+
+            if (id == 0 || Integer.compareUnsigned(address, id) < 0) {
+                id = address;
+            }
+        }
+        return id;
+    }
+
+    void start(ScheduledExecutorService scheduler) throws IOException {
+        socket = router.threads.register(router.openSocket(0));
+        socket.setBroadcast(true);
+
+        synchronized (this) {
+            originate();
+        }
+
+        scheduler.scheduleAtFixedRate(this::sendHello, 0, helloInterval, TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(this::refresh, refreshInterval, refreshInterval, TimeUnit.SECONDS);
+    }
+
+    // 받은 링크 상태 패킷 처리 (라우터 수신 스레드)
+    synchronized void handle(ByteBuffer packet, String sourceIP) {
+        switch (LinkStatePacket.getType(packet)) {
+            case LinkStatePacket.TYPE_HELLO:
+                handleHello(LinkStatePacket.decodeHello(packet), IPv4.parse(sourceIP));
+                break;
+            case LinkStatePacket.TYPE_ADVERT:
+                LinkStateAdvert advert = LinkStatePacket.decodeAdvert(packet, Clock.millis());
+
+                if (advert != null) {
+                    handleAdvert(advert, packet);
+                }
+                break;
+            default:
+                router.log.warn("Unknown link state packet type from " + sourceIP);
+                break;
+        }
+    }
+
+    private void handleHello(int neighborId, int address) {
+        if (neighborId == routerId) {
+            return;
+        }
+
+        long now = Clock.millis();
+        Neighbor neighbor = neighbors.get(neighborId);
+
+        // 서브넷을 여러 개 공유하면 HELLO가 인터페이스마다 오므로 처음 주소를 계속 다음 홉으로 씀
+        if (neighbor != null) {
+            neighbor.lastSeen = now;
+            return;
+        }
+
+        router.log.info("Link state neighbor up: " + IPv4.format(neighborId) + " via " + IPv4.format(address));
+        neighbors.put(neighborId, new Neighbor(address, now));
+        database.setNeighborAddress(neighborId, address);
+        originate();
+
+        // 새 인접 라우터에게 데이터베이스 전체 전송
+        for (LinkStateAdvert advert : database.adverts()) {
+            send(LinkStatePacket.encodeAdvert(advert), address);
+        }
+        routesChanged();
+    }
+
+    private void handleAdvert(LinkStateAdvert advert, ByteBuffer packet) {
+        if (advert.getOriginator() == routerId) {
+            // 재시작 전의 자신의 LSA가 남아 있으면 그보다 큰 순번으로 다시 광고
+            if (advert.getSequence() - sequence > 0) {
+                sequence = advert.getSequence();
+                originate();
+            }
+            return;
+        }
+
+        if (database.install(advert)) {
+            flood(packet);
+            routesChanged();
+        }
+    }
+
+    // 현재 인접 관계와 연결된 서브넷으로 자신의 LSA를 만들어 플러딩
+    private void originate() {
+        int[] neighborIds = new int[neighbors.size()];
+        int[] linkCosts = new int[neighbors.size()];
+        int i = 0;
+
+        for (Map.Entry<Integer, Neighbor> entry : neighbors.entrySet()) {
+            neighborIds[i] = entry.getKey();
+            linkCosts[i] = Math.max(1, linkCost.applyAsInt(entry.getValue().address));
+            i++;
+        }
+
+        List<String> ipAddresses = router.getIPAddresses();
+        int[] prefixAddresses = new int[ipAddresses.size()];
+        byte[] prefixLengths = new byte[ipAddresses.size()];
+        int[] prefixCosts = new int[ipAddresses.size()];
+
+        for (i = 0; i < ipAddresses.size(); i++) {
+            prefixAddresses[i] = IPv4.parse(ipAddresses.get(i)) & IPv4.mask(NetworkDevice.SUBNET_PREFIX_LENGTH);
+            prefixLengths[i] = (byte) NetworkDevice.SUBNET_PREFIX_LENGTH;
+        }
+
+        LinkStateAdvert advert = new LinkStateAdvert(routerId, ++sequence, neighborIds, linkCosts,
+            prefixAddresses, prefixLengths, prefixCosts, Clock.millis());
+
+        database.install(advert);
+        flood(LinkStatePacket.encodeAdvert(advert));
+    }
+
+    // 측정한 링크 비용이 바뀌면 새 비용으로 LSA를 다시 만듦
+    synchronized void linkCostsChanged() {
+        if (socket != null) {
+            originate();
+            routesChanged();
+        }
+    }
+
+    // 인접 관계 확인과 HELLO 전송 (스케줄러)
+    private void sendHello() {
+        synchronized (this) {
+            long now = Clock.millis();
+            boolean lost = false;
+
+            for (Iterator<Map.Entry<Integer, Neighbor>> it = neighbors.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<Integer, Neighbor> entry = it.next();
+
+                if (now - entry.getValue().lastSeen > (long) helloInterval * DEAD_MULTIPLIER) {
+                    router.log.info("Link state neighbor down: " + IPv4.format(entry.getKey()));
+                    it.remove();
+                    database.setNeighborAddress(entry.getKey(), 0);
+                    lost = true;
+                }
+            }
+
+            if (lost) {
+                originate();
+                routesChanged();
+            }
+        }
+
+        flood(LinkStatePacket.encodeHello(routerId));
+    }
+
+    // 자신의 LSA 재광고와 오래된 LSA 정리 (스케줄러)
+    private synchronized void refresh() {
+        originate();
+        database.purge(Clock.millis(), refreshInterval * 1000L * MAX_AGE_MULTIPLIER);
+        routesChanged();
+    }
+
+    private void routesChanged() {
+        onRoutesChanged.run();
+    }
+
+    // 모든 인터페이스의 브로드캐스트 주소로 전송 (같은 LSA는 받는 쪽에서 순번으로 걸러짐)
+    private void flood(ByteBuffer packet) {
+        List<InetAddress> targets = new ArrayList<>();
+
+        for (String ip : router.getIPAddresses()) {
+            InetAddress broadcastAddress = router.getBroadcastAddress(ip);
+
+            if (broadcastAddress != null) {
+                targets.add(broadcastAddress);
+            }
+        }
+
+        for (InetAddress target : targets) {
+            send(packet, target);
+        }
+    }
+
+    private void send(ByteBuffer packet, int address) {
+        try {
+            send(packet, InetAddress.getByAddress(ByteBuffer.allocate(4).putInt(address).array()));
+        } catch (IOException e) {
+            router.log.error("Error sending link state packet: " + e.getMessage());
+        }
+    }
+
+    private void send(ByteBuffer packet, InetAddress address) {
+        try {
+            socket.send(packet.duplicate(), new InetSocketAddress(address, NetworkDevice.ROUTING_BROADCAST_PORT));
+        } catch (IOException e) {
+            if (!router.threads.isClosed()) {
+                router.log.error("Error sending link state packet: " + e.getMessage());
+            }
+        }
+    }
+
+    String statistics() {
+        return database.statistics();
+    }
+}
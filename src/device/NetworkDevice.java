@@ -1,55 +1,215 @@
 package device;
 
-import java.net.Inet4Address;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.InetAddress;
-import java.net.NetworkInterface;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Enumeration;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import logging.Logger;
+import metrics.Metrics;
+import routing.IPv4;
+import routing.Multipath;
+import routing.RoutingInfo;
+import routing.RoutingTable;
+import transport.Transport;
+import transport.TransportSocket;
+import transport.UdpTransport;
 
 public abstract class NetworkDevice implements IRunnerable {
     protected static final int HTTP_PORT = 8080; // HTTP 서버 포트
     protected static final int ROUTING_BROADCAST_PORT = 5000; // 라우터 브로드캐스트 수신 포트
     protected static final int PACKET_RECEIVE_PORT = 6000; // 라우터가 듣는 포트
+    protected static final int SUBNET_PREFIX_LENGTH = 24; // 인터페이스 서브넷 크기
+    protected static final int MAX_DATAGRAM_SIZE = 65507; // UDP 데이터그램 최대 크기 (수신 버퍼)
+    protected static final int DEFAULT_MTU = 1500;
+    protected static final int IP_UDP_HEADER_SIZE = 28;
+    protected static final int ECMP_PATHS = 4; // 목적지마다 둘 같은 비용 다음 홉 최대 수
+    protected static final int FULL_DUMP_INTERVAL = 30; // 라우터의 전체 테이블 광고 간격(초)
+    protected static final int ROUTE_TIMEOUT_DUMPS = 3; // 전체 광고 몇 번 동안 소식이 없으면 경로를 도달 불가로 바꾸는지
+    protected static final int ROUTE_GC_DUMPS = 2; // 도달 불가로 광고한 뒤 전체 광고 몇 번 뒤에 삭제하는지
+    private static final int LOG_FILE_MB = 10; // 로그 파일 하나의 최대 크기
+    private static final int LOG_FILES = 5; // 회전해서 보관하는 로그 파일 수
 
-    private List<String> ipAddresses; // 실제 IP 주소 목록
+    private final Transport transport; // UDP 또는 JVM 내부 가상 네트워크
+    protected final DeviceOptions options; // 명령행/토폴로지 파일 설정
+    protected final Logger log; // 비동기 로그 (log-level, log-sample, log-dir 옵션)
+    protected final DeviceThreads threads; // 리스너/스케줄러 실행 방식과 종료 관리 (threads 옵션)
+    protected final Metrics metrics; // /metrics로 공개하는 카운터와 히스토그램
+    protected final RoutingTable routingTable; // 설정에 따른 라우팅 테이블 (table, ecmp, ecmp-slack 옵션)
 
     public NetworkDevice() {
-        this.ipAddresses = new ArrayList<>();
-        fetchIPAddresses();
+        this(new UdpTransport(), new DeviceOptions());
+    }
+
+    public NetworkDevice(Transport transport, DeviceOptions options) {
+        this(transport, options, null);
+    }
+
+    // events가 있으면 스레드 없이 그 사건 루프에서만 동작 (이산 사건 시뮬레이션, 전송 계층도 같은 루프로 전달해야 함)
+    public NetworkDevice(Transport transport, DeviceOptions options, ScheduledExecutorService events) {
+        this.transport = transport;
+        this.options = options;
+
+        String name = options.get("name", getClass().getSimpleName().toLowerCase());
+        this.log = createLogger(name, options);
+        this.threads = new DeviceThreads(name, options, log, events);
+        this.metrics = new Metrics();
+        this.routingTable = createRoutingTable(options, log, metrics);
     }
 
-    // 네트워크 인터페이스에서 IP 주소 가져오기
-    private void fetchIPAddresses() {
+    public String getName() {
+        return log.getName();
+    }
+
+    public final RoutingTable getRoutingTable() {
+        return routingTable;
+    }
+
+    @Override
+    public void shutdown() {
+        threads.close();
+    }
+
+    @Override
+    public void awaitShutdown() throws InterruptedException {
+        threads.awaitTermination();
+    }
+
+    // log-dir가 있으면 <log-dir>/<이름>.log에 회전하며 기록, 없으면 콘솔
+    // log-sample=N이면 패킷 단위 기록은 평균 N개 중 하나만 남김
+    private static Logger createLogger(String name, DeviceOptions options) {
+        Logger.Level level = Logger.Level.parse(options.get("log-level", "info"));
+        int sampleRate = options.getInt("log-sample", 1);
+
+        if (!options.has("log-dir")) {
+            return new Logger(name, level, sampleRate);
+        }
+
         try {
-            Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
-            while (interfaces.hasMoreElements()) {
-                NetworkInterface networkInterface = interfaces.nextElement();
-
-                // 활성화된 네트워크 인터페이스만 처리
-                if (!networkInterface.isUp() || networkInterface.isLoopback()) {
-                    continue;
-                }
-
-                // 네트워크 인터페이스에서 IP 주소 추출
-                Enumeration<InetAddress> addresses = networkInterface.getInetAddresses();
-                while (addresses.hasMoreElements()) {
-                    InetAddress address = addresses.nextElement();
-
-                    // IPv4 주소만 처리
-                    if (address instanceof Inet4Address) {
-                        ipAddresses.add(address.getHostAddress());
-                    }
-                }
+            return new Logger(name, level, sampleRate, Path.of(options.get("log-dir", "."), name + ".log"),
+                options.getInt("log-file-mb", LOG_FILE_MB) * 1024L * 1024L, options.getInt("log-files", LOG_FILES));
+        } catch (IOException e) {
+            Logger console = new Logger(name, level, sampleRate);
+            console.error("Error opening log file in " + options.get("log-dir", ".") + ": " + e.getMessage());
+            return console;
+        }
+    }
+
+    // 설정에 따른 라우팅 테이블 구현 생성 (table=map|int, ecmp=최대 경로 수, ecmp-slack=같은 비용으로 볼 거리 차이)
+    // 생성자에서 부르므로 하위 클래스가 덮어쓸 수 없게 static
+    private static RoutingTable createRoutingTable(DeviceOptions options, Logger log, Metrics metrics) {
+        RoutingTable table = RoutingTable.create(options.get("table", "map"), options.getInt("ecmp", ECMP_PATHS),
+            options.getInt("ecmp-slack", 0), log);
+
+        metrics.gauge("routes", "Routes in the routing table, including unreachable routes still advertised", table::size);
+        metrics.gauge("fib_version", "Published FIB snapshot version", table::getVersion);
+        return table;
+    }
+
+    // 관측용 경로를 붙인 HTTP 서버 생성 (시작과 실행기 설정은 호출하는 쪽에서)
+    // /metrics: Prometheus 텍스트 형식, /routes: 라우팅 테이블 JSON 스냅샷
+    protected HttpServer createHttpServer(int port, RoutingTable table) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+
+        server.createContext("/metrics", exchange ->
+            respond(exchange, "text/plain; version=0.0.4", metrics::toPrometheus));
+        server.createContext("/routes", exchange ->
+            respond(exchange, "application/json", () -> routesJson(table)));
+        return server;
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, Supplier<String> body) throws IOException {
+        if (!exchange.getRequestMethod().equalsIgnoreCase("GET")) {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] response = body.get().getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, response.length);
+
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(response);
+        }
+    }
+
+    // 접두사 순으로 정렬한 경로 목록 (ECMP 다음 홉과 마지막 광고 시각 포함)
+    private static String routesJson(RoutingTable table) {
+        long version = table.getVersion();
+        List<Map.Entry<String, RoutingInfo>> routes = new ArrayList<>(table.entrySet());
+
+        routes.sort(Comparator.comparingLong((Map.Entry<String, RoutingInfo> route) ->
+            Integer.toUnsignedLong(IPv4.prefixAddress(route.getKey()))).thenComparingInt(route -> IPv4.prefixLength(route.getKey())));
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\"version\":").append(version).append(",\"size\":").append(routes.size()).append(",\"routes\":[");
+
+        for (int i = 0; i < routes.size(); i++) {
+            RoutingInfo info = routes.get(i).getValue();
+            Multipath alternates = info.getAlternates();
+
+            json.append(i == 0 ? "" : ",").append("\n{\"prefix\":\"").append(routes.get(i).getKey())
+                .append("\",\"distance\":").append(info.getDistance())
+                .append(",\"hops\":").append(info.getHops())
+                .append(",\"reachable\":").append(info.isReachable())
+                .append(",\"nextHops\":[\"").append(info.getNextHop()).append('"');
+
+            for (int j = 0; j < alternates.size(); j++) {
+                json.append(",\"").append(IPv4.format(alternates.getNextHop(j))).append('"');
             }
-        } catch (Exception e) {
-            System.err.println("Error fetching IP addresses: " + e.getMessage());
+            json.append("],\"updatedAt\":").append(info.getUpdatedAt()).append('}');
         }
+        return json.append("]}\n").toString();
+    }
+
+    // 경로 MTU에 맞춘 송신 데이터그램 최대 크기 (mtu 옵션)
+    protected int getMaxDatagramSize() {
+        return getMaxDatagramSize(options);
+    }
+
+    // 생성자에서 쓸 수 있는 정적 버전
+    protected static int getMaxDatagramSize(DeviceOptions options) {
+        return Math.min(options.getInt("mtu", DEFAULT_MTU) - IP_UDP_HEADER_SIZE, MAX_DATAGRAM_SIZE);
     }
 
     // 현재 IP 주소 목록 반환
     public List<String> getIPAddresses() {
-        return this.ipAddresses;
+        return transport.getIPAddresses();
+    }
+
+    // 전송 계층 소켓 생성 (0이면 임의 포트)
+    protected TransportSocket openSocket(int port) throws IOException {
+        return transport.open(port);
+    }
+
+    // 인터페이스가 직접 연결된 서브넷 접두사 (예: 10.10.1.0/24)
+    protected String getSubnetPrefix(String ip) {
+        return IPv4.subnet(ip, SUBNET_PREFIX_LENGTH);
+    }
+
+    // 주어진 주소와 같은 서브넷에 있는 자신의 인터페이스 IP (없으면 null)
+    protected String getInterfaceFor(String ip) {
+        String subnet = getSubnetPrefix(ip);
+
+        for (String selfIP : getIPAddresses()) {
+            if (getSubnetPrefix(selfIP).equals(subnet)) {
+                return selfIP;
+            }
+        }
+        return null;
     }
 
     // 브로드캐스트 주소 계산
@@ -58,7 +218,7 @@ public abstract class NetworkDevice implements IRunnerable {
             String[] parts = ip.split("\\.");
             return InetAddress.getByName(parts[0] + "." + parts[1] + "." + parts[2] + ".255");
         } catch (Exception e) {
-            System.err.println("Error calculating broadcast address for " + ip + ": " + e.getMessage());
+            log.error("Error calculating broadcast address for " + ip + ": " + e.getMessage());
             return null;
         }
     }
@@ -0,0 +1,204 @@
+package device;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// 라우터의 크기 제한 패킷 큐 (여러 생산자, 소비자 하나)
+// 넣을 때 받은 버퍼를 미리 만든 칸에 복사하므로 수신 버퍼는 바로 다시 쓸 수 있고 패킷마다 할당하지 않음 (칸은 처음 쓸 때 만듦)
+// 소비자는 take/peek로 맨 앞 칸을 그 자리에서 처리하고 release로 돌려줌
+// 버리는 방식: tail(가득 찼을 때만) 또는 red(평균 길이가 min~max 사이면 확률적으로, max 이상이면 항상 미리 버림)
+class PacketQueue {
+    // 큐에 든 패킷 하나 (address, time은 넣는 쪽이 정한 값: 출발지나 다음 홉, 넣은 시각)
+    static final class Entry {
+        private final ByteBuffer buffer;
+        private int address;
+        private long time;
+
+        private Entry(int size) {
+            this.buffer = ByteBuffer.allocate(size);
+        }
+
+        ByteBuffer packet() {
+            return buffer;
+        }
+
+        int address() {
+            return address;
+        }
+
+        long time() {
+            return time;
+        }
+    }
+
+    // 넣기 결과
+    enum Admission {
+        ACCEPTED,
+        FULL, // 가득 차서 버림
+        EARLY_DROP // RED가 미리 버림
+    }
+
+    // RED 설정 (길이 단위는 패킷 수, weight는 평균 길이의 지수 가중치)
+    static final class Red {
+        private final double min;
+        private final double max;
+        private final double probability; // 평균 길이가 max일 때의 버릴 확률
+        private final double weight;
+        private final Random random;
+
+        Red(double min, double max, double probability, double weight, Random random) {
+            if (min < 0 || max <= min || probability < 0 || probability > 1 || weight <= 0 || weight > 1) {
+                throw new IllegalArgumentException("Invalid RED settings: min " + min + ", max " + max + ", probability "
+                    + probability + ", weight " + weight);
+            }
+            this.min = min;
+            this.max = max;
+            this.probability = probability;
+            this.weight = weight;
+            this.random = random;
+        }
+    }
+
+    private final String name;
+    private final Entry[] entries;
+    private final int entrySize;
+    private final Red red; // null이면 tail drop
+    private final ReentrantLock lock;
+    private final Condition notEmpty;
+    private int head;
+    private int count;
+    private double average; // RED 평균 길이
+    private int sinceDrop; // RED: 마지막으로 미리 버린 뒤 받은 수 (버림 간격을 고르게)
+
+    PacketQueue(String name, int capacity, int entrySize, Red red) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Queue size must be positive: " + capacity);
+        }
+        this.name = name;
+        this.entries = new Entry[capacity];
+        this.entrySize = entrySize;
+        this.red = red;
+        this.lock = new ReentrantLock();
+        this.notEmpty = lock.newCondition();
+    }
+
+    String getName() {
+        return name;
+    }
+
+    // packet의 position~limit을 복사해서 넣음 (entrySize보다 크면 가득 찬 것과 같이 버림)
+    Admission offer(ByteBuffer packet, int address, long time) {
+        lock.lock();
+
+        try {
+            Admission admission = admit();
+
+            if (admission != Admission.ACCEPTED) {
+                return admission;
+            }
+            if (packet.remaining() > entrySize) {
+                return Admission.FULL;
+            }
+
+            int index = (head + count) % entries.length;
+            Entry entry = entries[index];
+
+            if (entry == null) {
+                entry = entries[index] = new Entry(entrySize);
+            }
+            entry.buffer.clear();
+            entry.buffer.put(packet.duplicate()).flip();
+            entry.address = address;
+            entry.time = time;
+
+            if (count++ == 0) {
+                notEmpty.signal();
+            }
+            return Admission.ACCEPTED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 잠금 안에서 호출
+    private Admission admit() {
+        if (count == entries.length) {
+            return Admission.FULL;
+        }
+        if (red == null) {
+            return Admission.ACCEPTED;
+        }
+
+        // 비어 있던 시간은 반영하지 않는 단순화한 평균 (큐가 비면 평균도 빠르게 줄어듦)
+        average = count == 0 ? average * (1 - red.weight) : average + red.weight * (count - average);
+
+        if (average < red.min) {
+            sinceDrop = 0;
+            return Admission.ACCEPTED;
+        }
+        if (average >= red.max) {
+            sinceDrop = 0;
+            return Admission.EARLY_DROP;
+        }
+
+        // Floyd & Jacobson: 버린 뒤 지난 수에 따라 확률을 키워서 버림이 몰리지 않게 함
+        double base = red.probability * (average - red.min) / (red.max - red.min);
+        double probability = sinceDrop * base >= 1 ? 1 : base / (1 - sinceDrop * base);
+
+        if (red.random.nextDouble() < probability) {
+            sinceDrop = 0;
+            return Admission.EARLY_DROP;
+        }
+        sinceDrop++;
+        return Admission.ACCEPTED;
+    }
+
+    // 맨 앞 패킷, 비어 있으면 들어올 때까지 대기 (소비자 전용, 처리 후 release)
+    Entry take() throws InterruptedException {
+        lock.lockInterruptibly();
+
+        try {
+            while (count == 0) {
+                notEmpty.await();
+            }
+            return entries[head];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 맨 앞 패킷, 비어 있으면 null (소비자 전용, 처리 후 release)
+    Entry peek() {
+        lock.lock();
+
+        try {
+            return count == 0 ? null : entries[head];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // take/peek로 받은 맨 앞 칸을 돌려줌
+    void release() {
+        lock.lock();
+
+        try {
+            head = (head + 1) % entries.length;
+            count--;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
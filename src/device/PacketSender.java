@@ -0,0 +1,213 @@
+package device;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+import metrics.Histogram;
+import metrics.Metrics;
+import routing.IPv4;
+import routing.RoutingTable;
+import transport.TransportSocket;
+
+// 호스트 송신 파이프라인
+// HTTP 처리 스레드는 패킷을 큐에 넣고 바로 돌아가며, 송신 스레드 하나가 큐를 묶음 단위로 비우면서 전송
+// 라우터 광고로 배운 경로가 있으면 다음 홉(게이트웨이)으로 유니캐스트, 없으면 모든 인터페이스로 브로드캐스트
+// 결과는 패킷마다 CompletableFuture로 알림 (성공 시 순번)
+// 데이터그램 최대 크기(mtu 옵션)보다 큰 패킷은 조각으로 나눠 같은 다음 홉으로 보냄 (조각 버퍼는 송신 쪽 전용 하나를 재사용)
+// 사건 모드(inline)에서는 송신 스레드 없이 submit에서 바로 보냄
+class PacketSender implements Runnable {
+    private static final int DRAIN_BATCH = 256;
+
+    // 인터페이스별 브로드캐스트 대상과 그 인터페이스의 출발지 주소
+    static class Target {
+        private final InetSocketAddress address;
+        private final int source;
+
+        Target(InetSocketAddress address, int source) {
+            this.address = address;
+            this.source = source;
+        }
+    }
+
+    private static class Send {
+        private final ByteBuffer packet;
+        private final CompletableFuture<Integer> result;
+        private final long submittedAt; // System.nanoTime
+
+        private Send(ByteBuffer packet) {
+            this.packet = packet;
+            this.result = new CompletableFuture<>();
+            this.submittedAt = System.nanoTime();
+        }
+    }
+
+    private final TransportSocket socket;
+    private final RoutingTable routingTable;
+    private final List<Target> targets;
+    private final BlockingQueue<Send> queue;
+    private final AddressCache addressCache; // 다음 홉 주소 캐시 (송신 스레드 전용)
+    private final LongAdder sent;
+    private final LongAdder broadcasts;
+    private final LongAdder failed;
+    private final LongAdder queueFull;
+    private final LongAdder fragments;
+    private final ByteBuffer fragment; // 조각 하나를 만드는 버퍼
+    private final Histogram sendTime; // 큐에 넣은 뒤 전송할 때까지
+    private final boolean inline;
+
+    PacketSender(TransportSocket socket, RoutingTable routingTable, List<Target> targets, int port, int capacity, int maxDatagramSize,
+            Metrics metrics, boolean inline) {
+        if (maxDatagramSize <= DataPacket.HEADER_SIZE) {
+            throw new IllegalArgumentException("Datagram size too small for a data packet: " + maxDatagramSize);
+        }
+        this.socket = socket;
+        this.routingTable = routingTable;
+        this.targets = targets;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.addressCache = new AddressCache(port);
+        this.sent = metrics.counter("packets_sent_total", "Data packets sent by this host");
+        this.broadcasts = metrics.counter("packets_broadcast_total", "Data packets broadcast because no gateway was known");
+        this.failed = metrics.counter("send_errors_total", "Data packets that could not be sent");
+        this.queueFull = metrics.counter("send_queue_full_total", "Submissions that waited because the send queue was full");
+        this.fragments = metrics.counter("fragments_sent_total", "Fragments sent for data packets larger than the datagram size");
+        this.fragment = ByteBuffer.allocate(maxDatagramSize);
+        this.sendTime = metrics.histogram("send_seconds", "Time from queueing a data packet to sending it, including queue wait");
+        this.inline = inline;
+
+        metrics.gauge("send_queue_depth", "Data packets waiting in the send queue", queue::size);
+    }
+
+    // 큐에 넣고 결과 반환, 큐가 가득 차면 자리가 날 때까지 대기 (요청 쪽으로 역압)
+    CompletableFuture<Integer> submit(ByteBuffer packet) throws InterruptedException {
+        Send send = new Send(packet);
+
+        if (inline) {
+            send(send);
+            return send.result;
+        }
+
+        if (!queue.offer(send)) {
+            queueFull.increment();
+            queue.put(send);
+        }
+        return send.result;
+    }
+
+    // 기다리지 않는 submit, 큐가 가득 차면 넣지 않고 false (부하 생성기와 수신 경로의 응답용)
+    boolean offer(ByteBuffer packet) {
+        Send send = new Send(packet);
+
+        if (inline) {
+            send(send);
+            return true;
+        }
+        return queue.offer(send);
+    }
+
+    @Override
+    public void run() {
+        List<Send> batch = new ArrayList<>(DRAIN_BATCH);
+
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, DRAIN_BATCH - 1);
+
+                for (Send send : batch) {
+                    send(send);
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // 종료
+        } finally {
+            batch.addAll(queue);
+
+            for (Send send : batch) {
+                send.result.completeExceptionally(new IOException("Host is shutting down"));
+            }
+        }
+    }
+
+    // 경로가 있으면 다음 홉으로 유니캐스트
+    private void send(Send send) {
+        ByteBuffer packet = send.packet;
+        int position = packet.position();
+
+        try {
+            int destination = DataPacket.getDestination(packet);
+            int nextHop = routingTable.nextHop(destination);
+            Target via = nextHop == RoutingTable.NO_ROUTE ? null : targetFor(nextHop);
+
+            if (via != null) {
+                // 직접 연결된 서브넷이면 목적지로, 아니면 게이트웨이로
+                DataPacket.setSource(packet, via.source);
+                transmit(packet, addressCache.get(nextHop == via.source ? destination : nextHop));
+                packet.position(position);
+            } else {
+                broadcast(packet);
+                broadcasts.increment();
+            }
+            sent.increment();
+            sendTime.recordSince(send.submittedAt);
+            send.result.complete(DataPacket.getSequence(packet));
+        } catch (IOException e) {
+            failed.increment();
+            send.result.completeExceptionally(e);
+        }
+    }
+
+    // 다음 홉과 같은 서브넷에 있는 인터페이스 (없으면 null)
+    private Target targetFor(int nextHop) {
+        int mask = IPv4.mask(NetworkDevice.SUBNET_PREFIX_LENGTH);
+
+        for (Target target : targets) {
+            if (((target.source ^ nextHop) & mask) == 0) {
+                return target;
+            }
+        }
+        return null;
+    }
+
+    // 경로를 모를 때는 인터페이스마다 출발지를 바꿔서 브로드캐스트
+    private void broadcast(ByteBuffer packet) throws IOException {
+        int position = packet.position();
+
+        for (Target target : targets) {
+            DataPacket.setSource(packet, target.source);
+            transmit(packet, target.address);
+            packet.position(position);
+        }
+    }
+
+    // 한 데이터그램에 들어가면 그대로, 아니면 조각으로 나눠 전송 (송신 버퍼가 가득 차면 실패로 처리)
+    private void transmit(ByteBuffer packet, InetSocketAddress address) throws IOException {
+        if (packet.remaining() <= fragment.capacity()) {
+            if (!socket.send(packet, address)) {
+                throw new IOException("Send buffer full for " + address);
+            }
+            return;
+        }
+
+        int length = DataPacket.getPayloadLength(packet);
+        int size = fragment.capacity() - DataPacket.HEADER_SIZE;
+
+        for (int offset = 0; offset < length; offset += size) {
+            int part = Math.min(size, length - offset);
+
+            fragment.clear();
+            DataPacket.encodeFragment(fragment, packet, offset, part, offset + part < length);
+            if (!socket.send(fragment.flip(), address)) {
+                throw new IOException("Send buffer full for " + address);
+            }
+            fragments.increment();
+        }
+    }
+}
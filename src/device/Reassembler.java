@@ -0,0 +1,186 @@
+package device;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import clock.Clock;
+import metrics.Metrics;
+
+// 목적지 호스트의 조각 재조립 (수신 스레드 하나 전용)
+// (출발지, 흐름 ID, 순번)마다 받은 바이트 범위를 기록하고, 마지막 조각까지 빈틈없이 모이면 원래 패킷을 돌려줌
+// 처음 조각을 받은 뒤 timeout이 지나도록 다 모이지 않은 패킷은 버리고(조각이 올 때 오래된 것부터 확인),
+// 모으는 중인 버퍼 합이 maxBytes를 넘으면 가장 오래된 패킷부터 버려서 메모리를 제한
+class Reassembler {
+    private static final int INITIAL_CAPACITY = 4096; // 전체 크기를 모를 때 처음 잡는 페이로드 버퍼
+
+    // 조각 하나가 속한 패킷
+    private record Key(int source, int flowId, int sequence) {
+    }
+
+    // 모으는 중인 패킷 하나
+    private static class Partial {
+        private final long startedAt; // Clock.millis
+        private final byte[] header;
+        private final BitSet received; // 받은 페이로드 바이트
+        private byte[] payload;
+        private int total = -1; // 마지막 조각을 받으면 전체 페이로드 길이
+
+        private Partial(long startedAt) {
+            this.startedAt = startedAt;
+            this.header = new byte[DataPacket.HEADER_SIZE];
+            this.received = new BitSet();
+        }
+
+        private boolean isComplete() {
+            return total >= 0 && received.nextClearBit(0) >= total;
+        }
+    }
+
+    private final long timeoutMs;
+    private final long maxBytes;
+    private final Map<Key, Partial> partials; // 처음 조각을 받은 순서
+    private final Metrics.Counters<String> dropped;
+    private final LongAdder reassembled;
+    private volatile long bytes; // 모으는 중인 페이로드 버퍼 합
+
+    Reassembler(long timeoutMs, long maxBytes, Metrics metrics, Metrics.Counters<String> dropped) {
+        this.timeoutMs = timeoutMs;
+        this.maxBytes = maxBytes;
+        this.partials = new LinkedHashMap<>();
+        this.dropped = dropped;
+        this.reassembled = metrics.counter("packets_reassembled_total", "Data packets reassembled from fragments");
+
+        metrics.gauge("reassembly_bytes", "Payload bytes buffered for packets still being reassembled", () -> bytes);
+        metrics.gauge("reassembly_packets", "Packets still being reassembled", () -> partials.size());
+    }
+
+    // 조각 하나 추가, 패킷이 완성되면 합친 패킷(새 버퍼), 아니면 null
+    ByteBuffer add(ByteBuffer fragment) {
+        long now = Clock.millis();
+        expire(now);
+
+        int offset = DataPacket.getFragmentOffset(fragment);
+        int length = DataPacket.getPayloadLength(fragment);
+        boolean more = (DataPacket.getFlags(fragment) & DataPacket.FLAG_MORE_FRAGMENTS) != 0;
+        int end = offset + length;
+
+        // 페이로드 길이 필드를 넘는 위치나 빈 중간 조각은 잘못된 조각
+        if (end > DataPacket.MAX_PAYLOAD_SIZE || (more && length == 0)) {
+            dropped.increment("bad_fragment");
+            return null;
+        }
+
+        Key key = new Key(DataPacket.getSource(fragment), DataPacket.getFlowId(fragment), DataPacket.getSequence(fragment));
+        Partial partial = partials.get(key);
+
+        if (partial == null) {
+            partial = new Partial(now);
+            partials.put(key, partial);
+        }
+
+        // 알려진 끝을 넘거나 끝이 서로 다른 조각이 오면 패킷 전체를 버림
+        boolean inconsistent = partial.total >= 0
+            ? end > partial.total || (!more && end != partial.total)
+            : !more && partial.received.length() > end;
+
+        if (inconsistent) {
+            discard(key, partial, "bad_fragment");
+            return null;
+        }
+
+        if (!more) {
+            partial.total = end;
+        }
+        if (offset == 0) {
+            fragment.get(fragment.position(), partial.header);
+        }
+        if (!store(partial, fragment, offset, length)) {
+            discard(key, partial, "reassembly_memory");
+            return null;
+        }
+
+        if (!partial.isComplete()) {
+            evict(key);
+            return null;
+        }
+
+        partials.remove(key);
+        bytes -= partial.payload == null ? 0 : partial.payload.length;
+        reassembled.increment();
+
+        ByteBuffer packet = ByteBuffer.allocate(DataPacket.HEADER_SIZE + partial.total);
+        packet.put(partial.header).put(partial.payload == null ? new byte[0] : partial.payload, 0, partial.total).flip();
+        DataPacket.setReassembled(packet, partial.total);
+        return packet;
+    }
+
+    // 페이로드 버퍼에 복사 (필요하면 늘림), 한 패킷이 메모리 한도를 넘으면 false
+    private boolean store(Partial partial, ByteBuffer fragment, int offset, int length) {
+        int end = offset + length;
+        int capacity = partial.payload == null ? 0 : partial.payload.length;
+
+        if (end > capacity) {
+            int grown = partial.total >= 0 ? partial.total
+                : Math.min(DataPacket.MAX_PAYLOAD_SIZE, Math.max(end, Math.max(INITIAL_CAPACITY, capacity * 2)));
+
+            if (grown > maxBytes) {
+                return false;
+            }
+
+            byte[] payload = new byte[grown];
+
+            if (partial.payload != null) {
+                System.arraycopy(partial.payload, 0, payload, 0, capacity);
+            }
+            partial.payload = payload;
+            bytes += grown - capacity;
+        }
+
+        fragment.get(fragment.position() + DataPacket.HEADER_SIZE, partial.payload, offset, length);
+        partial.received.set(offset, end);
+        return true;
+    }
+
+    // 처음 조각을 받은 지 timeout이 지난 패킷 버림 (삽입 순서이므로 앞에서부터)
+    private void expire(long now) {
+        Iterator<Map.Entry<Key, Partial>> iterator = partials.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            Partial partial = iterator.next().getValue();
+
+            if (now - partial.startedAt < timeoutMs) {
+                return;
+            }
+            iterator.remove();
+            release(partial, "reassembly_timeout");
+        }
+    }
+
+    // 메모리 한도를 넘으면 지금 모으는 패킷(keep)을 빼고 가장 오래된 것부터 버림
+    private void evict(Key keep) {
+        Iterator<Map.Entry<Key, Partial>> iterator = partials.entrySet().iterator();
+
+        while (bytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<Key, Partial> entry = iterator.next();
+
+            if (!entry.getKey().equals(keep)) {
+                iterator.remove();
+                release(entry.getValue(), "reassembly_memory");
+            }
+        }
+    }
+
+    private void discard(Key key, Partial partial, String reason) {
+        partials.remove(key);
+        release(partial, reason);
+    }
+
+    private void release(Partial partial, String reason) {
+        bytes -= partial.payload == null ? 0 : partial.payload.length;
+        dropped.increment(reason);
+    }
+}
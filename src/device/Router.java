@@ -1,200 +1,605 @@
 package device;
 
+import java.io.IOException;
 import java.net.DatagramPacket;
-import java.net.DatagramSocket;
 import java.net.InetAddress;
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
-import routing.RoutingInfo;
+import com.sun.net.httpserver.HttpServer;
+
+import clock.Clock;
+import metrics.Histogram;
+import metrics.Metrics;
+import routing.IPv4;
+import routing.LinkStatePacket;
+import routing.PageAssembler;
+import routing.RouteList;
+import routing.RouteSnapshot;
 import routing.RoutingPacket;
 import routing.RoutingTable;
+import transport.Transport;
+import transport.TransportSocket;
+import transport.UdpTransport;
 
 public class Router extends NetworkDevice {
-    private static final int BROADCAST_INTERVAL = 5; // 라우팅 테이블 브로드캐스트 간격
+    private static final int BROADCAST_INTERVAL = 5; // 라우팅 테이블 출력 간격, 기존 라우터의 브로드캐스트 간격
+    private static final int HOLD_DOWN = 1000; // 증분 광고 최소 간격(ms)
+    private static final int SCHEDULER_THREADS = 3;
+    private static final int HTTP_THREADS = 1; // 플랫폼 스레드 모드의 관측용 HTTP 작업 스레드 수
+    private static final long LEGACY_HOLD_MS = 3 * BROADCAST_INTERVAL * 1000L; // 텍스트 전용 이웃을 기억하는 시간
+    private static final String SNAPSHOT_DIR = "/app/data"; // 컨테이너에 마운트되는 데이터 볼륨
+    private static final int SNAPSHOT_INTERVAL = 10; // 경로 스냅샷 저장 간격(초)
+    private static final int SNAPSHOT_MAX_AGE = 600; // 이보다 오래된 스냅샷은 읽지 않음(초)
+    private static final int SNAPSHOT_PENALTY = 100; // 스냅샷에서 읽은 경로에 더하는 거리 (살아 있는 광고가 이기도록)
 
-    private final RoutingTable routingTable; // 라우팅 테이블
     private final ScheduledExecutorService scheduler; // 주기적인 브로드캐스트 및 업데이트를 위한 스케줄러
-    private final int delay; // 응답 딜레이(ms)
+    private final int delay; // 고정 링크 비용 (delay 옵션, 없으면 0이고 측정한 비용 사용)
+    private final String wireFormat; // 광고 형식 (auto|text|binary)
+    private final String mode; // 제어 평면 (dv: 거리 벡터 병합, ls: 링크 상태)
+    private LinkStateProtocol linkState; // ls 모드에서만 사용
+    private LinkProber prober; // 고정 링크 비용이 없을 때 사용 (run에서 만듦)
+    private ForwardingEngine forwardingEngine;
+    private final Map<String, Long> legacyNeighbors; // 인터페이스 IP -> 텍스트 전용 이웃을 마지막으로 본 시각
+    private final PageAssembler pageAssembler; // 여러 페이지로 나뉜 광고 추적
+    private final Random random; // RED 큐 등 (seed 옵션이 있으면 재현 가능)
+    private final AtomicInteger generation; // 광고마다 증가하는 세대 번호
+    private final int maxDatagramSize; // 광고 페이지 최대 크기
+    private final int fullDumpInterval; // 전체 테이블 광고 간격(초)
+    private final int holdDown; // 증분 광고 최소 간격(ms)
+    private final int routeTimeout; // 경로 시간 초과(초)
+    private final int routeGc; // 도달 불가 경로 삭제 대기(초)
+    private final AtomicInteger sequence; // 증분 광고마다 증가하는 테이블 순번
+    private final Map<String, Integer> neighborSequences; // 이웃 IP -> 마지막으로 받은 순번
+    private final Map<String, Long> resyncRequests; // 이웃 IP -> 마지막 재동기화 요청 시각
+    private final AtomicBoolean triggeredUpdatePending;
+    private volatile long lastTriggeredUpdate;
+    private final int httpPort; // 관측용 HTTP 서버 포트 (0이면 띄우지 않음)
+    private final Metrics.Counters<Integer> advertsSent; // 광고 종류 -> 보낸 페이지 수
+    private final Metrics.Counters<String> advertsReceived; // 이웃 IP -> 받은 라우팅 패킷 수
+    private final LongAdder resyncsRequested;
+    private final Histogram mergeTime; // 광고 페이지 하나를 병합하고 공개하는 시간
+    private final LongAdder snapshotWrites; // 스냅샷에 다시 쓴 항목 수
+    private final LongAdder advertRoutesOmitted; // 페이지 수 한계로 광고에서 빠진 경로 수
 
     public Router() {
-        this(new Random().nextInt(900) + 100); // 100~999ms 랜덤 딜레이
+        this(new UdpTransport(), new DeviceOptions());
     }
 
     public Router(int delay) {
-        super();
-        this.routingTable = new RoutingTable();
-        this.delay = delay;
-        this.scheduler = Executors.newScheduledThreadPool(3); // 스케줄러 스레드풀 크기 증가
+        this(new UdpTransport(), new DeviceOptions().set("delay", String.valueOf(delay)));
+    }
+
+    public Router(Transport transport, DeviceOptions options) {
+        this(transport, options, null);
+    }
+
+    // events가 있으면 스레드 없이 그 사건 루프에서만 동작 (이산 사건 시뮬레이션)
+    public Router(Transport transport, DeviceOptions options, ScheduledExecutorService events) {
+        super(transport, options, events);
+        this.delay = Math.max(0, options.getInt("delay", 0));
+        this.scheduler = threads.newScheduler(options.getInt("scheduler-threads", SCHEDULER_THREADS));
+        this.wireFormat = options.get("wire", "auto").toLowerCase();
+        this.mode = options.get("mode", "dv").toLowerCase();
+
+        if (!mode.equals("dv") && !mode.equals("ls")) {
+            throw new IllegalArgumentException("Unknown routing mode: " + mode);
+        }
+        this.legacyNeighbors = new ConcurrentHashMap<>();
+        this.pageAssembler = new PageAssembler();
+        this.random = options.has("seed") ? new Random(options.getInt("seed", 0)) : new Random(); // 시뮬레이션 재현용 씨앗
+        this.generation = new AtomicInteger(random.nextInt());
+        this.maxDatagramSize = getMaxDatagramSize(options);
+        this.fullDumpInterval = options.getInt("full-interval", FULL_DUMP_INTERVAL);
+        this.holdDown = options.getInt("holddown", HOLD_DOWN);
+        this.routeTimeout = options.getInt("route-timeout", ROUTE_TIMEOUT_DUMPS * fullDumpInterval);
+        this.routeGc = options.getInt("route-gc", ROUTE_GC_DUMPS * fullDumpInterval);
+        this.sequence = new AtomicInteger();
+        this.neighborSequences = new ConcurrentHashMap<>();
+        this.resyncRequests = new ConcurrentHashMap<>();
+        this.triggeredUpdatePending = new AtomicBoolean();
+        this.httpPort = options.getInt("http", HTTP_PORT);
+        this.advertsSent = metrics.counters("adverts_sent_total", "Routing advertisement pages sent by type", "type",
+            Router::advertType);
+        this.advertsReceived = metrics.counters("adverts_received_total", "Routing packets received from each neighbor",
+            "neighbor", neighbor -> neighbor);
+        this.resyncsRequested = metrics.counter("resync_requests_total", "Full table resyncs requested from neighbors");
+        this.mergeTime = metrics.histogram("merge_seconds", "Time to merge and publish one routing advertisement page");
+        this.snapshotWrites = metrics.counter("snapshot_entries_written_total", "Routing snapshot entries rewritten on disk");
+        this.advertRoutesOmitted = metrics.counter("advert_routes_omitted_total",
+            "Routes left out of binary advertisements because they exceeded the page limit");
     }
 
     @Override
     public void run() {
+        // 자신을 넘기므로 생성이 끝난 뒤 만듦 (수신 스레드와 스케줄러는 이후에 시작하므로 그대로 보임)
+        prober = delay > 0 ? null : new LinkProber(this, options, routeTimeout * 1000L, this::linkCostChanged);
         initializeRoutingTable();
+        startLinkState();
+        startSnapshots();
+        startProbing();
         startBroadcastingAndListening();
         startPacketListening();
+        startStatisticsLogging();
+        startHttpServer();
         // startLearningAndLogging();
     }
 
-    // 자신으로 라우팅 테이블을 초기화
+    // 관측용 HTTP 서버 시작 (/metrics, /routes)
+    private void startHttpServer() {
+        if (httpPort <= 0) {
+            return;
+        }
+
+        try {
+            HttpServer server = createHttpServer(httpPort, routingTable);
+            server.setExecutor(threads.newRequestExecutor(options.getInt("http-threads", HTTP_THREADS)));
+            server.start();
+            threads.register(() -> server.stop(0));
+
+            log.info("HTTP server started on port " + httpPort);
+        } catch (IOException e) {
+            log.error("Error starting HTTP server: " + e.getMessage());
+        }
+    }
+
+    // 직접 연결된 서브넷으로 라우팅 테이블을 초기화
     private void initializeRoutingTable() {
         for (String ip : getIPAddresses()) {
-            routingTable.addRoutingPath(ip, 0, 0, ip); // 자신의 IP는 거리 0, 홉 0으로 추가
+            routingTable.addRoutingPath(getSubnetPrefix(ip), 0, 0, ip); // 연결된 서브넷은 거리 0, 홉 0으로 추가
         }
     }
     
+    // ls 모드면 링크 상태 프로토콜 시작 (거리 벡터 광고는 호스트의 게이트웨이 학습용으로 계속 보냄)
+    private void startLinkState() {
+        if (!mode.equals("ls")) {
+            return;
+        }
+
+        linkState = new LinkStateProtocol(this, routingTable, this::linkCost, fullDumpInterval, options, this::scheduleTriggeredUpdate);
+
+        try {
+            linkState.start(scheduler);
+        } catch (IOException e) {
+            log.error("Error starting link state protocol: " + e.getMessage());
+        }
+    }
+
+    // 경로 스냅샷을 읽어 임시 경로로 넣고 주기적으로 저장 (거리 벡터 모드만, ls 모드 경로는 LSDB가 다시 만듦)
+    // snapshot-dir가 없으면 컨테이너의 데이터 볼륨이 있을 때만 사용 (사건 모드는 snapshot-dir를 줄 때만)
+    private void startSnapshots() {
+        int interval = options.getInt("snapshot-interval", SNAPSHOT_INTERVAL);
+        boolean enabled = options.has("snapshot-dir") || (!threads.isEventDriven() && Files.isDirectory(Path.of(SNAPSHOT_DIR)));
+
+        if (linkState != null || interval <= 0 || !enabled) {
+            return;
+        }
+
+        Path path = Path.of(options.get("snapshot-dir", SNAPSHOT_DIR), getName() + ".routes");
+        boolean existing = Files.exists(path);
+        RouteSnapshot snapshot;
+
+        try {
+            snapshot = new RouteSnapshot(path);
+        } catch (IOException e) {
+            log.error("Error opening routing snapshot " + path + ": " + e.getMessage());
+            return;
+        }
+
+        restoreRoutes(snapshot, existing);
+
+        scheduler.scheduleAtFixedRate(() -> saveRoutes(snapshot), interval, interval, TimeUnit.SECONDS);
+        threads.register(() -> {
+            saveRoutes(snapshot); // 종료할 때 마지막 상태 저장
+            snapshot.close();
+        });
+    }
+
+    // 스냅샷의 경로를 낮은 신뢰도로 넣음: 거리에 벌점을 더하고, 갱신 시각을 전체 광고 한 번 뒤에 시간 초과되도록 당김
+    // 살아 있는 광고가 같은 다음 홉으로 오면 실제 거리로 바뀌고, 더 짧은 경로가 오면 교체되고, 아무도 광고하지 않으면 노화로 사라짐
+    // 다음 홉이 직접 연결된 서브넷에 없으면 (인터페이스가 바뀐 재시작) 버림
+    private void restoreRoutes(RouteSnapshot snapshot, boolean existing) {
+        long savedAt = snapshot.getSavedAt();
+
+        if (savedAt < 0) {
+            if (existing) {
+                log.warn("Ignoring invalid routing snapshot " + snapshot.getPath());
+            }
+            return;
+        }
+
+        // 저장 시각과 나이, 복원한 경로의 갱신 시각을 모두 Clock 기준으로 맞춤 (사건 모드는 가상 시각)
+        // 다른 시뮬레이션 실행에서 저장해 지금보다 뒤의 시각이면 방금 저장한 것으로 취급
+        long age = Math.max(0, Clock.millis() - savedAt);
+        int maxAge = options.getInt("snapshot-max-age", SNAPSHOT_MAX_AGE);
+
+        if (age > maxAge * 1000L) {
+            log.info("Ignoring routing snapshot " + snapshot.getPath() + " saved " + age / 1000 + " s ago");
+            return;
+        }
+
+        int penalty = Math.max(0, options.getInt("snapshot-penalty", SNAPSHOT_PENALTY));
+        long updatedAt = Clock.millis() - routeTimeout * 1000L + fullDumpInterval * 1000L;
+        int[] restored = new int[1];
+
+        snapshot.load((address, prefixLength, distance, hops, nextHop) -> {
+            if (getInterfaceFor(IPv4.format(nextHop)) == null || getIPAddresses().contains(IPv4.format(nextHop))) {
+                return;
+            }
+            if (routingTable.learn(address, prefixLength, RoutingTable.addDistance(distance, penalty), hops, nextHop, updatedAt)) {
+                restored[0]++;
+            }
+        });
+        routingTable.publish();
+
+        log.info("Restored " + restored[0] + " provisional routes from " + snapshot.getPath() + " saved " + age / 1000 + " s ago"
+            + (snapshot.getCorrupt() > 0 ? " (" + snapshot.getCorrupt() + " corrupt entries skipped)" : ""));
+    }
+
+    private void saveRoutes(RouteSnapshot snapshot) {
+        try {
+            snapshotWrites.add(snapshot.save(routingTable));
+        } catch (IOException | RuntimeException e) {
+            log.error("Error saving routing snapshot " + snapshot.getPath() + ": " + e.getMessage());
+        }
+    }
+
+    // 이웃 링크 비용 측정 시작 (delay 옵션으로 고정 비용을 주면 측정하지 않음)
+    private void startProbing() {
+        if (prober == null) {
+            return;
+        }
+
+        try {
+            prober.start(scheduler);
+        } catch (IOException e) {
+            log.error("Error starting link prober: " + e.getMessage());
+        }
+    }
+
+    // 이웃까지의 링크 비용
+    private int linkCost(int neighbor) {
+        return prober != null ? prober.cost(neighbor) : delay;
+    }
+
+    private int linkCost(String neighborIP) {
+        return prober != null ? prober.cost(neighborIP) : delay;
+    }
+
+    // 링크 비용이 바뀌면 ls 모드는 LSA를 다시 만들고, 거리 벡터 모드는 그 이웃의 경로를 새 비용으로 다시 받음
+    private void linkCostChanged(String neighborIP, int cost) {
+        if (linkState != null) {
+            linkState.linkCostsChanged();
+        } else {
+            requestResync(neighborIP);
+        }
+    }
+
     // 브로드캐스트 및 수신 작업 시작
     private void startBroadcastingAndListening() {
-        scheduler.scheduleAtFixedRate(this::sendRoutingTable, 0, BROADCAST_INTERVAL, TimeUnit.SECONDS); // 10초 간격으로 브로드캐스트
-        new Thread(this::listenForBroadcast).start(); // 브로드캐스트 수신
+        scheduler.scheduleAtFixedRate(this::sendRoutingTable, 0, fullDumpInterval, TimeUnit.SECONDS); // 안전망용 저빈도 전체 광고
+
+        try {
+            listenForBroadcast(); // 브로드캐스트 수신
+        } catch (IOException e) {
+            log.error("Error listening for broadcast: " + e.getMessage());
+        }
+
+        // 거리 벡터 모드에서만 경로 노화 (ls 모드 경로는 LSDB가 관리)
+        if (linkState == null) {
+            int period = Math.max(1, routeTimeout / 6);
+            scheduler.scheduleAtFixedRate(this::expireRoutes, period, period, TimeUnit.SECONDS);
+        }
+    }
+
+    // 시간 초과 경로를 도달 불가로 바꿔 바로 광고하고, 오래된 도달 불가 경로는 삭제
+    private void expireRoutes() {
+        if (routingTable.expire(Clock.millis(), routeTimeout * 1000L, routeGc * 1000L) > 0) {
+            routingTable.publish();
+            scheduleTriggeredUpdate();
+        }
     }
 
-    // 라우팅 테이블을 브로드캐스트
+    // 라우팅 테이블 전체를 브로드캐스트
     private void sendRoutingTable() {
-        try (DatagramSocket socket = new DatagramSocket()) {
+        broadcast(RoutingPacket.TYPE_FULL_TABLE, sequence.get(), advertisedRoutes());
+    }
+
+    // 전체 광고에 넣을 경로
+    // 거리 벡터 모드에서는 집약하지 않음: 집약 경로는 광고하는 쪽의 현재 다음 홉에 따라 생기고 없어지는데,
+    // 경로가 나빠지거나 만료될 수 있게 되면서 사라진 집약 경로가 이웃 사이에서 무한 세기로 남아 수렴하지 않음
+    // ls 모드의 거리 벡터 광고는 다시 광고하지 않는 호스트만 쓰므로 집약
+    private RoutingPacket.RouteSource advertisedRoutes() {
+        return linkState != null ? routingTable::forEachAggregated : routingTable::forEach;
+    }
+
+    // 변경이 생기면 즉시 증분 광고를 예약, 홀드다운 안의 변경은 하나로 묶음
+    private void scheduleTriggeredUpdate() {
+        if (!routingTable.hasChanges() || !triggeredUpdatePending.compareAndSet(false, true)) {
+            return;
+        }
+
+        long wait = Math.max(0, lastTriggeredUpdate + holdDown - Clock.millis());
+        scheduler.schedule(this::sendTriggeredUpdate, wait, TimeUnit.MILLISECONDS);
+    }
+
+    // 바뀐 경로만 새 순번으로 브로드캐스트
+    private void sendTriggeredUpdate() {
+        triggeredUpdatePending.set(false);
+        lastTriggeredUpdate = Clock.millis();
+
+        RouteList changes = new RouteList();
+        routingTable.drainChanges(changes::add);
+
+        if (!changes.isEmpty()) {
+            broadcast(RoutingPacket.TYPE_CHANGES, sequence.incrementAndGet(), changes);
+        }
+    }
+
+    // 인터페이스마다 이웃이 이해하는 형식으로 브로드캐스트 (MTU에 맞춰 페이지 분할)
+    // 경로 목록은 한 번만 모으고, 인터페이스마다 분할 지평 + 역방향 독성을 적용해 인코딩
+    private void broadcast(int type, int sequence, RoutingPacket.RouteSource routes) {
+        RouteList snapshot = new RouteList();
+        routes.forEach(snapshot::add);
+
+        try (TransportSocket socket = openSocket(0)) {
             socket.setBroadcast(true);
-            String tableData = RoutingPacket.create(routingTable, getIPAddresses());
-            byte[] buffer = tableData.getBytes();
 
             for (String ip : getIPAddresses()) {
                 InetAddress broadcastAddress = getBroadcastAddress(ip);
-                if (broadcastAddress != null) {
-                    DatagramPacket packet = new DatagramPacket(buffer, buffer.length, broadcastAddress, ROUTING_BROADCAST_PORT);
-                    socket.send(packet);
+                if (broadcastAddress == null) {
+                    continue;
+                }
+
+                RoutingPacket.RouteSource outgoing = RoutingPacket.poisonReverse(snapshot, IPv4.parse(ip), SUBNET_PREFIX_LENGTH);
+
+                if (useBinaryFormat(ip)) {
+                    sendPages(socket, RoutingPacket.encodePages(type, sequence, generation.incrementAndGet(), outgoing, maxDatagramSize,
+                        advertRoutesOmitted), broadcastAddress);
+                } else {
+                    for (String page : RoutingPacket.createPages(outgoing, !wireFormat.equals("text"), maxDatagramSize)) {
+                        byte[] buffer = page.getBytes();
+                        socket.send(new DatagramPacket(buffer, buffer.length, broadcastAddress, ROUTING_BROADCAST_PORT));
+                        advertsSent.increment(type);
+                    }
                 }
             }
         } catch (Exception e) {
-            System.err.println("Error sending routing table: " + e.getMessage());
+            log.error("Error sending routing table: " + e.getMessage());
         }
     }
 
-    // 라우팅 테이블 수신 및 병합
-    private void listenForBroadcast() {
-        try (DatagramSocket socket = new DatagramSocket(ROUTING_BROADCAST_PORT)) {
-            byte[] buffer = new byte[10240];
-            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
-    
-            while (true) {
-                socket.receive(packet);
+    // 재동기화 요청에 전체 테이블로 응답
+    private void sendRoutingTableTo(String neighborIP) {
+        String ip = getInterfaceFor(neighborIP);
+        RoutingPacket.RouteSource routes = ip == null ? advertisedRoutes()
+            : RoutingPacket.poisonReverse(advertisedRoutes(), IPv4.parse(ip), SUBNET_PREFIX_LENGTH);
 
-                String message = new String(packet.getData(), 0, packet.getLength());
-                String sourceIP = packet.getAddress().getHostAddress();
-    
-                // 자신의 IP에서 온 메시지는 무시
-                if (getIPAddresses().contains(sourceIP)) {
-                    continue;
-                }
-    
-                // 빈 메시지는 기본적으로 무시
-                if (message.isEmpty()) {
-                    System.err.println("Received an empty message, ignoring.");
-                    continue;
-                }
-    
-                // 라우팅 테이블 병합
-                routingTable.mergeRoutingTable(message, sourceIP, delay);
-            }
+        try (TransportSocket socket = openSocket(0)) {
+            sendPages(socket, RoutingPacket.encodePages(RoutingPacket.TYPE_FULL_TABLE, sequence.get(),
+                generation.incrementAndGet(), routes, maxDatagramSize, advertRoutesOmitted), InetAddress.getByName(neighborIP));
         } catch (Exception e) {
-            System.err.println("Error listening for broadcast: " + e.getMessage());
+            log.error("Error sending routing table to " + neighborIP + ": " + e.getMessage());
         }
     }
 
-    // 패킷 수신 및 처리
-    private void startPacketListening() {
-        new Thread(() -> {
-            try (DatagramSocket socket = new DatagramSocket(PACKET_RECEIVE_PORT)) {
-                byte[] buffer = new byte[1024];
-                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+    private void sendPages(TransportSocket socket, List<ByteBuffer> pages, InetAddress address) throws IOException {
+        for (ByteBuffer page : pages) {
+            socket.send(new DatagramPacket(page.array(), page.limit(), address, ROUTING_BROADCAST_PORT));
+            advertsSent.increment(RoutingPacket.getType(page));
+        }
+    }
+
+    private static String advertType(int type) {
+        switch (type) {
+            case RoutingPacket.TYPE_FULL_TABLE:
+                return "full";
+            case RoutingPacket.TYPE_CHANGES:
+                return "changes";
+            case RoutingPacket.TYPE_RESYNC_REQUEST:
+                return "resync";
+            default:
+                return String.valueOf(type);
+        }
+    }
 
-                while (true) {
-                    socket.receive(packet);
+    // 이웃에게 전체 테이블 재전송 요청 (홀드다운마다 한 번)
+    private void requestResync(String neighborIP) {
+        long now = Clock.millis();
+        Long lastRequest = resyncRequests.get(neighborIP);
 
-                    String message = new String(packet.getData(), 0, packet.getLength());
-                    String sourceIP = packet.getAddress().getHostAddress();
+        if (lastRequest != null && now - lastRequest < holdDown) {
+            return;
+        }
+        resyncRequests.put(neighborIP, now);
+        resyncsRequested.increment();
 
-                    System.out.println("Received packet: " + message + " from " + sourceIP);
+        try (TransportSocket socket = openSocket(0)) {
+            sendPages(socket, RoutingPacket.encodePages(RoutingPacket.TYPE_RESYNC_REQUEST, 0, 0, visitor -> { }, maxDatagramSize),
+                InetAddress.getByName(neighborIP));
+        } catch (Exception e) {
+            log.error("Error requesting resync from " + neighborIP + ": " + e.getMessage());
+        }
+    }
 
-                    // 패킷 해석 및 다음 홉으로 전달
-                    String destinationIP = extractDestinationIP(message);
-                    RoutingInfo route = routingTable.get(destinationIP);
+    // 이웃 순번 확인, 증분 광고에 빈 순번이 있으면 재동기화 요청
+    private void checkSequence(String sourceIP, int type, int sequence) {
+        if (sequence == RoutingPacket.NO_SEQUENCE) {
+            return;
+        }
 
-                    if (route != null) {
-                        forwardPacket(message, route.getNextHop());
-                    } else {
-                        System.err.println("No route to destination: " + destinationIP);
-                    }
-                }
-            } catch (Exception e) {
-                System.err.println("Error receiving packet: " + e.getMessage());
-            }
-        }).start();
+        Integer last = neighborSequences.put(sourceIP, sequence);
+
+        if (type == RoutingPacket.TYPE_CHANGES && (last == null || sequence != last + 1)) {
+            log.warn("Routing update gap from " + sourceIP + " (expected " 
+                + (last == null ? "full table" : String.valueOf(last + 1)) + ", got " + sequence + "), requesting resync");
+            requestResync(sourceIP);
+        }
     }
 
-    // 패킷에서 목적지 IP 추출 (단순 예제 구현)
-    private String extractDestinationIP(String queryString) {
-        try {
-            // 쿼리 문자열 분리
-            String[] pairs = queryString.split("&");
-
-            for (String pair : pairs) {
-                String[] keyValue = pair.split("=");
-
-                if (keyValue.length == 2) {
-                    String key = URLDecoder.decode(keyValue[0], StandardCharsets.UTF_8.name());
-                    String value = URLDecoder.decode(keyValue[1], StandardCharsets.UTF_8.name());
-                    
-                    // "destination" 키 확인 후 반환
-                    if (key.equals("destination")) {
-                        return value;
-                    }
-                }
+    // auto 모드에서는 최근 텍스트 전용 이웃이 없는 인터페이스에만 바이너리 사용
+    private boolean useBinaryFormat(String ip) {
+        switch (wireFormat) {
+            case "binary":
+                return true;
+            case "text":
+                return false;
+            default:
+                Long lastSeen = legacyNeighbors.get(ip);
+                return lastSeen == null || Clock.millis() - lastSeen > LEGACY_HOLD_MS;
+        }
+    }
+
+    // 라우팅 테이블 수신 및 병합
+    private void listenForBroadcast() throws IOException {
+        TransportSocket socket = threads.register(openSocket(ROUTING_BROADCAST_PORT));
+        threads.listen("routing", socket, ByteBuffer.allocate(MAX_DATAGRAM_SIZE), this::handleBroadcast);
+    }
+
+    private void handleBroadcast(ByteBuffer packet, InetSocketAddress source) {
+        String sourceIP = source.getAddress().getHostAddress();
+        byte[] data = packet.array();
+        int length = packet.remaining();
+
+        // 자신의 IP에서 온 메시지는 무시
+        if (getIPAddresses().contains(sourceIP)) {
+            return;
+        }
+
+        // 빈 메시지는 기본적으로 무시
+        if (length == 0) {
+            log.warn("Received an empty message, ignoring.");
+            return;
+        }
+
+        if (prober != null) {
+            prober.heard(sourceIP);
+        }
+        advertsReceived.increment(sourceIP);
+
+        // 링크 상태 패킷은 ls 모드에서만 처리
+        if (LinkStatePacket.isLinkState(data, 0, length)) {
+            if (linkState != null) {
+                linkState.handle(packet, sourceIP);
             }
-            System.err.println("Invalid query string: 'destination' field is missing.");
-            return null;
-        } catch (Exception e) {
-            System.err.println("Error parsing query string: " + e.getMessage());
-            return null;
+            return;
         }
+
+        boolean binary = RoutingPacket.isBinary(data, 0, length);
+
+        // ls 모드는 경로를 LSDB로만 계산하므로 거리 벡터 광고는 재동기화 요청만 처리
+        if (linkState != null) {
+            if (binary && RoutingPacket.getType(packet) == RoutingPacket.TYPE_RESYNC_REQUEST) {
+                sendRoutingTableTo(sourceIP);
+            }
+            return;
+        }
+
+        // 첫 바이트로 형식 판별 후 병합
+        if (binary) {
+            int type = RoutingPacket.getType(packet);
+
+            if (type == RoutingPacket.TYPE_RESYNC_REQUEST) {
+                sendRoutingTableTo(sourceIP);
+                return;
+            }
+
+            int sequence = RoutingPacket.getSequence(packet);
+            int status = pageAssembler.accept(sourceIP, RoutingPacket.getGeneration(packet),
+                RoutingPacket.getPage(packet), RoutingPacket.getPageCount(packet));
+
+            // 페이지는 도착하는 대로 병합
+            long start = System.nanoTime();
+            routingTable.mergeRoutingTable(packet, sourceIP, linkCost(sourceIP));
+            mergeTime.recordSince(start);
+
+            if ((status & PageAssembler.PREVIOUS_INCOMPLETE) != 0) {
+                log.warn("Incomplete routing advertisement from " + sourceIP + ", requesting resync");
+                requestResync(sourceIP);
+            }
+            if ((status & PageAssembler.FIRST_PAGE) != 0) {
+                checkSequence(sourceIP, type, sequence);
+            }
+            scheduleTriggeredUpdate();
+            return;
+        }
+
+        String message = new String(data, 0, length);
+
+        // 바이너리 지원 표시가 없는 텍스트 광고는 기존 라우터로 간주
+        if (!RoutingPacket.isBinaryCapable(message)) {
+            String ip = getInterfaceFor(sourceIP);
+
+            if (ip != null) {
+                legacyNeighbors.put(ip, Clock.millis());
+            }
+        }
+
+        // 라우팅 테이블 병합
+        long start = System.nanoTime();
+        routingTable.mergeRoutingTable(message, sourceIP, linkCost(sourceIP));
+        mergeTime.recordSince(start);
+        scheduleTriggeredUpdate();
     }
 
-    // 패킷 전달
-    private void forwardPacket(String packet, String nextHop) {
-        try (DatagramSocket socket = new DatagramSocket()) {
-            byte[] buffer = packet.getBytes();
-            InetAddress nextHopAddress = InetAddress.getByName(nextHop);
-            DatagramPacket forwardPacket = new DatagramPacket(buffer, buffer.length, nextHopAddress, PACKET_RECEIVE_PORT);
+    // 패킷 수신 및 처리 (데이터 평면은 ForwardingEngine이 담당)
+    private void startPacketListening() {
+        try {
+            TransportSocket socket = threads.register(openSocket(PACKET_RECEIVE_PORT));
+            int packetSize = Math.max(ForwardingEngine.PACKET_BUFFER_SIZE, maxDatagramSize); // MTU 크기 패킷이 잘리지 않도록
+
+            forwardingEngine = new ForwardingEngine(socket, routingTable, getIPAddresses(), PACKET_RECEIVE_PORT, prober, metrics, log);
+            forwardingEngine.startQueues(threads, options, packetSize, random, metrics);
+            threads.listen("forwarding", socket, ByteBuffer.allocateDirect(packetSize), forwardingEngine::receive);
+        } catch (IOException e) {
+            log.error("Error receiving packet: " + e.getMessage());
+        }
+    }
 
-            socket.send(forwardPacket);
+    // 다음 홉별 전달 수와 링크 측정값을 주기적으로 출력 (stats-interval 초, 기본은 끔)
+    private void startStatisticsLogging() {
+        int interval = options.getInt("stats-interval", 0);
 
-            System.out.println("Forwarded packet: " + packet + " to " + nextHop);
-        } catch (Exception e) {
-            System.err.println("Error forwarding packet: " + e.getMessage());
+        if (interval <= 0 || forwardingEngine == null) {
+            return;
         }
+
+        scheduler.scheduleAtFixedRate(() -> {
+            log.info("[Router Statistics] Forwarded by next hop:\n" + forwardingEngine.statistics().stripTrailing());
+
+            if (prober != null) {
+                log.info("[Router Statistics] Links:\n" + prober.statistics().stripTrailing());
+            }
+        }, interval, interval, TimeUnit.SECONDS);
     }
 
     // 라우팅 테이블 주기적으로 출력
     private void startLearningAndLogging() {
         scheduler.scheduleAtFixedRate(() -> {
-            System.out.println("\n[Router Update] Current Routing Table:");
-
-            synchronized (routingTable) {
-                if (routingTable.isEmpty()) {
-                    System.out.println("Routing table is empty.");
-                    return;
-                }
-    
-                System.out.printf("%-20s %-10s %-10s %-20s\n", "Destination", "Distance", "Hops", "Next Hop");
-            
-                for (Map.Entry<String, RoutingInfo> entry : routingTable.entrySet()) {
-                    System.out.printf("%-20s %-10d %-10d %-20s\n", 
-                        entry.getKey(), entry.getValue().getDistance(), entry.getValue().getHops(), entry.getValue().getNextHop());
-                }
+            // 공개된 FIB 스냅샷을 읽으므로 갱신과 잠금을 공유하지 않음
+            if (routingTable.isEmpty()) {
+                log.info("[Router Update] Routing table is empty.");
+                return;
             }
+
+            StringBuilder table = new StringBuilder("[Router Update] Current Routing Table:\n");
+            table.append(String.format("%-20s %-10s %-10s %-20s", "Destination", "Distance", "Hops", "Next Hop"));
+
+            routingTable.forEach((address, prefixLength, distance, hops, nextHop) ->
+                table.append(String.format("%n%-20s %-10d %-10d %-20s",
+                    IPv4.formatPrefix(address, prefixLength), distance, hops, IPv4.format(nextHop))));
+            log.info(table.toString());
         }, 0, BROADCAST_INTERVAL, TimeUnit.SECONDS);
     }
 }
@@ -0,0 +1,39 @@
+package device;
+
+import clock.Clock;
+
+// 링크 하나의 송신 속도 제한 (토큰 버킷, 단위는 바이트)
+// 초당 rate 바이트씩 burst까지 채워지고, 보낼 때 패킷 크기만큼 꺼냄
+// 시각은 Clock.nanos라서 사건 모드에서는 가상 시간으로 제한함 (소비자 하나 전용)
+class TokenBucket {
+    private final double rate; // 초당 바이트
+    private final double burst; // 최대 토큰
+    private double tokens;
+    private long updatedAt;
+
+    TokenBucket(double bytesPerSecond, double burstBytes) {
+        if (!(bytesPerSecond > 0) || !(burstBytes > 0)) {
+            throw new IllegalArgumentException("Invalid token bucket: " + bytesPerSecond + " bytes/s, burst " + burstBytes);
+        }
+        this.rate = bytesPerSecond;
+        this.burst = burstBytes;
+        this.tokens = burstBytes;
+        this.updatedAt = Clock.nanos();
+    }
+
+    // 지금 bytes를 보낼 수 있으면 토큰을 꺼내고 0, 아니면 보낼 수 있을 때까지 남은 ns (토큰은 꺼내지 않음)
+    // burst보다 큰 패킷은 버킷이 가득 차면 보내고 토큰이 음수가 됨 (그만큼 다음 패킷이 기다림)
+    long acquire(int bytes) {
+        long now = Clock.nanos();
+        tokens = Math.min(burst, tokens + (now - updatedAt) * rate / 1e9);
+        updatedAt = now;
+
+        double needed = Math.min(bytes, burst);
+
+        if (tokens >= needed) {
+            tokens -= bytes;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((needed - tokens) * 1e9 / rate));
+    }
+}
@@ -0,0 +1,213 @@
+package device;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import clock.Clock;
+import metrics.Histogram;
+import metrics.Metrics;
+import routing.IPv4;
+
+// 호스트의 부하 생성기: 다른 호스트로 일정한 속도의 흐름을 보내고 응답으로 RTT 측정
+// 흐름마다 순번 0부터, 보낸 시각(Clock.nanos)을 담은 부하 측정 패킷을 보내고 받는 쪽 TrafficSink가 손실/중복/순서/단방향 지연을 집계
+// 주기마다 시작 후 지금까지 보냈어야 할 수만큼 몰아서 보내므로 스케줄러 주기보다 높은 속도도 평균으로는 맞춤
+// 송신 큐가 가득 차면 기다리지 않고 건너뛰며(skipped), 건너뛴 패킷은 순번을 쓰지 않으므로 받는 쪽에서 손실로 보이지 않음
+class TrafficGenerator {
+    private static final long MIN_PERIOD_NS = 1_000_000; // 송신 주기 하한 (이보다 빠른 속도는 주기마다 여러 개)
+    private static final long MAX_PERIOD_NS = 100_000_000;
+
+    // 흐름 하나 (송신은 스케줄러 작업 하나만, 응답 집계는 수신 경로에서)
+    static class Flow {
+        private final int id;
+        private final int destination;
+        private final double rate; // 초당 패킷 수
+        private final int size; // 페이로드 바이트
+        private final long count; // 보낼 패킷 수, 0이면 멈출 때까지
+        private final boolean reply;
+        private final Histogram rtt;
+        private final LongAdder replies;
+        private long startedAt; // Clock.nanos
+        private volatile long attempted; // 보냈거나 건너뛴 수
+        private volatile int sent; // 다음 순번
+        private volatile long skipped;
+        private volatile boolean running;
+        private ScheduledFuture<?> task;
+
+        private Flow(int id, int destination, double rate, int size, long count, boolean reply) {
+            this.id = id;
+            this.destination = destination;
+            this.rate = rate;
+            this.size = size;
+            this.count = count;
+            this.reply = reply;
+            this.rtt = new Histogram();
+            this.replies = new LongAdder();
+        }
+
+        int getId() {
+            return id;
+        }
+    }
+
+    private final PacketSender sender;
+    private final ScheduledExecutorService scheduler;
+    private final int maxPayload; // 페이로드 최대 크기 (데이터그램보다 크면 송신 쪽에서 조각으로 나뉨)
+    private final Map<Integer, Flow> flows; // 흐름 ID 순
+    private final AtomicInteger nextFlowId;
+    private final LongAdder sentTotal;
+    private final LongAdder skippedTotal;
+    private final Histogram rttTotal;
+
+    TrafficGenerator(PacketSender sender, ScheduledExecutorService scheduler, int maxPayload, Metrics metrics) {
+        this.sender = sender;
+        this.scheduler = scheduler;
+        this.maxPayload = maxPayload;
+        this.flows = new ConcurrentSkipListMap<>();
+        this.nextFlowId = new AtomicInteger(1); // 0은 /send-packet 등 일반 패킷
+        this.sentTotal = metrics.counter("traffic_sent_total", "Load test packets sent by the traffic generator");
+        this.skippedTotal = metrics.counter("traffic_skipped_total", "Load test packets skipped because the send queue was full");
+        this.rttTotal = metrics.histogram("traffic_rtt_seconds", "Round-trip time of load test packets, measured from replies");
+
+        metrics.gauge("traffic_flows_running", "Traffic generator flows still sending",
+            () -> flows.values().stream().filter(flow -> flow.running).count());
+    }
+
+    // 흐름 시작 (delayMs 뒤부터), 잘못된 값이면 IllegalArgumentException
+    Flow start(int destination, double rate, int size, long count, boolean reply, long delayMs) {
+        if (!(rate > 0)) {
+            throw new IllegalArgumentException("Rate must be positive: " + rate);
+        }
+        if (size < DataPacket.MIN_TRAFFIC_PAYLOAD || size > maxPayload) {
+            throw new IllegalArgumentException("Size must be between " + DataPacket.MIN_TRAFFIC_PAYLOAD + " and " + maxPayload + ": " + size);
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("Count must not be negative: " + count);
+        }
+
+        Flow flow = new Flow(nextFlowId.getAndIncrement(), destination, rate, size, count, reply);
+        long period = Math.max(MIN_PERIOD_NS, Math.min(MAX_PERIOD_NS, (long) (1e9 / rate)));
+
+        flows.put(flow.id, flow);
+
+        synchronized (flow) {
+            flow.running = true;
+            flow.task = scheduler.scheduleAtFixedRate(() -> tick(flow), TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMs)), period,
+                TimeUnit.NANOSECONDS);
+        }
+        return flow;
+    }
+
+    // 지금까지 보냈어야 할 수만큼 전송 (첫 주기에 첫 패킷)
+    private void tick(Flow flow) {
+        long now = Clock.nanos();
+
+        if (flow.attempted == 0) {
+            flow.startedAt = now;
+        }
+
+        long due = (long) ((now - flow.startedAt) * flow.rate / 1e9) + 1;
+
+        if (flow.count > 0) {
+            due = Math.min(due, flow.count);
+        }
+
+        for (long i = flow.attempted; i < due; i++) {
+            ByteBuffer packet = DataPacket.createTraffic(flow.destination, flow.id, flow.sent, Clock.nanos(), flow.reply, flow.size);
+
+            if (sender.offer(packet)) {
+                flow.sent++;
+                sentTotal.increment();
+            } else {
+                flow.skipped++;
+                skippedTotal.increment();
+            }
+        }
+        flow.attempted = Math.max(flow.attempted, due);
+
+        if (flow.count > 0 && flow.attempted >= flow.count) {
+            stop(flow);
+        }
+    }
+
+    // 부하 측정 응답 처리 (수신 경로)
+    void onReply(ByteBuffer packet) {
+        Flow flow = flows.get(DataPacket.getFlowId(packet));
+
+        if (flow == null) {
+            return;
+        }
+
+        long rtt = Clock.nanos() - DataPacket.getTimestamp(packet);
+        flow.rtt.record(rtt);
+        flow.replies.increment();
+        rttTotal.record(rtt);
+    }
+
+    private void stop(Flow flow) {
+        synchronized (flow) {
+            flow.running = false;
+
+            if (flow.task != null) {
+                flow.task.cancel(false);
+            }
+        }
+    }
+
+    // 모든 흐름을 멈추고 기록을 지움, 지운 흐름 수 반환
+    int clear() {
+        int cleared = 0;
+
+        for (Flow flow : flows.values()) {
+            stop(flow);
+            cleared++;
+        }
+        flows.clear();
+        return cleared;
+    }
+
+    boolean isEmpty() {
+        return flows.isEmpty();
+    }
+
+    // 흐름별 결과 JSON 배열
+    String toJson() {
+        StringBuilder json = new StringBuilder("[");
+
+        for (Flow flow : flows.values()) {
+            json.append(json.length() == 1 ? "" : ",").append("\n{\"flow\":").append(flow.id)
+                .append(",\"destination\":\"").append(IPv4.format(flow.destination))
+                .append("\",\"rate\":").append(flow.rate)
+                .append(",\"size\":").append(flow.size)
+                .append(",\"running\":").append(flow.running)
+                .append(",\"sent\":").append(flow.sent)
+                .append(",\"skipped\":").append(flow.skipped)
+                .append(",\"replies\":").append(flow.replies.sum())
+                .append(",\"rttMs\":").append(TrafficSink.latencyJson(flow.rtt)).append('}');
+        }
+        return json.append("]").toString();
+    }
+
+    // 흐름별 한 줄 요약
+    List<String> summary() {
+        List<String> lines = new ArrayList<>();
+
+        for (Flow flow : flows.values()) {
+            String line = "Traffic flow " + flow.id + " to " + IPv4.format(flow.destination) + ": sent " + flow.sent
+                + " (" + flow.skipped + " skipped) at " + flow.rate + "/s";
+
+            if (flow.reply) {
+                line += ", " + flow.replies.sum() + " replies, RTT " + TrafficSink.latencyText(flow.rtt);
+            }
+            lines.add(line);
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,191 @@
+package device;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import clock.Clock;
+import metrics.Histogram;
+import metrics.Metrics;
+import routing.IPv4;
+
+// 받은 부하 측정 패킷 집계: (출발지, 흐름)마다 받은 수, 중복, 순서 바뀜, 손실, 처리량, 단방향 지연
+// 손실은 지금까지 본 가장 큰 순번까지 중 받지 못한 수라서 흐름 끝에서 잃은 패킷은 보낸 쪽 sent와 비교해야 보임
+// 단방향 지연은 양쪽이 같은 단조 시계를 쓸 때만 의미 있음 (한 JVM의 시뮬레이션, 같은 머신의 컨테이너)
+// 기록은 수신 경로 하나에서만, 읽기는 HTTP 요청에서 하므로 흐름별로 동기화
+class TrafficSink {
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+    private static final String[] QUANTILE_NAMES = { "p50", "p90", "p99", "p999" };
+
+    // 흐름 하나의 수신 기록
+    private static class Stream {
+        private final int source;
+        private final int flowId;
+        private final Histogram oneWay;
+        private long received; // 중복 제외
+        private long bytes;
+        private long duplicates;
+        private long reordered; // 더 큰 순번보다 늦게 도착한 수
+        private int highest = -1;
+        private long firstAt; // Clock.nanos
+        private long lastAt;
+
+        private Stream(int source, int flowId) {
+            this.source = source;
+            this.flowId = flowId;
+            this.oneWay = new Histogram();
+        }
+
+        private long lost() {
+            return Math.max(0, highest + 1L - received);
+        }
+    }
+
+    private final int maxFlows;
+    private final Map<Long, Stream> streams; // (출발지, 흐름 ID) 순
+    private final LongAdder receivedTotal;
+    private final LongAdder duplicatesTotal;
+    private final LongAdder reorderedTotal;
+    private final LongAdder untracked;
+    private final Histogram oneWayTotal;
+
+    TrafficSink(int maxFlows, Metrics metrics) {
+        this.maxFlows = maxFlows;
+        this.streams = new ConcurrentSkipListMap<>();
+        this.receivedTotal = metrics.counter("traffic_received_total", "Load test packets received, excluding duplicates");
+        this.duplicatesTotal = metrics.counter("traffic_duplicates_total", "Load test packets received more than once");
+        this.reorderedTotal = metrics.counter("traffic_reordered_total", "Load test packets that arrived after a later sequence number");
+        this.untracked = metrics.counter("traffic_untracked_total", "Load test packets not recorded because too many flows are tracked");
+        this.oneWayTotal = metrics.histogram("traffic_one_way_seconds", "One-way delay of load test packets (needs a shared clock)");
+
+        metrics.gauge("traffic_lost", "Load test packets missing below the highest sequence number received, over all flows", () -> {
+            long lost = 0;
+
+            for (Stream stream : streams.values()) {
+                synchronized (stream) {
+                    lost += stream.lost();
+                }
+            }
+            return lost;
+        });
+    }
+
+    // 부하 측정 패킷 하나 기록 (duplicate: 호스트의 중복 판별 결과)
+    void receive(ByteBuffer packet, boolean duplicate) {
+        int source = DataPacket.getSource(packet);
+        int flowId = DataPacket.getFlowId(packet);
+        long key = ((long) source << 32) | (flowId & 0xFFFFFFFFL);
+        Stream stream = streams.get(key);
+
+        if (stream == null) {
+            if (streams.size() >= maxFlows) {
+                untracked.increment();
+                return;
+            }
+            stream = streams.computeIfAbsent(key, k -> new Stream(source, flowId));
+        }
+
+        long now = Clock.nanos();
+
+        synchronized (stream) {
+            if (duplicate) {
+                stream.duplicates++;
+                duplicatesTotal.increment();
+                return;
+            }
+
+            int sequence = DataPacket.getSequence(packet);
+            long delay = now - DataPacket.getTimestamp(packet);
+
+            if (stream.received == 0) {
+                stream.firstAt = now;
+            }
+            if (sequence < stream.highest) {
+                stream.reordered++;
+                reorderedTotal.increment();
+            } else {
+                stream.highest = sequence;
+            }
+            stream.received++;
+            stream.bytes += DataPacket.getPayloadLength(packet);
+            stream.lastAt = now;
+            stream.oneWay.record(delay);
+            oneWayTotal.record(delay);
+        }
+        receivedTotal.increment();
+    }
+
+    void clear() {
+        streams.clear();
+    }
+
+    boolean isEmpty() {
+        return streams.isEmpty();
+    }
+
+    // 흐름별 결과 JSON 배열
+    String toJson() {
+        StringBuilder json = new StringBuilder("[");
+
+        for (Stream stream : streams.values()) {
+            synchronized (stream) {
+                json.append(json.length() == 1 ? "" : ",").append("\n{\"source\":\"").append(IPv4.format(stream.source))
+                    .append("\",\"flow\":").append(stream.flowId)
+                    .append(",\"received\":").append(stream.received)
+                    .append(",\"lost\":").append(stream.lost())
+                    .append(",\"duplicates\":").append(stream.duplicates)
+                    .append(",\"reordered\":").append(stream.reordered)
+                    .append(",\"packetsPerSecond\":").append(String.format("%.1f", packetRate(stream)))
+                    .append(",\"bitsPerSecond\":").append(String.format("%.0f", packetRate(stream) * 8 * stream.bytes / Math.max(1, stream.received)))
+                    .append(",\"oneWayMs\":").append(latencyJson(stream.oneWay)).append('}');
+            }
+        }
+        return json.append("]").toString();
+    }
+
+    // 흐름별 한 줄 요약
+    List<String> summary() {
+        List<String> lines = new ArrayList<>();
+
+        for (Stream stream : streams.values()) {
+            synchronized (stream) {
+                lines.add("Traffic flow " + stream.flowId + " from " + IPv4.format(stream.source) + ": received " + stream.received
+                    + String.format(" (%.1f/s)", packetRate(stream)) + ", lost " + stream.lost() + ", " + stream.duplicates
+                    + " duplicates, " + stream.reordered + " reordered, one-way " + latencyText(stream.oneWay));
+            }
+        }
+        return lines;
+    }
+
+    // 첫 패킷부터 마지막 패킷까지의 평균 수신 속도
+    private static double packetRate(Stream stream) {
+        long span = stream.lastAt - stream.firstAt;
+        return stream.received < 2 || span <= 0 ? 0 : (stream.received - 1) * 1e9 / span;
+    }
+
+    // {"p50":..,"p90":..,"p99":..,"p999":..,"max":..} (ms)
+    static String latencyJson(Histogram histogram) {
+        StringBuilder json = new StringBuilder("{");
+
+        for (int i = 0; i < QUANTILES.length; i++) {
+            json.append('"').append(QUANTILE_NAMES[i]).append("\":").append(millis(histogram.quantile(QUANTILES[i]))).append(',');
+        }
+        return json.append("\"max\":").append(millis(histogram.max())).append('}').toString();
+    }
+
+    // "p50/p99/max 1.234/5.678/9.012 ms"
+    static String latencyText(Histogram histogram) {
+        if (histogram.count() == 0) {
+            return "n/a";
+        }
+        return "p50/p99/max " + millis(histogram.quantile(0.5)) + "/" + millis(histogram.quantile(0.99)) + "/"
+            + millis(histogram.max()) + " ms";
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / 1e6);
+    }
+}
@@ -0,0 +1,110 @@
+package logging;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// 크기 제한이 있는 로그 파일 (name.log -> name.log.1 -> ... -> name.log.<maxFiles-1> 순으로 밀려나고 가장 오래된 것은 삭제)
+// 기록 스레드만 쓰고, 닫기만 장치 종료 스레드에서 하므로 메서드 단위로 동기화
+final class LogFile {
+    private final Path path;
+    private final long maxBytes;
+    private final int maxFiles;
+    private Writer writer;
+    private long size;
+    private boolean dirty; // 마지막 flush 이후 쓴 내용이 있는지
+
+    LogFile(Path path, long maxBytes, int maxFiles) throws IOException {
+        this.path = path;
+        this.maxBytes = maxBytes;
+        this.maxFiles = Math.max(1, maxFiles);
+
+        Path parent = path.toAbsolutePath().getParent();
+
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        open();
+    }
+
+    // 닫힌 뒤거나 쓰기에 실패하면 false (호출한 쪽이 콘솔로 대신 출력)
+    synchronized boolean write(String line) {
+        if (writer == null) {
+            return false;
+        }
+
+        try {
+            if (size > 0 && size + line.length() > maxBytes) {
+                rotate();
+            }
+            writer.write(line);
+            size += line.length(); // 대부분 ASCII라 문자 수로 충분
+            dirty = true;
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error writing log file " + path + ": " + e.getMessage());
+            closeQuietly();
+            return false;
+        }
+    }
+
+    synchronized void flush() {
+        if (writer == null || !dirty) {
+            return;
+        }
+
+        try {
+            writer.flush();
+            dirty = false;
+        } catch (IOException e) {
+            System.err.println("Error flushing log file " + path + ": " + e.getMessage());
+        }
+    }
+
+    synchronized void close() {
+        flush();
+        closeQuietly();
+    }
+
+    private void open() throws IOException {
+        writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        size = Files.size(path);
+    }
+
+    private void rotate() throws IOException {
+        writer.close();
+
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path older = rotated(i - 1);
+
+            if (Files.exists(older)) {
+                Files.move(older, rotated(i), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxFiles == 1) {
+            Files.deleteIfExists(path);
+        }
+        open();
+    }
+
+    private Path rotated(int index) {
+        return index == 0 ? path : path.resolveSibling(path.getFileName() + "." + index);
+    }
+
+    private void closeQuietly() {
+        if (writer == null) {
+            return;
+        }
+
+        try {
+            writer.close();
+        } catch (IOException e) {
+            // 이미 실패한 파일
+        }
+        writer = null;
+    }
+}
@@ -0,0 +1,195 @@
+package logging;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import clock.Clock;
+
+// 모든 Logger가 함께 쓰는 고정 크기 링 버퍼와 기록 스레드 하나
+// 기록하는 쪽은 CAS로 칸을 하나 차지해 채우고 순번을 써서 공개하며, 가득 차 있으면 기다리지 않고 버림
+// 기록 스레드는 공개된 칸을 순서대로 꺼내 출력하고, 비어 있으면 잠들었다가 다음 기록이 깨움
+final class LogRing {
+    private static final int CAPACITY = 1 << 16; // 2의 거듭제곱
+    private static final int MASK = CAPACITY - 1;
+    private static final int BATCH = 256; // 콘솔에 한 번에 쓰는 최대 줄 수
+    private static final long IDLE_PARK_NS = 100_000_000; // 깨우는 신호를 놓쳐도 이 시간 뒤에는 확인
+    private static final long FLUSH_TIMEOUT_MS = 1000;
+    private static final long DROP_REPORT_MS = 1000; // 버린 수를 알리는 최소 간격
+    private static final DateTimeFormatter SECOND_FORMAT =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    static final LogRing INSTANCE = new LogRing();
+
+    // 미리 만들어 두고 계속 재사용하는 칸
+    private static final class Slot {
+        private volatile long sequence; // 채워진 순번 + 1 (기록 스레드가 이 값을 보고 꺼냄)
+        private long time;
+        private Logger.Level level;
+        private Logger logger;
+        private String message;
+    }
+
+    private final Slot[] slots;
+    private final AtomicLong head; // 다음에 차지할 순번
+    private volatile long tail; // 다음에 출력할 순번 (기록 스레드만 씀)
+    private final LongAdder dropped; // 가득 차서 버린 수
+    private final Thread writer;
+    private volatile boolean sleeping;
+    private long formattedSecond = -1; // 기록 스레드 전용, 초 단위 시각 문자열 캐시
+    private String secondText;
+
+    private LogRing() {
+        this.slots = new Slot[CAPACITY];
+        this.head = new AtomicLong();
+        this.dropped = new LongAdder();
+
+        for (int i = 0; i < CAPACITY; i++) {
+            slots[i] = new Slot();
+        }
+
+        this.writer = Thread.ofPlatform().name("log-writer").daemon(true).unstarted(this::drain);
+        writer.start();
+
+        // 종료할 때 남은 기록을 출력 (장치별 Logger는 장치를 닫을 때 먼저 비움)
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> awaitWritten(head.get())));
+    }
+
+    // 칸이 있으면 넣고 true, 가득 찼으면 버리고 false (기다리지 않음)
+    boolean offer(Logger logger, Logger.Level level, String message) {
+        long claim;
+
+        do {
+            claim = head.get();
+
+            if (claim - tail >= CAPACITY) {
+                dropped.increment();
+                return false;
+            }
+        } while (!head.compareAndSet(claim, claim + 1));
+
+        Slot slot = slots[(int) claim & MASK];
+        slot.time = Clock.millis();
+        slot.level = level;
+        slot.logger = logger;
+        slot.message = message;
+        slot.sequence = claim + 1; // 공개
+
+        if (sleeping) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    // 지금까지 차지된 기록이 모두 출력될 때까지 대기 (최대 FLUSH_TIMEOUT_MS)
+    void flush() {
+        awaitWritten(head.get());
+    }
+
+    private void awaitWritten(long sequence) {
+        long deadline = System.currentTimeMillis() + FLUSH_TIMEOUT_MS;
+
+        while (tail < sequence && System.currentTimeMillis() < deadline) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(1_000_000);
+        }
+    }
+
+    private void drain() {
+        StringBuilder out = new StringBuilder();
+        StringBuilder err = new StringBuilder();
+        long next = 0;
+        long reportedDrops = 0;
+        long reportedAt = 0;
+
+        while (true) {
+            int written = 0;
+
+            for (Slot slot = slots[(int) next & MASK]; written < BATCH && slot.sequence == next + 1; slot = slots[(int) next & MASK]) {
+                write(slot.logger, slot.level, slot.time, slot.message, out, err);
+                slot.logger = null;
+                slot.message = null;
+                tail = ++next;
+                written++;
+            }
+
+            long drops = dropped.sum();
+            long now = System.currentTimeMillis();
+
+            if (drops != reportedDrops && (now - reportedAt >= DROP_REPORT_MS || written < BATCH)) {
+                err.append(format(now, Logger.Level.WARN, "", (drops - reportedDrops) + " log entries dropped, buffer full"));
+                reportedDrops = drops;
+                reportedAt = now;
+            }
+            printConsole(out, err);
+
+            if (written == BATCH) {
+                continue;
+            }
+
+            // 차지만 되고 아직 채워지지 않은 칸은 곧 공개되므로 잠들지 않고 기다림
+            if (head.get() != next) {
+                Thread.onSpinWait();
+                continue;
+            }
+
+            Logger.flushFiles();
+            sleeping = true;
+
+            if (head.get() == next) {
+                LockSupport.parkNanos(IDLE_PARK_NS);
+            }
+            sleeping = false;
+        }
+    }
+
+    // 파일이 있는 Logger는 파일로, 없으면 WARN 이상은 stderr, 나머지는 stdout으로
+    private void write(Logger logger, Logger.Level level, long time, String message, StringBuilder out, StringBuilder err) {
+        String line = format(time, level, logger.getName(), message);
+
+        if (logger.writeFile(line)) {
+            return;
+        }
+        (level.compareTo(Logger.Level.WARN) >= 0 ? err : out).append(line);
+    }
+
+    private String format(long time, Logger.Level level, String name, String message) {
+        StringBuilder line = new StringBuilder(message.length() + 48);
+        long second = Math.floorDiv(time, 1000);
+        int millis = Math.floorMod(time, 1000);
+
+        if (second != formattedSecond) {
+            secondText = SECOND_FORMAT.format(Instant.ofEpochSecond(second));
+            formattedSecond = second;
+        }
+
+        line.append(secondText).append('.').append((char) ('0' + millis / 100)).append((char) ('0' + millis / 10 % 10))
+            .append((char) ('0' + millis % 10)).append(' ').append(level).append(level.name().length() == 4 ? "  " : " ");
+
+        if (!name.isEmpty()) {
+            line.append('[').append(name).append("] ");
+        }
+        return line.append(message).append('\n').toString();
+    }
+
+    // 모은 줄을 한 번에 출력 (테스트/벤치마크에서 System.out을 바꿔도 따라감)
+    private static void printConsole(StringBuilder out, StringBuilder err) {
+        if (out.length() > 0) {
+            System.out.print(out);
+            System.out.flush();
+            out.setLength(0);
+        }
+        if (err.length() > 0) {
+            System.err.print(err);
+            System.err.flush();
+            err.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package logging;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+// 장치별 로그 (이름, 수준, 패킷 단위 기록의 표본 비율, 선택적인 회전 파일)
+// 기록은 공용 링 버퍼에 넣기만 하고 바로 돌아가므로 잠금 안이나 전달 경로에서 불러도 출력을 기다리지 않음
+// 버퍼가 가득 차면 기록을 버림 (버린 수는 기록 스레드가 나중에 한 줄로 알림)
+// 수준이 꺼져 있으면 문자열을 만들지 않도록 호출하는 쪽에서 isEnabled로 먼저 확인
+// 패킷마다 생기는 기록은 samplePacket으로 표본을 골라 그 패킷의 줄만 남김
+public final class Logger implements AutoCloseable {
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR, OFF;
+
+        public static Level parse(String value) {
+            try {
+                return valueOf(value.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown log level: " + value);
+            }
+        }
+    }
+
+    private static final Logger ROOT = new Logger("", Level.INFO, 1);
+    private static final List<LogFile> FILES = new CopyOnWriteArrayList<>(); // 기록 스레드가 쉴 때 flush할 파일
+
+    private final String name;
+    private final Level level;
+    private final int sampleRate; // 패킷 단위 기록은 평균 sampleRate개 중 하나만
+    private final LogFile file; // 없으면 콘솔
+
+    public Logger(String name, Level level, int sampleRate) {
+        this.name = name;
+        this.level = level;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.file = null;
+    }
+
+    // maxBytes를 넘으면 회전하고 최근 maxFiles개까지 보관
+    public Logger(String name, Level level, int sampleRate, Path path, long maxBytes, int maxFiles) throws IOException {
+        this.name = name;
+        this.level = level;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.file = new LogFile(path, maxBytes, maxFiles);
+        FILES.add(file);
+    }
+
+    // 장치에 속하지 않는 코드(패킷 해석, 전송 계층)가 쓰는 기본 로그
+    public static Logger root() {
+        return ROOT;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.compareTo(this.level) >= 0 && level != Level.OFF;
+    }
+
+    // 이 패킷의 처리 과정을 기록할지 (패킷마다 한 번 정하고 그 패킷의 모든 줄에 적용)
+    public boolean samplePacket() {
+        return sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+    }
+
+    public void debug(String message) {
+        log(Level.DEBUG, message);
+    }
+
+    public void info(String message) {
+        log(Level.INFO, message);
+    }
+
+    public void warn(String message) {
+        log(Level.WARN, message);
+    }
+
+    public void error(String message) {
+        log(Level.ERROR, message);
+    }
+
+    public void log(Level level, String message) {
+        if (isEnabled(level)) {
+            LogRing.INSTANCE.offer(this, level, message);
+        }
+    }
+
+    // 가득 차서 버린 기록 수 (모든 Logger 합계)
+    public static long dropped() {
+        return LogRing.INSTANCE.dropped();
+    }
+
+    // 지금까지의 기록이 출력될 때까지 대기
+    public void flush() {
+        LogRing.INSTANCE.flush();
+
+        if (file != null) {
+            file.flush();
+        }
+    }
+
+    // 남은 기록을 출력하고 파일을 닫음 (이후 기록은 콘솔로)
+    @Override
+    public void close() {
+        LogRing.INSTANCE.flush();
+
+        if (file != null) {
+            FILES.remove(file);
+            file.close();
+        }
+    }
+
+    boolean writeFile(String line) {
+        return file != null && file.write(line);
+    }
+
+    static void flushFiles() {
+        for (LogFile file : FILES) {
+            file.flush();
+        }
+    }
+}
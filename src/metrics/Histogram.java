@@ -0,0 +1,103 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// 지연 시간 히스토그램 (HDR 방식의 로그-선형 구간, 값은 ns)
+// 2의 거듭제곱 구간마다 16개로 나눠 상대 오차 1/16 이하, 기록은 잠금 없이 배열 원소 하나만 증가
+public class Histogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS; // 2의 거듭제곱 구간 하나를 나누는 수
+    private static final int LINEAR = 2 * SUB_COUNT; // 이 값 미만은 1ns 단위 구간
+    private static final int BUCKETS = SUB_COUNT * (63 - SUB_BITS) + LINEAR;
+
+    private final AtomicLongArray counts;
+    private final LongAdder count;
+    private final LongAdder sum;
+    private final LongAccumulator max;
+
+    public Histogram() {
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.count = new LongAdder();
+        this.sum = new LongAdder();
+        this.max = new LongAccumulator(Math::max, 0);
+    }
+
+    // 값 하나 기록 (음수는 0으로)
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    // 시작 시각(System.nanoTime)부터 지금까지를 기록
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long sum() {
+        return sum.sum();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    // q 분위수 (0~1)가 속한 구간의 상한, 기록이 없으면 0
+    // 기록 중에 읽으면 구간 합과 count가 조금 어긋날 수 있지만 관측용으로는 충분함
+    public long quantile(double q) {
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max());
+            }
+        }
+        return max();
+    }
+
+    // 값이 들어갈 구간
+    // 32 미만은 값 그대로, 그 위는 최상위 비트 아래 SUB_BITS 비트로 나눔 (구간 폭 2^shift)
+    static int index(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return SUB_COUNT * shift + (int) (value >>> shift);
+    }
+
+    // 구간에 들어가는 가장 큰 값
+    static long upperBound(int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+
+        int shift = index / SUB_COUNT - 1;
+        long low = (long) (index % SUB_COUNT + SUB_COUNT) << shift;
+        return low + (1L << shift) - 1;
+    }
+}
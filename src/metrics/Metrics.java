@@ -0,0 +1,126 @@
+package metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+// 장치 하나의 카운터/게이지/히스토그램 모음
+// 등록은 장치를 시작할 때만 하고, 갱신은 잠금 없이 LongAdder/히스토그램에 직접 함
+// 출력은 Prometheus 텍스트 형식 (이름 앞에 "dockernet_", 히스토그램은 초 단위 summary)
+public class Metrics {
+    private static final String PREFIX = "dockernet_";
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+    // 이름 하나에 해당하는 출력 묶음
+    private interface Family {
+        void write(StringBuilder out);
+    }
+
+    // 라벨 값별 카운터 (라벨 값은 처음 쓸 때 생김)
+    public static class Counters<K> {
+        private final Map<K, LongAdder> counters;
+        private final Function<K, String> format; // 라벨 값 출력 형식
+
+        private Counters(Function<K, String> format) {
+            this.counters = new ConcurrentHashMap<>();
+            this.format = format;
+        }
+
+        public LongAdder get(K key) {
+            LongAdder counter = counters.get(key);
+            return counter != null ? counter : counters.computeIfAbsent(key, k -> new LongAdder());
+        }
+
+        public void increment(K key) {
+            get(key).increment();
+        }
+
+        public void forEach(BiConsumer<K, Long> visitor) {
+            counters.forEach((key, counter) -> visitor.accept(key, counter.sum()));
+        }
+    }
+
+    private final List<Family> families;
+
+    public Metrics() {
+        this.families = new ArrayList<>();
+    }
+
+    public LongAdder counter(String name, String help) {
+        LongAdder counter = new LongAdder();
+        add(name, help, "counter", out -> sample(out, name, "", counter.sum()));
+        return counter;
+    }
+
+    // 라벨 하나로 나뉜 카운터 (예: 다음 홉별 전달 수)
+    public <K> Counters<K> counters(String name, String help, String label, Function<K, String> format) {
+        Counters<K> counters = new Counters<>(format);
+        add(name, help, "counter", out -> counters.counters.forEach((key, counter) ->
+            sample(out, name, label(label, counters.format.apply(key)), counter.sum())));
+        return counters;
+    }
+
+    // 읽을 때 값을 계산하는 게이지 (예: 라우팅 테이블 크기)
+    public void gauge(String name, String help, LongSupplier value) {
+        add(name, help, "gauge", out -> sample(out, name, "", value.getAsLong()));
+    }
+
+    // 라벨 값별 게이지, values가 읽을 때마다 (라벨 값, 값)을 넘겨줌 (예: 이웃별 링크 비용)
+    public void gauges(String name, String help, String label, Consumer<BiConsumer<String, Number>> values) {
+        add(name, help, "gauge", out -> values.accept((key, value) -> sample(out, name, label(label, key), value)));
+    }
+
+    // ns로 기록하고 초 단위 분위수/합/개수로 출력
+    public Histogram histogram(String name, String help) {
+        Histogram histogram = new Histogram();
+
+        add(name, help, "summary", out -> {
+            for (double q : QUANTILES) {
+                sample(out, name, label("quantile", String.valueOf(q)), seconds(histogram.quantile(q)));
+            }
+            sample(out, name + "_sum", "", seconds(histogram.sum()));
+            sample(out, name + "_count", "", histogram.count());
+        });
+        return histogram;
+    }
+
+    // Prometheus 텍스트 형식 출력
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder();
+
+        synchronized (families) {
+            for (Family family : families) {
+                family.write(out);
+            }
+        }
+        return out.toString();
+    }
+
+    private void add(String name, String help, String type, Family samples) {
+        synchronized (families) {
+            families.add(out -> {
+                out.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+                out.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+                samples.write(out);
+            });
+        }
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, Object value) {
+        out.append(PREFIX).append(name).append(labels).append(' ').append(value).append('\n');
+    }
+
+    private static String label(String name, String value) {
+        return "{" + name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+}
@@ -0,0 +1,84 @@
+package routing;
+
+// int로 인코딩한 IPv4 주소 및 CIDR 접두사 처리
+public final class IPv4 {
+    private IPv4() {
+    }
+
+    // "a.b.c.d" -> int (문자열 분할 없이 직접 파싱)
+    public static int parse(String ip) {
+        int address = 0;
+        int octet = 0;
+        int octets = 0;
+        boolean digit = false;
+
+        for (int i = 0; i < ip.length(); i++) {
+            char c = ip.charAt(i);
+
+            if (c >= '0' && c <= '9') {
+                octet = octet * 10 + (c - '0');
+                digit = true;
+
+                if (octet > 255) {
+                    throw new IllegalArgumentException("Invalid IPv4 address: " + ip);
+                }
+            } else if (c == '.' && digit && octets < 3) {
+                address = (address << 8) | octet;
+                octet = 0;
+                octets++;
+                digit = false;
+            } else {
+                throw new IllegalArgumentException("Invalid IPv4 address: " + ip);
+            }
+        }
+
+        if (!digit || octets != 3) {
+            throw new IllegalArgumentException("Invalid IPv4 address: " + ip);
+        }
+        return (address << 8) | octet;
+    }
+
+    // int -> "a.b.c.d"
+    public static String format(int address) {
+        return ((address >>> 24) & 0xFF) + "." + ((address >>> 16) & 0xFF) + "."
+            + ((address >>> 8) & 0xFF) + "." + (address & 0xFF);
+    }
+
+    // 접두사 길이에 해당하는 넷마스크
+    public static int mask(int prefixLength) {
+        return prefixLength == 0 ? 0 : -1 << (32 - prefixLength);
+    }
+
+    // "a.b.c.d/len" 또는 "a.b.c.d"(= /32) 의 주소 부분
+    public static int prefixAddress(String prefix) {
+        int slash = prefix.indexOf('/');
+        int address = parse(slash < 0 ? prefix : prefix.substring(0, slash));
+        return address & mask(prefixLength(prefix));
+    }
+
+    // "a.b.c.d/len" 또는 "a.b.c.d"(= /32) 의 접두사 길이
+    public static int prefixLength(String prefix) {
+        int slash = prefix.indexOf('/');
+
+        if (slash < 0) {
+            return 32;
+        }
+
+        int length = Integer.parseInt(prefix.substring(slash + 1));
+
+        if (length < 0 || length > 32) {
+            throw new IllegalArgumentException("Invalid prefix length: " + prefix);
+        }
+        return length;
+    }
+
+    // 정규화된 "a.b.c.d/len" 문자열
+    public static String formatPrefix(int address, int prefixLength) {
+        return format(address & mask(prefixLength)) + "/" + prefixLength;
+    }
+
+    // 주소가 속한 서브넷 접두사 (예: 10.10.1.2, 24 -> 10.10.1.0/24)
+    public static String subnet(String ip, int prefixLength) {
+        return formatPrefix(parse(ip), prefixLength);
+    }
+}
@@ -0,0 +1,670 @@
+package routing;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+
+import clock.Clock;
+import logging.Logger;
+
+// int로 인코딩한 주소를 개방 주소법 해시에 병렬 원시 배열로 저장하는 라우팅 테이블
+// 경로마다 객체를 만들지 않으므로 큰 테이블에서도 힙/GC 부담이 작음
+// 슬롯 배열을 두 벌 두고(이중 버퍼) 갱신은 작업용 배열에만 쓰며, 조회와 광고는 publish로 공개된 배열만 읽음
+// publish는 작업용 배열을 volatile 쓰기 한 번으로 공개한 뒤, 이번 묶음에서 바뀐 경로만 반대편 배열에 옮겨 적음
+// 조회는 낙관적 읽기 후 버전 검증 (seqlock), 교체 직전에 옛 배열을 읽던 조회는 검증에 실패해 다시 읽음
+public class IntRoutingTable implements RoutingTable {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_LOAD_PERCENT = 75;
+
+    // 경로 기록 규칙
+    private static final int IMPROVE = 0; // 더 짧은 거리일 때만
+    private static final int REPLACE = 1; // 값이 다르면 항상
+    private static final int LEARN = 2; // 더 짧은 거리이거나 현재 다음 홉이 다시 광고할 때
+
+    // 크기 변경 시 통째로 교체되는 슬롯 배열 묶음 (읽는 쪽이 섞인 배열을 보지 않도록)
+    private static class Slots {
+        private final int[] lengthCounts = new int[33]; // 접두사 길이별 경로 수 (최장 일치 탐색 범위)
+        private final int[] addresses;
+        private final byte[] lengths; // 접두사 길이 + 1 (0이면 빈 슬롯)
+        private final int[] distances;
+        private final int[] hops;
+        private final int[] nextHops;
+        private final boolean[] dirty; // 아직 광고하지 않은 변경 경로
+        private final long[] updatedAt; // 마지막으로 광고를 받은 시각(ms)
+        private final Multipath[] alternates; // ECMP 다음 홉 (다른 다음 홉이 있는 경로만 객체가 생김)
+        private int size;
+        private int dirtyCount;
+        private long version; // 이 배열을 공개할 때의 FIB 버전
+
+        private Slots(int capacity) {
+            addresses = new int[capacity];
+            lengths = new byte[capacity];
+            distances = new int[capacity];
+            hops = new int[capacity];
+            nextHops = new int[capacity];
+            dirty = new boolean[capacity];
+            updatedAt = new long[capacity];
+            alternates = new Multipath[capacity];
+        }
+    }
+
+    private final StampedLock lock; // 공개 배열 교체와 조회 사이의 seqlock
+    private Slots working; // 갱신용 (this로 동기화)
+    private volatile Slots published; // 조회용 (다음 교체 전까지 바뀌지 않음)
+    private long[] pending; // 마지막 교체 이후 작업용 배열에서 바뀐 경로 키 (주소 << 8 | 접두사 길이, 중복 허용)
+    private int pendingCount;
+    private boolean copyAll; // 바뀐 경로가 너무 많아 다음 교체 때 배열을 통째로 복사
+    private final int maxAlternates; // 대표 경로 외에 둘 ECMP 다음 홉 수
+    private final int slack; // 대표 거리보다 이만큼까지 긴 경로는 같은 비용으로 취급
+    private final Logger log; // 경로 변경 기록
+    private boolean modified; // 마지막 publish 이후 조회 결과가 바뀌는 변경이 있는지
+
+    public IntRoutingTable() {
+        this(1, 0);
+    }
+
+    public IntRoutingTable(int maxPaths, int slack) {
+        this(maxPaths, slack, Logger.root());
+    }
+
+    public IntRoutingTable(int maxPaths, int slack, Logger log) {
+        this.log = log;
+        this.maxAlternates = Math.max(0, maxPaths - 1);
+        this.slack = Math.max(0, slack);
+        this.lock = new StampedLock();
+        this.working = new Slots(INITIAL_CAPACITY);
+        this.published = new Slots(INITIAL_CAPACITY);
+        this.pending = new long[INITIAL_CAPACITY];
+    }
+
+    @Override
+    public boolean improve(int address, int prefixLength, int distance, int hops, int nextHop) {
+        return set(address & IPv4.mask(prefixLength), prefixLength, distance, hops, nextHop, Multipath.NONE,
+            IMPROVE, Clock.millis());
+    }
+
+    // 규칙에 따라 경로 기록, 반영했으면 true (REPLACE는 alternates까지 설정)
+    private boolean set(int address, int prefixLength, int distance, int hops, int nextHop, Multipath alternates,
+            int rule, long now) {
+        String alternateChange = null; // ECMP 다음 홉만 바뀌었으면 동기화를 푼 뒤 출력할 기록
+
+        synchronized (this) {
+            Slots s = working;
+            int slot = slot(s, address, prefixLength);
+
+            if (s.lengths[slot] != 0) {
+                // 도달 불가끼리는 홉 수가 달라도 같은 값으로 취급 (독성 광고끼리 계속 갱신되지 않도록)
+                boolean same = s.nextHops[slot] == nextHop && (s.distances[slot] >= INFINITY && distance >= INFINITY
+                    || s.distances[slot] == distance && s.hops[slot] == hops);
+                Multipath current = s.alternates[slot];
+
+                if (rule == LEARN && s.nextHops[slot] != nextHop && distance >= s.distances[slot]) {
+                    // 다른 이웃의 더 짧지 않은 광고는 ECMP 다음 홉으로만 반영 (직접 연결된 서브넷 제외)
+                    if (s.hops[slot] == 0) {
+                        return false;
+                    }
+
+                    Multipath offered = current.offer(nextHop, distance, hops, now, s.distances[slot], slack, maxAlternates);
+                    s.alternates[slot] = offered;
+                    touch(address, prefixLength);
+
+                    if (offered.sameRoutes(current)) {
+                        return false;
+                    }
+                    alternateChange = (offered.indexOf(nextHop) >= 0 ? "Equal-cost path added: " : "Equal-cost path removed: ")
+                        + IPv4.formatPrefix(address, prefixLength) + " via " + IPv4.format(nextHop);
+                } else if (rule == REPLACE && same) {
+                    alternates = limit(alternates.without(nextHop));
+
+                    if (current.sameRoutes(alternates)) {
+                        return false;
+                    }
+                    s.alternates[slot] = alternates; // ECMP 다음 홉만 바뀌면 광고할 내용은 그대로
+                    touch(address, prefixLength);
+                    alternateChange = "Equal-cost paths updated: " + IPv4.formatPrefix(address, prefixLength);
+                } else {
+                    switch (rule) {
+                        case REPLACE:
+                            alternates = limit(alternates.without(nextHop));
+                            break;
+                        case LEARN:
+                            if (same) {
+                                if (distance < INFINITY) {
+                                    s.updatedAt[slot] = now; // 값은 그대로, 갱신 시각만 새로 기록
+                                    touch(address, prefixLength);
+                                }
+                                return false;
+                            }
+                            if (s.nextHops[slot] != nextHop) {
+                                // 더 짧은 경로로 교체, 이전 대표 경로도 허용 범위 안이면 ECMP 다음 홉으로 남김
+                                alternates = current.without(nextHop).within(distance, slack);
+
+                                if (s.distances[slot] < INFINITY) {
+                                    alternates = alternates.offer(s.nextHops[slot], s.distances[slot], s.hops[slot],
+                                        s.updatedAt[slot], distance, slack, maxAlternates);
+                                }
+                                break;
+                            }
+
+                            // 대표 경로가 나빠졌는데 더 짧은 ECMP 다음 홉이 있으면 그것을 대표로 올림
+                            int best = current.best();
+
+                            if (best >= 0 && current.getDistance(best) < distance) {
+                                alternates = current.without(current.getNextHop(best)).within(current.getDistance(best), slack)
+                                    .offer(nextHop, distance, hops, now, current.getDistance(best), slack, maxAlternates);
+                                nextHop = current.getNextHop(best);
+                                distance = current.getDistance(best);
+                                hops = current.getHops(best);
+                                now = current.getUpdatedAt(best);
+                            } else {
+                                alternates = current.within(distance, slack);
+                            }
+                            break;
+                        default:
+                            if (distance >= s.distances[slot]) {
+                                return false;
+                            }
+                            // LEARN과 같이 새 대표는 ECMP 다음 홉에서 빼고, 이전 대표는 허용 범위 안이면 남김
+                            alternates = current.without(nextHop).within(distance, slack);
+
+                            if (s.nextHops[slot] != nextHop && s.distances[slot] < INFINITY) {
+                                alternates = alternates.offer(s.nextHops[slot], s.distances[slot], s.hops[slot],
+                                    s.updatedAt[slot], distance, slack, maxAlternates);
+                            }
+                            break;
+                    }
+                }
+            } else {
+                if (distance >= INFINITY) {
+                    return false;
+                }
+                if ((s.size + 1) * 100 > s.addresses.length * MAX_LOAD_PERCENT) {
+                    s = resize(s.addresses.length * 2);
+                    slot = slot(s, address, prefixLength);
+                }
+                s.addresses[slot] = address;
+                s.lengths[slot] = (byte) (prefixLength + 1);
+                s.lengthCounts[prefixLength]++;
+                s.size++;
+                alternates = limit(alternates.without(nextHop));
+            }
+
+            if (alternateChange == null) {
+                s.distances[slot] = distance;
+                s.hops[slot] = hops;
+                s.nextHops[slot] = nextHop;
+                s.updatedAt[slot] = now;
+                s.alternates[slot] = alternates;
+
+                if (!s.dirty[slot]) {
+                    s.dirty[slot] = true;
+                    s.dirtyCount++;
+                }
+                touch(address, prefixLength);
+            }
+            modified = true;
+        }
+
+        if (!log.isEnabled(Logger.Level.INFO)) {
+            return true;
+        }
+        if (alternateChange != null) {
+            log.info(alternateChange);
+        } else if (distance < INFINITY) {
+            log.info("Route added/updated: " + IPv4.formatPrefix(address, prefixLength)
+                + " via " + IPv4.format(nextHop) + " with distance " + distance + " and hops " + hops);
+        } else {
+            log.info("Route unreachable: " + IPv4.formatPrefix(address, prefixLength) + " via " + IPv4.format(nextHop));
+        }
+        return true;
+    }
+
+    @Override
+    public boolean replace(int address, int prefixLength, int distance, int hops, int nextHop, Multipath alternates) {
+        return set(address & IPv4.mask(prefixLength), prefixLength, distance, hops, nextHop, alternates,
+            REPLACE, Clock.millis());
+    }
+
+    @Override
+    public boolean learn(int address, int prefixLength, int distance, int hops, int nextHop, long now) {
+        return set(address & IPv4.mask(prefixLength), prefixLength, distance, hops, nextHop, Multipath.NONE, LEARN, now);
+    }
+
+    @Override
+    public int expire(long now, long timeoutMs, long gcMs) {
+        int expired = 0;
+
+        synchronized (this) {
+            Slots s = working;
+
+            // 삭제하면 뒤의 항목이 당겨지므로 같은 슬롯을 다시 검사 (이미 본 항목을 다시 봐도 결과는 같음)
+            for (int slot = 0; slot < s.addresses.length; ) {
+                if (s.lengths[slot] == 0 || s.hops[slot] == 0) {
+                    slot++;
+                    continue;
+                }
+
+                int prefixLength = s.lengths[slot] - 1;
+                long age = now - s.updatedAt[slot];
+                Multipath alternates = s.alternates[slot].expire(now, timeoutMs);
+
+                if (alternates != s.alternates[slot]) {
+                    s.alternates[slot] = alternates;
+                    touch(s.addresses[slot], prefixLength);
+                    expired++;
+                }
+
+                if (s.distances[slot] < INFINITY && age > timeoutMs) {
+                    int best = alternates.best();
+
+                    if (best >= 0) {
+                        // 남은 ECMP 다음 홉 중 가장 짧은 것을 대표로
+                        s.distances[slot] = alternates.getDistance(best);
+                        s.hops[slot] = alternates.getHops(best);
+                        s.nextHops[slot] = alternates.getNextHop(best);
+                        s.updatedAt[slot] = alternates.getUpdatedAt(best);
+                        s.alternates[slot] = alternates.without(s.nextHops[slot]).within(s.distances[slot], slack);
+                    } else {
+                        s.distances[slot] = INFINITY;
+                        s.updatedAt[slot] = now;
+                    }
+
+                    if (!s.dirty[slot]) {
+                        s.dirty[slot] = true;
+                        s.dirtyCount++;
+                    }
+                    touch(s.addresses[slot], prefixLength);
+                    expired++;
+                    log.info("Route timed out: " + IPv4.formatPrefix(s.addresses[slot], prefixLength));
+                } else if (s.distances[slot] >= INFINITY && age > gcMs) {
+                    if (s.dirty[slot]) {
+                        s.dirtyCount--;
+                    }
+                    s.lengthCounts[prefixLength]--;
+                    s.size--;
+                    touch(s.addresses[slot], prefixLength);
+                    expired++;
+                    log.info("Route removed: " + IPv4.formatPrefix(s.addresses[slot], prefixLength));
+                    delete(s, slot);
+                    continue;
+                }
+                slot++;
+            }
+            modified |= expired > 0;
+        }
+        return expired;
+    }
+
+    @Override
+    public boolean remove(int address, int prefixLength) {
+        address &= IPv4.mask(prefixLength);
+
+        synchronized (this) {
+            Slots s = working;
+            int slot = slot(s, address, prefixLength);
+
+            if (s.lengths[slot] == 0) {
+                return false;
+            }
+            if (s.dirty[slot]) {
+                s.dirtyCount--;
+            }
+            s.lengthCounts[prefixLength]--;
+            s.size--;
+            touch(address, prefixLength);
+            modified = true;
+            delete(s, slot);
+        }
+
+        log.info("Route removed: " + IPv4.formatPrefix(address, prefixLength));
+        return true;
+    }
+
+    // 선형 탐사 삭제: 빈 칸 뒤의 항목 중 원래 자리로 가는 길이 끊기는 것을 앞으로 당김
+    private static void delete(Slots s, int slot) {
+        int mask = s.addresses.length - 1;
+        int hole = slot;
+        int next = slot;
+
+        clear(s, hole);
+
+        while (true) {
+            next = (next + 1) & mask;
+
+            if (s.lengths[next] == 0) {
+                return;
+            }
+
+            int home = hash(s.addresses[next], s.lengths[next] - 1) & mask;
+            boolean stays = hole <= next
+                ? hole < home && home <= next
+                : hole < home || home <= next;
+
+            if (!stays) {
+                copy(s, next, s, hole);
+                clear(s, next);
+                hole = next;
+            }
+        }
+    }
+
+    private static void clear(Slots s, int slot) {
+        s.lengths[slot] = 0;
+        s.dirty[slot] = false;
+        s.alternates[slot] = null;
+    }
+
+    @Override
+    public synchronized void publish() {
+        if (!modified) {
+            return; // 갱신 시각만 바뀐 경로는 다음 교체 때 함께 옮겨 적음
+        }
+        modified = false;
+
+        Slots previous = published;
+        Slots next = working;
+        next.version = previous.version + 1;
+
+        // 쓰기 잠금은 옛 배열을 읽던 낙관적 읽기를 무효화하는 데만 쓰고, 옮겨 적기는 잠금 밖에서 함
+        long stamp = lock.writeLock();
+        published = next;
+        lock.unlockWrite(stamp);
+
+        working = catchUp(next, previous);
+    }
+
+    // 직전에 공개했던 배열을 방금 공개한 배열과 같게 맞춰 새 작업용으로 씀
+    // 바뀐 경로만 옮겨 적고, 기록이 넘쳤거나 크기가 바뀌었으면 통째로 복사
+    private Slots catchUp(Slots from, Slots to) {
+        if (copyAll || to.addresses.length != from.addresses.length) {
+            if (to.addresses.length != from.addresses.length) {
+                to = new Slots(from.addresses.length);
+            }
+            System.arraycopy(from.addresses, 0, to.addresses, 0, from.addresses.length);
+            System.arraycopy(from.lengths, 0, to.lengths, 0, from.lengths.length);
+            System.arraycopy(from.distances, 0, to.distances, 0, from.distances.length);
+            System.arraycopy(from.hops, 0, to.hops, 0, from.hops.length);
+            System.arraycopy(from.nextHops, 0, to.nextHops, 0, from.nextHops.length);
+            System.arraycopy(from.dirty, 0, to.dirty, 0, from.dirty.length);
+            System.arraycopy(from.updatedAt, 0, to.updatedAt, 0, from.updatedAt.length);
+            System.arraycopy(from.alternates, 0, to.alternates, 0, from.alternates.length);
+        } else {
+            // 없어진 경로를 먼저 지워서 옮겨 적는 동안 부하율이 공개된 배열보다 높아지지 않도록
+            for (int i = 0; i < pendingCount; i++) {
+                int address = (int) (pending[i] >>> 8);
+                int prefixLength = (int) pending[i] & 0xFF;
+                int slot = slot(to, address, prefixLength);
+
+                if (to.lengths[slot] != 0 && from.lengths[slot(from, address, prefixLength)] == 0) {
+                    delete(to, slot);
+                }
+            }
+            for (int i = 0; i < pendingCount; i++) {
+                int address = (int) (pending[i] >>> 8);
+                int prefixLength = (int) pending[i] & 0xFF;
+                int slot = slot(from, address, prefixLength);
+
+                if (from.lengths[slot] != 0) {
+                    copy(from, slot, to, slot(to, address, prefixLength));
+                }
+            }
+        }
+        System.arraycopy(from.lengthCounts, 0, to.lengthCounts, 0, from.lengthCounts.length);
+        to.size = from.size;
+        to.dirtyCount = from.dirtyCount;
+        pendingCount = 0;
+        copyAll = false;
+        return to;
+    }
+
+    // 작업용 배열에서 바뀐 경로를 기록 (다음 교체 때 반대편 배열에 옮겨 적을 대상)
+    // 테이블 크기만큼 쌓이면 기록을 멈추고 통째로 복사하는 편이 나음
+    private void touch(int address, int prefixLength) {
+        if (copyAll) {
+            return;
+        }
+        if (pendingCount == pending.length) {
+            if (pending.length >= working.addresses.length) {
+                copyAll = true;
+                return;
+            }
+            pending = Arrays.copyOf(pending, pending.length * 2);
+        }
+        pending[pendingCount++] = (long) address << 8 | prefixLength;
+    }
+
+    @Override
+    public long getVersion() {
+        return published.version;
+    }
+
+    @Override
+    public RoutingInfo get(int address) {
+        long stamp = lock.tryOptimisticRead();
+
+        if (stamp != 0) {
+            RoutingInfo route = lookup(address);
+
+            if (lock.validate(stamp)) {
+                return route;
+            }
+        }
+
+        // 읽는 도중 공개 배열이 교체되었으면 읽기 잠금으로 다시 조회
+        stamp = lock.readLock();
+        try {
+            return lookup(address);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private RoutingInfo lookup(int address) {
+        Slots s = published;
+        int slot = match(s, address);
+
+        if (slot < 0) {
+            return null;
+        }
+
+        Multipath alternates = s.alternates[slot]; // 교체 직후 옮겨 적는 중인 옛 배열은 지워진 슬롯을 보일 수 있음 (검증에서 버려짐)
+        return new RoutingInfo(s.distances[slot], s.hops[slot], s.nextHops[slot], s.updatedAt[slot],
+            alternates == null ? Multipath.NONE : alternates);
+    }
+
+    // 전달 경로용: 슬롯에서 바로 다음 홉을 읽으므로 객체를 만들지 않음
+    @Override
+    public int nextHop(int address) {
+        return nextHop(address, 0, false);
+    }
+
+    @Override
+    public int nextHop(int address, int flowHash) {
+        return nextHop(address, flowHash, true);
+    }
+
+    private int nextHop(int address, int flowHash, boolean multipath) {
+        long stamp = lock.tryOptimisticRead();
+
+        if (stamp != 0) {
+            int nextHop = selectNextHop(address, flowHash, multipath);
+
+            if (lock.validate(stamp)) {
+                return nextHop;
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return selectNextHop(address, flowHash, multipath);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private int selectNextHop(int address, int flowHash, boolean multipath) {
+        Slots s = published;
+        int slot = match(s, address);
+
+        if (slot < 0) {
+            return NO_ROUTE;
+        }
+
+        Multipath alternates = s.alternates[slot];
+        return multipath && alternates != null ? alternates.select(s.nextHops[slot], flowHash) : s.nextHops[slot];
+    }
+
+    // 최장 일치 슬롯, 없으면 -1 (사용 중인 접두사 길이만 긴 것부터 탐색, 도달 불가 경로는 건너뛰고 더 짧은 접두사 사용)
+    private int match(Slots s, int address) {
+        for (int length = 32; length >= 0; length--) {
+            if (s.lengthCounts[length] == 0) {
+                continue;
+            }
+
+            int slot = slot(s, address & IPv4.mask(length), length);
+
+            if (s.lengths[slot] != 0 && s.distances[slot] < INFINITY) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    // containsKey, getDistance, size, entrySet, 변경 기록은 MapRoutingTable처럼 공개 전의 작업용 배열 기준
+    @Override
+    public synchronized boolean containsKey(String destination) {
+        Slots s = working;
+        return s.lengths[slot(s, IPv4.prefixAddress(destination), IPv4.prefixLength(destination))] != 0;
+    }
+
+    @Override
+    public synchronized int getDistance(String destination) {
+        Slots s = working;
+        int slot = slot(s, IPv4.prefixAddress(destination), IPv4.prefixLength(destination));
+
+        if (s.lengths[slot] == 0) {
+            throw new IllegalArgumentException("No route for " + destination);
+        }
+        return s.distances[slot];
+    }
+
+    @Override
+    public synchronized int size() {
+        return working.size;
+    }
+
+    // 광고용 전체 방문은 공개된 배열 기준 (방문하는 동안 교체를 막음)
+    @Override
+    public void forEach(RouteVisitor visitor) {
+        long stamp = lock.readLock();
+        try {
+            Slots s = published;
+
+            for (int slot = 0; slot < s.addresses.length; slot++) {
+                if (s.lengths[slot] != 0) {
+                    visitor.visit(s.addresses[slot], s.lengths[slot] - 1, s.distances[slot], s.hops[slot], s.nextHops[slot]);
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public synchronized boolean hasChanges() {
+        return working.dirtyCount > 0;
+    }
+
+    // 변경 기록을 지운 것도 반대편 배열에 옮겨 적도록 기록
+    @Override
+    public synchronized void drainChanges(RouteVisitor visitor) {
+        Slots s = working;
+
+        for (int slot = 0; slot < s.addresses.length && s.dirtyCount > 0; slot++) {
+            if (s.dirty[slot]) {
+                s.dirty[slot] = false;
+                s.dirtyCount--;
+                touch(s.addresses[slot], s.lengths[slot] - 1);
+                visitor.visit(s.addresses[slot], s.lengths[slot] - 1, s.distances[slot], s.hops[slot], s.nextHops[slot]);
+            }
+        }
+    }
+
+    @Override
+    public synchronized Set<Entry<String, RoutingInfo>> entrySet() {
+        Map<String, RoutingInfo> routes = new LinkedHashMap<>();
+        Slots s = working;
+
+        for (int slot = 0; slot < s.addresses.length; slot++) {
+            if (s.lengths[slot] != 0) {
+                routes.put(IPv4.formatPrefix(s.addresses[slot], s.lengths[slot] - 1), new RoutingInfo(s.distances[slot],
+                    s.hops[slot], s.nextHops[slot], s.updatedAt[slot],
+                    s.alternates[slot] == null ? Multipath.NONE : s.alternates[slot]));
+            }
+        }
+        return routes.entrySet();
+    }
+
+    // 키가 있는 슬롯 또는 키가 들어갈 빈 슬롯 (선형 탐사)
+    // 부하율이 75% 이하라 빈 슬롯이 항상 있으므로 옮겨 적는 중에 읽어도 탐사는 끝남
+    private static int slot(Slots s, int address, int prefixLength) {
+        int mask = s.addresses.length - 1;
+        int slot = hash(address, prefixLength) & mask;
+
+        while (s.lengths[slot] != 0 && (s.addresses[slot] != address || s.lengths[slot] != prefixLength + 1)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // 작업용 배열을 새 크기로 옮김 (공개된 배열은 다음 publish에서 통째로 맞춤)
+    private Slots resize(int capacity) {
+        Slots old = working;
+        Slots s = new Slots(capacity);
+
+        for (int i = 0; i < old.addresses.length; i++) {
+            if (old.lengths[i] != 0) {
+                copy(old, i, s, slot(s, old.addresses[i], old.lengths[i] - 1));
+            }
+        }
+        System.arraycopy(old.lengthCounts, 0, s.lengthCounts, 0, old.lengthCounts.length);
+        s.size = old.size;
+        s.dirtyCount = old.dirtyCount;
+        working = s;
+        return s;
+    }
+
+    // 슬롯 하나의 내용을 다른 슬롯으로 복사 (같은 배열 안이어도 됨)
+    private static void copy(Slots from, int i, Slots to, int slot) {
+        to.addresses[slot] = from.addresses[i];
+        to.lengths[slot] = from.lengths[i];
+        to.distances[slot] = from.distances[i];
+        to.hops[slot] = from.hops[i];
+        to.nextHops[slot] = from.nextHops[i];
+        to.dirty[slot] = from.dirty[i];
+        to.updatedAt[slot] = from.updatedAt[i];
+        to.alternates[slot] = from.alternates[i];
+    }
+
+    // 최대 경로 수를 넘는 ECMP 다음 홉은 버림
+    private Multipath limit(Multipath alternates) {
+        while (alternates.size() > maxAlternates) {
+            alternates = alternates.without(alternates.getNextHop(alternates.size() - 1));
+        }
+        return alternates;
+    }
+
+    // murmur3 finalizer로 주소와 길이를 섞음
+    private static int hash(int address, int prefixLength) {
+        int h = address ^ (prefixLength * 0x9E3779B9);
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
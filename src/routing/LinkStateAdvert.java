@@ -0,0 +1,105 @@
+package routing;
+
+// 링크 상태 광고 (LSA) 한 개, 만든 뒤에는 바뀌지 않음
+// 라우터 ID는 라우터 인터페이스 IP 중 가장 작은 값
+public class LinkStateAdvert {
+    private final int originator; // 광고한 라우터 ID
+    private final int sequence; // 클수록 최신
+    private final int[] neighbors; // 인접 라우터 ID
+    private final int[] linkCosts;
+    private final int[] prefixAddresses; // 직접 연결된 서브넷
+    private final byte[] prefixLengths;
+    private final int[] prefixCosts;
+    private final long receivedAt; // 수신(또는 생성) 시각, 수명 계산용
+
+    public LinkStateAdvert(int originator, int sequence, int[] neighbors, int[] linkCosts,
+            int[] prefixAddresses, byte[] prefixLengths, int[] prefixCosts, long receivedAt) {
+        if (neighbors.length != linkCosts.length
+            || prefixAddresses.length != prefixLengths.length || prefixAddresses.length != prefixCosts.length) {
+            throw new IllegalArgumentException("Mismatched link state advert arrays");
+        }
+
+        this.originator = originator;
+        this.sequence = sequence;
+        this.neighbors = neighbors;
+        this.linkCosts = linkCosts;
+        this.prefixAddresses = prefixAddresses;
+        this.prefixLengths = prefixLengths;
+        this.prefixCosts = prefixCosts;
+        this.receivedAt = receivedAt;
+    }
+
+    public int getOriginator() {
+        return originator;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    public long getReceivedAt() {
+        return receivedAt;
+    }
+
+    public int linkCount() {
+        return neighbors.length;
+    }
+
+    public int getNeighbor(int i) {
+        return neighbors[i];
+    }
+
+    public int getLinkCost(int i) {
+        return linkCosts[i];
+    }
+
+    // 인접 라우터로 가는 링크 비용, 링크가 없으면 -1
+    public int costTo(int neighbor) {
+        for (int i = 0; i < neighbors.length; i++) {
+            if (neighbors[i] == neighbor) {
+                return linkCosts[i];
+            }
+        }
+        return -1;
+    }
+
+    public int prefixCount() {
+        return prefixAddresses.length;
+    }
+
+    public int getPrefixAddress(int i) {
+        return prefixAddresses[i];
+    }
+
+    public int getPrefixLength(int i) {
+        return prefixLengths[i];
+    }
+
+    public int getPrefixCost(int i) {
+        return prefixCosts[i];
+    }
+
+    // 순번은 넘침을 고려해 차이로 비교
+    public boolean isNewerThan(LinkStateAdvert other) {
+        return other == null || sequence - other.sequence > 0;
+    }
+
+    // 링크 목록이 같은지 (접두사만 바뀐 광고는 SPF를 다시 계산하지 않음)
+    public boolean sameLinks(LinkStateAdvert other) {
+        if (other == null || other.neighbors.length != neighbors.length) {
+            return false;
+        }
+        for (int i = 0; i < neighbors.length; i++) {
+            if (other.costTo(neighbors[i]) != linkCosts[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "LSA " + IPv4.format(originator) + " seq " + sequence + " (" + neighbors.length + " links, "
+            + prefixAddresses.length + " prefixes)";
+    }
+}
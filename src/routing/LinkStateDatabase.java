@@ -0,0 +1,438 @@
+package routing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import clock.Clock;
+import logging.Logger;
+
+// 링크 상태 데이터베이스 (LSDB)와 최단 경로 계산
+// 링크는 양쪽 광고에 서로가 있을 때만 사용 (two-way 확인)
+// 광고가 바뀌면 바뀐 만큼만 다시 계산:
+//   접두사만 바뀜 -> SPF 트리는 그대로 두고 그 접두사만 경로 계산 (prefix-only)
+//   링크 비용 감소/추가 -> 바뀐 링크에서 시작하는 부분 다익스트라 (incremental)
+//   SPF 트리에 쓰이는 링크의 비용 증가/삭제 -> 전체 다익스트라 (full)
+// 같은 거리의 경로가 여러 개면 처음 거치는 인접 라우터를 모두 모아 ECMP 다음 홉으로 씀
+// 계산 결과는 RoutingTable.replace/remove로 반영하고 한 번에 publish
+public class LinkStateDatabase {
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    // SPF 트리의 노드 정보
+    private static class Node {
+        private final int distance;
+        private final int[] firstHops; // 자신에서 출발할 때 처음 거치는 인접 라우터 (같은 거리의 경로마다, 정렬됨)
+        private final int hops;
+
+        private Node(int distance, int[] firstHops, int hops) {
+            this.distance = distance;
+            this.firstHops = firstHops;
+            this.hops = hops;
+        }
+    }
+
+    private final int self; // 자신의 라우터 ID
+    private final RoutingTable routingTable;
+    private final Logger log;
+    private final Map<Integer, LinkStateAdvert> adverts; // 라우터 ID -> 최신 광고
+    private final Map<Integer, Integer> neighborAddresses; // 인접 라우터 ID -> 다음 홉으로 쓸 인터페이스 IP
+    private final Map<Integer, Node> tree; // SPF 트리 (도달 가능한 라우터만)
+    private final Map<Long, Set<Integer>> advertisers; // 접두사 -> 광고한 라우터 ID
+    private long fullRuns;
+    private long incrementalRuns;
+    private long prefixRuns;
+
+    public LinkStateDatabase(int self, RoutingTable routingTable, Logger log) {
+        this.self = self;
+        this.routingTable = routingTable;
+        this.log = log;
+        this.adverts = new HashMap<>();
+        this.neighborAddresses = new HashMap<>();
+        this.tree = new HashMap<>();
+        this.advertisers = new HashMap<>();
+        this.tree.put(self, new Node(0, new int[] { self }, 0));
+    }
+
+    // 더 새로운 광고면 반영하고 true
+    public synchronized boolean install(LinkStateAdvert advert) {
+        LinkStateAdvert current = adverts.get(advert.getOriginator());
+
+        if (!advert.isNewerThan(current)) {
+            return false;
+        }
+        apply(advert.getOriginator(), current, advert);
+        return true;
+    }
+
+    // maxAgeMs 동안 갱신되지 않은 다른 라우터의 광고 삭제
+    public synchronized void purge(long now, long maxAgeMs) {
+        List<LinkStateAdvert> expired = new ArrayList<>();
+
+        for (LinkStateAdvert advert : adverts.values()) {
+            if (advert.getOriginator() != self && now - advert.getReceivedAt() > maxAgeMs) {
+                expired.add(advert);
+            }
+        }
+
+        for (LinkStateAdvert advert : expired) {
+            log.info("Link state advert expired: " + advert);
+            apply(advert.getOriginator(), advert, null);
+        }
+    }
+
+    public synchronized LinkStateAdvert get(int originator) {
+        return adverts.get(originator);
+    }
+
+    // 인접 라우터와의 데이터베이스 동기화용 사본
+    public synchronized List<LinkStateAdvert> adverts() {
+        return new ArrayList<>(adverts.values());
+    }
+
+    // 인접 라우터의 다음 홉 주소 설정, address가 0이면 삭제
+    public synchronized void setNeighborAddress(int neighbor, int address) {
+        Integer previous = address == 0 ? neighborAddresses.remove(neighbor) : neighborAddresses.put(neighbor, address);
+
+        if (previous == null ? address != 0 : previous != address) {
+            // 그 인접 라우터를 거치는 경로의 다음 홉이 바뀜
+            long start = System.nanoTime();
+            int prefixes = updatePrefixes(advertisers.keySet());
+            logSpf("next hop", 0, prefixes, start);
+        }
+    }
+
+    public synchronized String statistics() {
+        return "full=" + fullRuns + " incremental=" + incrementalRuns + " prefix-only=" + prefixRuns
+            + " routers=" + adverts.size() + " reachable=" + tree.size();
+    }
+
+    // 광고 교체(삭제는 next == null) 후 필요한 만큼 다시 계산
+    private void apply(int originator, LinkStateAdvert previous, LinkStateAdvert next) {
+        long start = System.nanoTime();
+        Set<Long> dirtyPrefixes = new HashSet<>();
+
+        if (previous != null) {
+            forEachPrefix(previous, key -> {
+                Set<Integer> routers = advertisers.get(key);
+                routers.remove(originator);
+
+                if (routers.isEmpty()) {
+                    advertisers.remove(key);
+                }
+                dirtyPrefixes.add(key);
+            });
+        }
+
+        if (next != null) {
+            adverts.put(originator, next);
+            forEachPrefix(next, key -> {
+                advertisers.computeIfAbsent(key, k -> new HashSet<>()).add(originator);
+                dirtyPrefixes.add(key);
+            });
+        } else {
+            adverts.remove(originator);
+        }
+
+        String kind;
+        int routers;
+
+        if (previous != null && next != null && next.sameLinks(previous)) {
+            kind = "prefix-only";
+            routers = 0;
+            prefixRuns++;
+        } else {
+            Set<Integer> changed = updateTree(originator, previous, next);
+
+            if (changed == null) {
+                kind = "full";
+                changed = fullSpf();
+                fullRuns++;
+            } else {
+                kind = "incremental";
+                incrementalRuns++;
+            }
+            routers = changed.size();
+
+            // 거리나 다음 홉이 바뀐 라우터가 광고한 접두사도 다시 계산
+            for (int router : changed) {
+                LinkStateAdvert advert = adverts.get(router);
+
+                if (advert != null) {
+                    forEachPrefix(advert, dirtyPrefixes::add);
+                }
+            }
+        }
+
+        int prefixes = updatePrefixes(dirtyPrefixes);
+        logSpf(kind, routers, prefixes, start);
+    }
+
+    // 광고 하나가 바뀌었을 때 SPF 트리를 부분 갱신하고 바뀐 라우터 반환, 전체 계산이 필요하면 null
+    private Set<Integer> updateTree(int originator, LinkStateAdvert previous, LinkStateAdvert next) {
+        Set<Integer> peers = new HashSet<>();
+        addNeighbors(previous, peers);
+        addNeighbors(next, peers);
+
+        List<int[]> decreases = new ArrayList<>(); // {from, to, cost}
+
+        for (int peer : peers) {
+            LinkStateAdvert peerAdvert = adverts.get(peer);
+
+            // originator -> peer, peer -> originator 양방향 모두 확인
+            for (int direction = 0; direction < 2; direction++) {
+                int from = direction == 0 ? originator : peer;
+                int to = direction == 0 ? peer : originator;
+                int before = direction == 0 ? linkCost(previous, peerAdvert, peer, originator) : linkCost(peerAdvert, previous, originator, peer);
+                int after = direction == 0 ? linkCost(next, peerAdvert, peer, originator) : linkCost(peerAdvert, next, originator, peer);
+
+                if (before == after) {
+                    continue;
+                }
+
+                if (before >= 0 && (after < 0 || after > before)) {
+                    // 최단 경로(같은 거리의 경로 포함)에 쓰이는 링크가 나빠지면 대체 경로를 찾아야 하므로 전체 계산
+                    Node node = tree.get(to);
+                    Node origin = tree.get(from);
+
+                    if (node != null && origin != null && origin.distance + before == node.distance && to != self) {
+                        return null;
+                    }
+                } else {
+                    decreases.add(new int[] { from, to, after });
+                }
+            }
+        }
+
+        // 좋아진 링크 끝점에서 시작하는 다익스트라
+        Set<Integer> changed = new HashSet<>();
+        PriorityQueue<int[]> queue = new PriorityQueue<>((a, b) -> Integer.compare(a[0], b[0])); // {거리, 라우터}
+
+        for (int[] link : decreases) {
+            relax(link[0], link[1], link[2], queue);
+        }
+        drain(queue, changed);
+        return changed;
+    }
+
+    // 자신에서 시작하는 전체 다익스트라, 거리나 다음 홉이 바뀐 라우터 반환
+    private Set<Integer> fullSpf() {
+        Map<Integer, Node> previous = new HashMap<>(tree);
+        Set<Integer> changed = new HashSet<>();
+        PriorityQueue<int[]> queue = new PriorityQueue<>((a, b) -> Integer.compare(a[0], b[0]));
+
+        tree.clear();
+        tree.put(self, new Node(0, new int[] { self }, 0));
+        queue.add(new int[] { 0, self });
+        drain(queue, new HashSet<>());
+
+        for (Map.Entry<Integer, Node> entry : previous.entrySet()) {
+            Node now = tree.get(entry.getKey());
+
+            if (now == null || now.distance != entry.getValue().distance
+                || !Arrays.equals(now.firstHops, entry.getValue().firstHops)) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (int router : tree.keySet()) {
+            if (!previous.containsKey(router)) {
+                changed.add(router);
+            }
+        }
+        return changed;
+    }
+
+    private void drain(PriorityQueue<int[]> queue, Set<Integer> changed) {
+        while (!queue.isEmpty()) {
+            int[] entry = queue.poll();
+            int router = entry[1];
+            Node node = tree.get(router);
+
+            if (node == null || node.distance != entry[0]) {
+                continue; // 더 짧은 거리로 이미 처리됨 (같은 거리로 처음 홉만 늘어난 경우는 다시 처리)
+            }
+            changed.add(router);
+
+            LinkStateAdvert advert = adverts.get(router);
+
+            if (advert == null) {
+                continue;
+            }
+
+            for (int i = 0; i < advert.linkCount(); i++) {
+                int neighbor = advert.getNeighbor(i);
+                int cost = linkCost(advert, adverts.get(neighbor), neighbor, router);
+
+                if (cost >= 0) {
+                    relax(router, neighbor, cost, queue);
+                }
+            }
+        }
+    }
+
+    private void relax(int from, int to, int cost, PriorityQueue<int[]> queue) {
+        Node origin = tree.get(from);
+
+        if (origin == null || to == self) {
+            return;
+        }
+
+        int distance = origin.distance + cost;
+        Node current = tree.get(to);
+        int[] firstHops = from == self ? new int[] { to } : origin.firstHops;
+
+        if (current == null || distance < current.distance) {
+            tree.put(to, new Node(distance, firstHops, origin.hops + 1));
+            queue.add(new int[] { distance, to });
+        } else if (distance == current.distance) {
+            // 같은 거리의 다른 경로: 처음 홉을 합치고 바뀌었으면 아래 라우터에도 전달
+            int[] merged = union(current.firstHops, firstHops);
+
+            if (merged.length != current.firstHops.length) {
+                tree.put(to, new Node(distance, merged, Math.min(current.hops, origin.hops + 1)));
+                queue.add(new int[] { distance, to });
+            }
+        }
+    }
+
+    // 정렬된 두 배열의 합집합
+    private static int[] union(int[] a, int[] b) {
+        int[] result = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+
+        while (i < a.length || j < b.length) {
+            if (j >= b.length || i < a.length && a[i] < b[j]) {
+                result[n++] = a[i++];
+            } else if (i >= a.length || b[j] < a[i]) {
+                result[n++] = b[j++];
+            } else {
+                result[n++] = a[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    // from -> to 링크 비용 (양쪽 광고에 서로가 있어야 함), 없으면 -1
+    private static int linkCost(LinkStateAdvert fromAdvert, LinkStateAdvert toAdvert, int to, int from) {
+        if (fromAdvert == null || toAdvert == null || toAdvert.costTo(from) < 0) {
+            return -1;
+        }
+        return fromAdvert.costTo(to);
+    }
+
+    // 접두사마다 가장 가까운 광고 라우터를 골라 라우팅 테이블에 반영, 바뀐 경로 수 반환
+    private int updatePrefixes(Set<Long> keys) {
+        int updated = 0;
+
+        for (long key : keys) {
+            int address = (int) (key >>> 8);
+            int prefixLength = (int) (key & 0xFF);
+            Set<Integer> routers = advertisers.get(key);
+
+            if (routers != null && routers.contains(self)) {
+                continue; // 직접 연결된 서브넷은 그대로
+            }
+
+            int bestDistance = UNREACHABLE;
+            int bestHops = 0;
+            int[] firstHops = new int[0]; // 가장 가까운 광고 라우터들로 가는 처음 홉
+
+            if (routers != null) {
+                for (int router : routers) {
+                    Node node = tree.get(router);
+
+                    if (node == null || !reachableVia(node.firstHops)) {
+                        continue;
+                    }
+
+                    int distance = node.distance + prefixCost(adverts.get(router), address, prefixLength);
+
+                    if (distance < bestDistance) {
+                        bestDistance = distance;
+                        bestHops = node.hops;
+                        firstHops = node.firstHops;
+                    } else if (distance == bestDistance) {
+                        bestHops = Math.min(bestHops, node.hops);
+                        firstHops = union(firstHops, node.firstHops);
+                    }
+                }
+            }
+
+            // 다음 홉 주소를 아는 인접 라우터만 사용
+            int[] nextHops = new int[firstHops.length];
+            int count = 0;
+
+            for (int firstHop : firstHops) {
+                Integer nextHop = neighborAddresses.get(firstHop);
+
+                if (nextHop != null) {
+                    nextHops[count++] = nextHop;
+                }
+            }
+
+            boolean changed = count == 0
+                ? routingTable.remove(address, prefixLength)
+                : routingTable.replace(address, prefixLength, bestDistance, bestHops, nextHops[0],
+                    Multipath.of(Arrays.copyOfRange(nextHops, 1, count), bestDistance, bestHops, Clock.millis()));
+
+            if (changed) {
+                updated++;
+            }
+        }
+        routingTable.publish();
+        return updated;
+    }
+
+    // 다음 홉 주소를 아는 인접 라우터가 하나라도 있는지
+    private boolean reachableVia(int[] firstHops) {
+        for (int firstHop : firstHops) {
+            if (neighborAddresses.containsKey(firstHop)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int prefixCost(LinkStateAdvert advert, int address, int prefixLength) {
+        for (int i = 0; i < advert.prefixCount(); i++) {
+            if (advert.getPrefixAddress(i) == address && advert.getPrefixLength(i) == prefixLength) {
+                return advert.getPrefixCost(i);
+            }
+        }
+        return 0;
+    }
+
+    private static void addNeighbors(LinkStateAdvert advert, Set<Integer> peers) {
+        if (advert != null) {
+            for (int i = 0; i < advert.linkCount(); i++) {
+                peers.add(advert.getNeighbor(i));
+            }
+        }
+    }
+
+    private interface PrefixKeyVisitor {
+        void visit(long key);
+    }
+
+    private static void forEachPrefix(LinkStateAdvert advert, PrefixKeyVisitor visitor) {
+        for (int i = 0; i < advert.prefixCount(); i++) {
+            visitor.visit(prefixKey(advert.getPrefixAddress(i), advert.getPrefixLength(i)));
+        }
+    }
+
+    private static long prefixKey(int address, int prefixLength) {
+        return ((address & 0xFFFFFFFFL) << 8) | prefixLength;
+    }
+
+    private void logSpf(String kind, int routers, int prefixes, long start) {
+        log.info("SPF " + kind + ": " + routers + " routers, " + prefixes + " routes changed in "
+            + (System.nanoTime() - start) / 1000 + " us");
+    }
+}
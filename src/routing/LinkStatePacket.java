@@ -0,0 +1,105 @@
+package routing;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import logging.Logger;
+
+// 링크 상태 모드 제어 패킷 (라우팅 광고와 같은 포트 사용, 첫 바이트로 구분)
+// 공통 헤더: MAGIC(1) VERSION(1) TYPE(1) FLAGS(1)
+// HELLO: 헤더 + 라우터 ID(4)
+// LSA: 헤더 + 광고 라우터 ID(4) 순번(4) 링크 수(2) 접두사 수(2)
+//      + 링크: 인접 라우터 ID(4) 비용(4) + 접두사: 주소(4) 길이(1) 비용(4)
+public class LinkStatePacket {
+    public static final int TYPE_HELLO = 0;
+    public static final int TYPE_ADVERT = 1;
+
+    private static final byte MAGIC = (byte) 0xD7; // 거리 벡터 광고(0xD5), 데이터 패킷(0xDA)과 구분
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 4;
+    private static final int LINK_SIZE = 8;
+    private static final int PREFIX_SIZE = 9;
+
+    private LinkStatePacket() {
+    }
+
+    public static boolean isLinkState(byte[] data, int offset, int length) {
+        return length >= HEADER_SIZE && data[offset] == MAGIC && data[offset + 1] == VERSION;
+    }
+
+    public static int getType(ByteBuffer packet) {
+        return packet.get(packet.position() + 2);
+    }
+
+    public static ByteBuffer encodeHello(int routerId) {
+        ByteBuffer packet = ByteBuffer.allocate(HEADER_SIZE + 4);
+        putHeader(packet, TYPE_HELLO);
+        return packet.putInt(routerId).flip();
+    }
+
+    // HELLO의 라우터 ID
+    public static int decodeHello(ByteBuffer packet) {
+        return packet.getInt(packet.position() + HEADER_SIZE);
+    }
+
+    public static ByteBuffer encodeAdvert(LinkStateAdvert advert) {
+        ByteBuffer packet = ByteBuffer.allocate(HEADER_SIZE + 12
+            + advert.linkCount() * LINK_SIZE + advert.prefixCount() * PREFIX_SIZE);
+
+        putHeader(packet, TYPE_ADVERT);
+        packet.putInt(advert.getOriginator())
+            .putInt(advert.getSequence())
+            .putShort((short) advert.linkCount())
+            .putShort((short) advert.prefixCount());
+
+        for (int i = 0; i < advert.linkCount(); i++) {
+            packet.putInt(advert.getNeighbor(i)).putInt(advert.getLinkCost(i));
+        }
+        for (int i = 0; i < advert.prefixCount(); i++) {
+            packet.putInt(advert.getPrefixAddress(i)).put((byte) advert.getPrefixLength(i)).putInt(advert.getPrefixCost(i));
+        }
+        return packet.flip();
+    }
+
+    // 잘못된 패킷이면 null
+    public static LinkStateAdvert decodeAdvert(ByteBuffer packet, long receivedAt) {
+        try {
+            ByteBuffer buffer = packet.duplicate();
+            buffer.position(buffer.position() + HEADER_SIZE);
+
+            int originator = buffer.getInt();
+            int sequence = buffer.getInt();
+            int linkCount = buffer.getShort() & 0xFFFF;
+            int prefixCount = buffer.getShort() & 0xFFFF;
+
+            int[] neighbors = new int[linkCount];
+            int[] linkCosts = new int[linkCount];
+            int[] prefixAddresses = new int[prefixCount];
+            byte[] prefixLengths = new byte[prefixCount];
+            int[] prefixCosts = new int[prefixCount];
+
+            for (int i = 0; i < linkCount; i++) {
+                neighbors[i] = buffer.getInt();
+                linkCosts[i] = buffer.getInt();
+            }
+            for (int i = 0; i < prefixCount; i++) {
+                prefixAddresses[i] = buffer.getInt();
+                prefixLengths[i] = buffer.get();
+                prefixCosts[i] = buffer.getInt();
+
+                if (prefixLengths[i] < 0 || prefixLengths[i] > 32) {
+                    return null;
+                }
+            }
+            return new LinkStateAdvert(originator, sequence, neighbors, linkCosts,
+                prefixAddresses, prefixLengths, prefixCosts, receivedAt);
+        } catch (BufferUnderflowException e) {
+            Logger.root().warn("Truncated link state advert, ignoring.");
+            return null;
+        }
+    }
+
+    private static void putHeader(ByteBuffer packet, int type) {
+        packet.put(MAGIC).put(VERSION).put((byte) type).put((byte) 0);
+    }
+}
@@ -0,0 +1,366 @@
+package routing;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import clock.Clock;
+import logging.Logger;
+
+// 문자열 키 맵 기반 라우팅 테이블
+// 갱신은 키별 원자 연산으로 처리하고, 조회와 광고는 publish로 공개된 불변 FIB 스냅샷을 읽음
+public class MapRoutingTable implements RoutingTable {
+    // 공개된 FIB (버전과 트라이 스냅샷을 함께 교체)
+    private static class Fib {
+        private final long version;
+        private final PrefixTrie<RoutingInfo> routes;
+
+        private Fib(long version, PrefixTrie<RoutingInfo> routes) {
+            this.version = version;
+            this.routes = routes;
+        }
+    }
+
+    private final Map<String, RoutingInfo> table; // 정규화된 "a.b.c.d/len" -> 경로
+    private final Set<String> changed; // 아직 광고하지 않은 변경 경로
+    private final Set<String> unpublished; // 아직 FIB에 반영하지 않은 변경 경로
+    private final PrefixTrie<RoutingInfo> staging; // publish가 갱신하는 작업용 트라이
+    private final int maxAlternates; // 대표 경로 외에 둘 ECMP 다음 홉 수
+    private final int slack; // 대표 거리보다 이만큼까지 긴 경로는 같은 비용으로 취급
+    private final Logger log; // 경로 변경 기록
+    private volatile Fib fib;
+
+    public MapRoutingTable() {
+        this(1, 0);
+    }
+
+    public MapRoutingTable(int maxPaths, int slack) {
+        this(maxPaths, slack, Logger.root());
+    }
+
+    public MapRoutingTable(int maxPaths, int slack, Logger log) {
+        this.log = log;
+        this.maxAlternates = Math.max(0, maxPaths - 1);
+        this.slack = Math.max(0, slack);
+        this.table = new ConcurrentHashMap<>();
+        this.changed = ConcurrentHashMap.newKeySet();
+        this.unpublished = ConcurrentHashMap.newKeySet();
+        this.staging = new PrefixTrie<>();
+        this.fib = new Fib(0, staging.snapshot());
+    }
+
+    @Override
+    public boolean improve(int address, int prefixLength, int distance, int hops, int nextHop) {
+        String destination = IPv4.formatPrefix(address, prefixLength);
+        long now = Clock.millis();
+        boolean[] improved = new boolean[1];
+
+        // 비교와 교체를 키 단위로 원자적으로 처리 (ECMP 다음 홉은 learn과 같은 규칙으로 유지)
+        RoutingInfo candidate = table.compute(destination, (key, current) -> {
+            if (current == null) {
+                improved[0] = true;
+                return new RoutingInfo(distance, hops, nextHop, now);
+            }
+            if (distance >= current.getDistance()) {
+                return current;
+            }
+            improved[0] = true;
+
+            Multipath rest = current.getAlternates().without(nextHop).within(distance, slack);
+
+            if (current.getNextHopAddress() != nextHop && current.isReachable()) {
+                rest = rest.offer(current.getNextHopAddress(), current.getDistance(), current.getHops(),
+                    current.getUpdatedAt(), distance, slack, maxAlternates);
+            }
+            return new RoutingInfo(distance, hops, nextHop, now, rest);
+        });
+
+        if (!improved[0]) {
+            return false;
+        }
+        unpublished.add(destination);
+        changed.add(destination);
+
+        if (log.isEnabled(Logger.Level.INFO)) {
+            log.info("Route added/updated: " + destination + " via " + candidate.getNextHop()
+                + " with distance " + distance + " and hops " + hops);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean replace(int address, int prefixLength, int distance, int hops, int nextHop, Multipath alternates) {
+        String destination = IPv4.formatPrefix(address, prefixLength);
+        RoutingInfo info = new RoutingInfo(distance, hops, nextHop, Clock.millis(),
+            limit(alternates.without(nextHop)));
+        RoutingInfo previous = table.put(destination, info);
+
+        if (previous != null && previous.getDistance() == distance && previous.getHops() == hops
+            && previous.getNextHopAddress() == nextHop) {
+            if (previous.getAlternates().sameRoutes(info.getAlternates())) {
+                return false;
+            }
+            unpublished.add(destination); // ECMP 다음 홉만 바뀌면 광고할 내용은 그대로
+            return true;
+        }
+        unpublished.add(destination);
+        changed.add(destination);
+
+        if (log.isEnabled(Logger.Level.INFO)) {
+            log.info("Route added/updated: " + destination + " via " + info.getNextHop()
+                + " with distance " + distance + " and hops " + hops);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean learn(int address, int prefixLength, int distance, int hops, int nextHop, long now) {
+        String destination = IPv4.formatPrefix(address, prefixLength);
+        int[] updated = new int[1]; // 0: 그대로, 1: 대표 경로 변경, 2: ECMP 다음 홉만 변경
+
+        RoutingInfo result = table.compute(destination, (key, current) -> {
+            if (current == null) {
+                updated[0] = distance < INFINITY ? 1 : 0;
+                return updated[0] != 0 ? new RoutingInfo(distance, hops, nextHop, now) : null;
+            }
+
+            boolean sameNextHop = current.getNextHopAddress() == nextHop;
+            Multipath alternates = current.getAlternates();
+
+            // 다른 이웃의 더 짧지 않은 광고는 ECMP 다음 홉으로만 반영 (직접 연결된 서브넷 제외)
+            if (!sameNextHop && distance >= current.getDistance()) {
+                if (current.getHops() == 0) {
+                    return current;
+                }
+
+                Multipath offered = alternates.offer(nextHop, distance, hops, now, current.getDistance(), slack, maxAlternates);
+
+                if (offered == alternates) {
+                    return current;
+                }
+                updated[0] = offered.sameRoutes(alternates) ? 0 : 2;
+                return new RoutingInfo(current.getDistance(), current.getHops(), current.getNextHopAddress(), current.getUpdatedAt(), offered);
+            }
+
+            // 도달 불가끼리는 홉 수가 달라도 같은 값으로 취급 (독성 광고끼리 계속 갱신되지 않도록)
+            if (sameNextHop && !current.isReachable() && distance >= INFINITY) {
+                return current;
+            }
+            if (sameNextHop && current.getDistance() == distance && current.getHops() == hops) {
+                // 값은 그대로, 갱신 시각만 새로 기록
+                return distance < INFINITY ? new RoutingInfo(distance, hops, nextHop, now, alternates) : current;
+            }
+            updated[0] = 1;
+
+            if (!sameNextHop) {
+                // 더 짧은 경로로 교체, 이전 대표 경로도 허용 범위 안이면 ECMP 다음 홉으로 남김
+                Multipath rest = alternates.without(nextHop).within(distance, slack);
+
+                if (current.isReachable()) {
+                    rest = rest.offer(current.getNextHopAddress(), current.getDistance(), current.getHops(),
+                        current.getUpdatedAt(), distance, slack, maxAlternates);
+                }
+                return new RoutingInfo(distance, hops, nextHop, now, rest);
+            }
+
+            // 대표 경로가 나빠졌는데 더 짧은 ECMP 다음 홉이 있으면 그것을 대표로 올림
+            int best = alternates.best();
+
+            if (best >= 0 && alternates.getDistance(best) < distance) {
+                int promoted = alternates.getNextHop(best);
+                int promotedDistance = alternates.getDistance(best);
+                Multipath rest = alternates.without(promoted).within(promotedDistance, slack)
+                    .offer(nextHop, distance, hops, now, promotedDistance, slack, maxAlternates);
+
+                return new RoutingInfo(promotedDistance, alternates.getHops(best), promoted,
+                    alternates.getUpdatedAt(best), rest);
+            }
+            return new RoutingInfo(distance, hops, nextHop, now, alternates.within(distance, slack));
+        });
+
+        if (updated[0] == 0) {
+            return false;
+        }
+        unpublished.add(destination);
+
+        if (updated[0] == 2) {
+            if (log.isEnabled(Logger.Level.INFO)) {
+                log.info((result.getAlternates().indexOf(nextHop) >= 0 ? "Equal-cost path added: " : "Equal-cost path removed: ")
+                    + destination + " via " + IPv4.format(nextHop));
+            }
+            return true;
+        }
+        changed.add(destination);
+
+        if (!log.isEnabled(Logger.Level.INFO)) {
+            return true;
+        }
+        if (result.isReachable()) {
+            log.info("Route added/updated: " + destination + " via " + result.getNextHop()
+                + " with distance " + result.getDistance() + " and hops " + result.getHops());
+        } else {
+            log.info("Route unreachable: " + destination + " via " + IPv4.format(nextHop));
+        }
+        return true;
+    }
+
+    @Override
+    public int expire(long now, long timeoutMs, long gcMs) {
+        int expired = 0;
+
+        for (String destination : table.keySet()) {
+            int[] action = new int[1]; // 0: 그대로, 1: 도달 불가로 변경, 2: 삭제, 3: ECMP 다음 홉으로 대체, 4: ECMP 다음 홉만 정리
+
+            table.computeIfPresent(destination, (key, info) -> {
+                long age = now - info.getUpdatedAt();
+
+                if (info.getHops() == 0) {
+                    return info; // 직접 연결된 서브넷
+                }
+
+                Multipath alternates = info.getAlternates().expire(now, timeoutMs);
+
+                if (info.isReachable() && age > timeoutMs) {
+                    int best = alternates.best();
+
+                    if (best >= 0) {
+                        // 남은 ECMP 다음 홉 중 가장 짧은 것을 대표로
+                        action[0] = 3;
+                        int promoted = alternates.getNextHop(best);
+                        return new RoutingInfo(alternates.getDistance(best), alternates.getHops(best), promoted,
+                            alternates.getUpdatedAt(best), alternates.without(promoted).within(alternates.getDistance(best), slack));
+                    }
+                    action[0] = 1;
+                    return new RoutingInfo(INFINITY, info.getHops(), info.getNextHopAddress(), now);
+                }
+                if (!info.isReachable() && age > gcMs) {
+                    action[0] = 2;
+                    return null;
+                }
+                if (alternates != info.getAlternates()) {
+                    action[0] = 4;
+                    return new RoutingInfo(info.getDistance(), info.getHops(), info.getNextHopAddress(), info.getUpdatedAt(), alternates);
+                }
+                return info;
+            });
+
+            if (action[0] == 0) {
+                continue;
+            }
+            unpublished.add(destination);
+            expired++;
+
+            if (action[0] == 1 || action[0] == 3) {
+                changed.add(destination);
+                log.info("Route timed out: " + destination);
+            } else if (action[0] == 2) {
+                log.info("Route removed: " + destination);
+            }
+        }
+        return expired;
+    }
+
+    @Override
+    public boolean remove(int address, int prefixLength) {
+        String destination = IPv4.formatPrefix(address, prefixLength);
+
+        if (table.remove(destination) == null) {
+            return false;
+        }
+        unpublished.add(destination);
+        changed.add(destination);
+
+        log.info("Route removed: " + destination);
+        return true;
+    }
+
+    @Override
+    public void publish() {
+        synchronized (staging) { // 여러 병합 스레드가 동시에 공개해도 작업용 트라이는 하나씩 갱신
+            if (unpublished.isEmpty()) {
+                return;
+            }
+
+            for (String destination : unpublished) {
+                unpublished.remove(destination);
+                RoutingInfo info = table.get(destination);
+                int address = IPv4.prefixAddress(destination);
+                int prefixLength = IPv4.prefixLength(destination);
+
+                if (info != null) {
+                    staging.put(address, prefixLength, info);
+                } else {
+                    staging.remove(address, prefixLength);
+                }
+            }
+            fib = new Fib(fib.version + 1, staging.snapshot());
+        }
+    }
+
+    @Override
+    public long getVersion() {
+        return fib.version;
+    }
+
+    @Override
+    public int size() {
+        return table.size();
+    }
+
+    @Override
+    public void forEach(RouteVisitor visitor) {
+        fib.routes.forEach((address, prefixLength, info) ->
+            visitor.visit(address, prefixLength, info.getDistance(), info.getHops(), info.getNextHopAddress()));
+    }
+
+    @Override
+    public boolean hasChanges() {
+        return !changed.isEmpty();
+    }
+
+    @Override
+    public void drainChanges(RouteVisitor visitor) {
+        for (String destination : changed) {
+            changed.remove(destination);
+            RoutingInfo info = table.get(destination);
+
+            if (info != null) {
+                visitor.visit(IPv4.prefixAddress(destination), IPv4.prefixLength(destination),
+                    info.getDistance(), info.getHops(), info.getNextHopAddress());
+            }
+        }
+    }
+
+    @Override
+    public Set<Entry<String, RoutingInfo>> entrySet() {
+        return table.entrySet();
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return table.containsKey(normalize(key));
+    }
+
+    @Override
+    public int getDistance(String destination) {
+        return table.get(normalize(destination)).getDistance();
+    }
+
+    @Override
+    public RoutingInfo get(int address) {
+        return fib.routes.longestMatch(address, RoutingInfo::isReachable);
+    }
+
+    // 최대 경로 수를 넘는 ECMP 다음 홉은 버림
+    private Multipath limit(Multipath alternates) {
+        while (alternates.size() > maxAlternates) {
+            alternates = alternates.without(alternates.getNextHop(alternates.size() - 1));
+        }
+        return alternates;
+    }
+
+    private static String normalize(String destination) {
+        return IPv4.formatPrefix(IPv4.prefixAddress(destination), IPv4.prefixLength(destination));
+    }
+}
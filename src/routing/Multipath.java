@@ -0,0 +1,205 @@
+package routing;
+
+import java.util.Arrays;
+
+// 대표 경로 외에 같은(또는 허용 범위 안) 비용으로 쓸 수 있는 다음 홉 목록 (ECMP), 만든 뒤에는 바뀌지 않음
+// 다음 홉마다 광고받은 거리, 홉 수, 마지막으로 광고를 받은 시각을 함께 보관
+public final class Multipath {
+    public static final Multipath NONE = new Multipath(new int[0], new int[0], new int[0], new long[0]);
+
+    private final int[] nextHops;
+    private final int[] distances;
+    private final int[] hops;
+    private final long[] updatedAt;
+    private volatile Paths paths; // 마지막으로 만든 정렬된 다음 홉 배열 (목록이 바뀌면 새 Multipath가 생기므로 대표 다음 홉만 확인)
+
+    // 대표 다음 홉과 그것을 포함해 정렬한 다음 홉 배열
+    private record Paths(int primary, int[] nextHops) {
+    }
+
+    private Multipath(int[] nextHops, int[] distances, int[] hops, long[] updatedAt) {
+        this.nextHops = nextHops;
+        this.distances = distances;
+        this.hops = hops;
+        this.updatedAt = updatedAt;
+    }
+
+    // 거리와 홉 수가 같은 다음 홉 목록 (링크 상태 계산 결과용)
+    public static Multipath of(int[] nextHops, int distance, int hops, long now) {
+        Multipath result = NONE;
+
+        for (int nextHop : nextHops) {
+            result = result.with(nextHop, distance, hops, now);
+        }
+        return result;
+    }
+
+    public int size() {
+        return nextHops.length;
+    }
+
+    public boolean isEmpty() {
+        return nextHops.length == 0;
+    }
+
+    public int getNextHop(int i) {
+        return nextHops[i];
+    }
+
+    public int getDistance(int i) {
+        return distances[i];
+    }
+
+    public int getHops(int i) {
+        return hops[i];
+    }
+
+    public long getUpdatedAt(int i) {
+        return updatedAt[i];
+    }
+
+    public int indexOf(int nextHop) {
+        for (int i = 0; i < nextHops.length; i++) {
+            if (nextHops[i] == nextHop) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // 거리가 가장 짧은 항목 위치, 비어 있으면 -1
+    public int best() {
+        int best = -1;
+
+        for (int i = 0; i < distances.length; i++) {
+            if (best < 0 || distances[i] < distances[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    // 이웃이 광고한 경로를 반영: 대표 거리 + slack 안이면 추가/갱신하고 (limit개까지), 벗어나면 제외
+    public Multipath offer(int nextHop, int distance, int hops, long now, int bestDistance, int slack, int limit) {
+        Multipath result = without(nextHop);
+
+        if (distance >= RoutingTable.INFINITY || bestDistance >= RoutingTable.INFINITY
+            || distance < bestDistance || distance - bestDistance > slack || result.size() >= limit) {
+            return result;
+        }
+        return result.with(nextHop, distance, hops, now);
+    }
+
+    public Multipath without(int nextHop) {
+        int i = indexOf(nextHop);
+
+        if (i < 0) {
+            return this;
+        }
+        return filter(j -> j != i);
+    }
+
+    // 대표 거리가 바뀐 뒤 허용 범위를 벗어난 항목 제외
+    public Multipath within(int bestDistance, int slack) {
+        if (bestDistance >= RoutingTable.INFINITY) {
+            return NONE;
+        }
+        return filter(i -> distances[i] >= bestDistance && distances[i] - bestDistance <= slack);
+    }
+
+    // timeoutMs 동안 다시 광고되지 않은 항목 제외
+    public Multipath expire(long now, long timeoutMs) {
+        return filter(i -> now - updatedAt[i] <= timeoutMs);
+    }
+
+    // 갱신 시각을 빼고 같은 내용인지 (바뀐 경우에만 공개하도록)
+    public boolean sameRoutes(Multipath other) {
+        if (other.size() != size()) {
+            return false;
+        }
+        for (int i = 0; i < nextHops.length; i++) {
+            int j = other.indexOf(nextHops[i]);
+
+            if (j < 0 || other.distances[j] != distances[i] || other.hops[j] != hops[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 흐름 해시로 고른 다음 홉 (같은 흐름은 다음 홉 목록이 바뀌지 않는 한 항상 같은 홉으로 감)
+    // 정렬된 배열은 대표 다음 홉마다 한 번만 만들어 두므로 패킷마다 할당하거나 정렬하지 않음
+    public int select(int primary, int flowHash) {
+        if (nextHops.length == 0) {
+            return primary;
+        }
+
+        int[] sorted = paths(primary);
+        return sorted[(int) (((flowHash & 0xFFFFFFFFL) * sorted.length) >>> 32)];
+    }
+
+    // 대표 다음 홉을 포함한 정렬된 다음 홉 배열 (흐름 해시로 고를 때 목록 순서가 바뀌어도 같은 흐름은 같은 홉으로 가도록)
+    // 여러 스레드가 동시에 처음 만들어도 내용이 같으므로 마지막 것이 남아도 됨
+    private int[] paths(int primary) {
+        Paths cached = paths;
+
+        if (cached == null || cached.primary() != primary) {
+            int[] sorted = Arrays.copyOf(nextHops, nextHops.length + 1);
+            sorted[nextHops.length] = primary;
+            Arrays.sort(sorted);
+            paths = cached = new Paths(primary, sorted);
+        }
+        return cached.nextHops();
+    }
+
+    private Multipath with(int nextHop, int distance, int hops, long now) {
+        int n = nextHops.length;
+        int[] newNextHops = Arrays.copyOf(nextHops, n + 1);
+        int[] newDistances = Arrays.copyOf(distances, n + 1);
+        int[] newHops = Arrays.copyOf(this.hops, n + 1);
+        long[] newUpdatedAt = Arrays.copyOf(updatedAt, n + 1);
+
+        newNextHops[n] = nextHop;
+        newDistances[n] = distance;
+        newHops[n] = hops;
+        newUpdatedAt[n] = now;
+        return new Multipath(newNextHops, newDistances, newHops, newUpdatedAt);
+    }
+
+    private interface IndexFilter {
+        boolean keep(int i);
+    }
+
+    private Multipath filter(IndexFilter filter) {
+        int kept = 0;
+
+        for (int i = 0; i < nextHops.length; i++) {
+            if (filter.keep(i)) {
+                kept++;
+            }
+        }
+        if (kept == nextHops.length) {
+            return this;
+        }
+        if (kept == 0) {
+            return NONE;
+        }
+
+        int[] newNextHops = new int[kept];
+        int[] newDistances = new int[kept];
+        int[] newHops = new int[kept];
+        long[] newUpdatedAt = new long[kept];
+        int j = 0;
+
+        for (int i = 0; i < nextHops.length; i++) {
+            if (filter.keep(i)) {
+                newNextHops[j] = nextHops[i];
+                newDistances[j] = distances[i];
+                newHops[j] = hops[i];
+                newUpdatedAt[j] = updatedAt[i];
+                j++;
+            }
+        }
+        return new Multipath(newNextHops, newDistances, newHops, newUpdatedAt);
+    }
+}
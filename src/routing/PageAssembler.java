@@ -0,0 +1,68 @@
+package routing;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 여러 데이터그램으로 나뉜 광고의 페이지 도착 상황을 이웃별로 추적
+// 페이지는 도착하는 대로 병합하고, 여기서는 세대 시작/완료/유실만 판단
+public class PageAssembler {
+    public static final int FIRST_PAGE = 1; // 새 세대의 첫 도착 페이지
+    public static final int COMPLETE = 2; // 세대의 모든 페이지 도착
+    public static final int PREVIOUS_INCOMPLETE = 4; // 이전 세대가 완성되지 못하고 끝남 (페이지 유실)
+    public static final int STALE = 8; // 이미 지난 세대의 페이지
+
+    private static final int STALE_WINDOW = 64; // 이 범위 안의 이전 세대만 지난 것으로 간주 (재시작한 이웃 허용)
+
+    private static class Assembly {
+        private final int generation;
+        private final int pageCount;
+        private final BitSet received;
+
+        private Assembly(int generation, int pageCount) {
+            this.generation = generation;
+            this.pageCount = pageCount;
+            this.received = new BitSet(pageCount);
+        }
+
+        private boolean isComplete() {
+            return received.cardinality() == pageCount;
+        }
+    }
+
+    private final Map<String, Assembly> assemblies; // 이웃 IP -> 진행 중인 세대
+
+    public PageAssembler() {
+        this.assemblies = new ConcurrentHashMap<>();
+    }
+
+    // 페이지 도착 기록, 상태 플래그 조합 반환
+    public int accept(String source, int generation, int page, int pageCount) {
+        int status = 0;
+        Assembly assembly = assemblies.get(source);
+
+        if (assembly == null || assembly.generation != generation) {
+            int age = assembly == null ? 0 : assembly.generation - generation;
+
+            if (age > 0 && age < STALE_WINDOW) {
+                return STALE;
+            }
+            if (assembly != null && !assembly.isComplete()) {
+                status |= PREVIOUS_INCOMPLETE;
+            }
+
+            assembly = new Assembly(generation, Math.max(pageCount, 1));
+            assemblies.put(source, assembly);
+            status |= FIRST_PAGE;
+        }
+
+        if (page < assembly.pageCount) {
+            assembly.received.set(page);
+        }
+
+        if (assembly.isComplete()) {
+            status |= COMPLETE;
+        }
+        return status;
+    }
+}
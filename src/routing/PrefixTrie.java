@@ -0,0 +1,270 @@
+package routing;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.BinaryOperator;
+import java.util.function.Predicate;
+
+// int IPv4 접두사를 키로 하는 경로 압축 이진 트라이 (Patricia tree)
+// 조회 비용은 테이블 크기와 무관하게 최대 32단계
+// 노드는 변경하지 않고 경로만 복사하므로 snapshot()은 O(1)이고 스냅샷은 이후 변경과 무관함
+public class PrefixTrie<V> {
+    private static class Node<V> {
+        private final int key; // 마스크가 적용된 접두사 주소
+        private final int length; // 접두사 길이
+        private final V value; // null이면 분기용 노드
+        private final Node<V> left;
+        private final Node<V> right;
+
+        private Node(int key, int length, V value, Node<V> left, Node<V> right) {
+            this.key = key;
+            this.length = length;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+        }
+
+        private Node<V> child(int bit) {
+            return bit == 0 ? left : right;
+        }
+
+        // 한쪽 자식만 바꾼 사본
+        private Node<V> withChild(int bit, Node<V> child) {
+            return bit == 0 ? new Node<>(key, length, value, child, right) : new Node<>(key, length, value, left, child);
+        }
+
+        private Node<V> withValue(V newValue) {
+            return new Node<>(key, length, newValue, left, right);
+        }
+    }
+
+    public interface PrefixVisitor<V> {
+        void visit(int address, int prefixLength, V value);
+    }
+
+    private Node<V> root;
+    private int size;
+
+    public PrefixTrie() {
+    }
+
+    private PrefixTrie(Node<V> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    // 현재 상태의 불변 사본 (이후 put/remove의 영향을 받지 않음)
+    public PrefixTrie<V> snapshot() {
+        return new PrefixTrie<>(root, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // 접두사 추가 또는 교체, 이전 값 반환
+    public V put(int address, int prefixLength, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null value for " + IPv4.formatPrefix(address, prefixLength));
+        }
+
+        int key = address & IPv4.mask(prefixLength);
+        V previous = get(key, prefixLength);
+
+        root = insert(root, key, prefixLength, value);
+
+        if (previous == null) {
+            size++;
+        }
+        return previous;
+    }
+
+    // 정확히 일치하는 접두사의 값
+    public V get(int address, int prefixLength) {
+        int key = address & IPv4.mask(prefixLength);
+        Node<V> node = root;
+
+        while (node != null && node.length <= prefixLength && matches(key, node)) {
+            if (node.length == prefixLength) {
+                return node.value;
+            }
+            node = node.child(bitAt(key, node.length));
+        }
+        return null;
+    }
+
+    // 최장 접두사 일치 (longest prefix match)
+    public V longestMatch(int address) {
+        return longestMatch(address, value -> true);
+    }
+
+    // usable을 만족하는 값 중 최장 접두사 일치 (만족하지 않는 긴 접두사는 건너뛰고 짧은 접두사 사용)
+    public V longestMatch(int address, Predicate<V> usable) {
+        Node<V> node = root;
+        V best = null;
+
+        while (node != null && matches(address, node)) {
+            if (node.value != null && usable.test(node.value)) {
+                best = node.value;
+            }
+
+            if (node.length == 32) {
+                break;
+            }
+            node = node.child(bitAt(address, node.length));
+        }
+        return best;
+    }
+
+    // 접두사 삭제, 삭제된 값 반환
+    public V remove(int address, int prefixLength) {
+        int key = address & IPv4.mask(prefixLength);
+        V previous = get(key, prefixLength);
+
+        if (previous == null) {
+            return null;
+        }
+
+        root = delete(root, key, prefixLength);
+        size--;
+        return previous;
+    }
+
+    // 모든 접두사를 주소 순으로 방문
+    public void forEach(PrefixVisitor<V> visitor) {
+        visit(root, visitor);
+    }
+
+    // 경로 집약: 같은 방식으로 전달되는 형제 접두사를 상위 접두사로 합치고,
+    // 같은 방식으로 전달되는 상위 접두사에 포함된 하위 접두사는 제거
+    public PrefixTrie<V> aggregate(BiPredicate<V, V> sameForwarding, BinaryOperator<V> merger) {
+        List<Map<Integer, V>> levels = new ArrayList<>(33);
+
+        for (int i = 0; i <= 32; i++) {
+            levels.add(new HashMap<>());
+        }
+        forEach((address, prefixLength, value) -> levels.get(prefixLength).put(address, value));
+
+        // 긴 접두사부터 형제끼리 병합
+        for (int length = 32; length > 0; length--) {
+            Map<Integer, V> level = levels.get(length);
+            Map<Integer, V> parents = levels.get(length - 1);
+            int siblingBit = 1 << (32 - length);
+
+            for (Integer address : new ArrayList<>(level.keySet())) {
+                V value = level.get(address);
+                V sibling = level.get(address ^ siblingBit);
+                int parent = address & IPv4.mask(length - 1);
+
+                if (value == null || sibling == null || parents.containsKey(parent)
+                        || !sameForwarding.test(value, sibling)) {
+                    continue;
+                }
+
+                level.remove(address);
+                level.remove(address ^ siblingBit);
+                parents.put(parent, merger.apply(value, sibling));
+            }
+        }
+
+        // 짧은 접두사부터 넣으면서 덮는 경로와 전달 방식이 같은 하위 접두사 제거
+        PrefixTrie<V> aggregated = new PrefixTrie<>();
+
+        for (int length = 0; length <= 32; length++) {
+            for (Map.Entry<Integer, V> entry : levels.get(length).entrySet()) {
+                V covering = aggregated.longestMatch(entry.getKey());
+
+                if (covering == null || !sameForwarding.test(covering, entry.getValue())) {
+                    aggregated.put(entry.getKey(), length, entry.getValue());
+                }
+            }
+        }
+        return aggregated;
+    }
+
+    private Node<V> insert(Node<V> node, int key, int length, V value) {
+        if (node == null) {
+            return new Node<>(key, length, value, null, null);
+        }
+
+        int common = commonLength(key, length, node.key, node.length);
+
+        if (common == node.length) {
+            // 같은 접두사면 값만 교체
+            if (length == node.length) {
+                return node.withValue(value);
+            }
+
+            // 기존 노드가 새 접두사를 포함하면 하위로 내려감
+            int bit = bitAt(key, node.length);
+            return node.withChild(bit, insert(node.child(bit), key, length, value));
+        }
+
+        // 새 접두사가 기존 노드를 포함
+        if (common == length) {
+            return bitAt(node.key, length) == 0
+                ? new Node<>(key, length, value, node, null)
+                : new Node<>(key, length, value, null, node);
+        }
+
+        // 두 경로가 갈라지는 지점에 분기 노드 생성
+        Node<V> leaf = new Node<>(key, length, value, null, null);
+        return bitAt(key, common) == 0
+            ? new Node<>(key & IPv4.mask(common), common, null, leaf, node)
+            : new Node<>(key & IPv4.mask(common), common, null, node, leaf);
+    }
+
+    private Node<V> delete(Node<V> node, int key, int length) {
+        if (node.length == length) {
+            return compact(node.withValue(null));
+        }
+
+        int bit = bitAt(key, node.length);
+        return compact(node.withChild(bit, delete(node.child(bit), key, length)));
+    }
+
+    // 값이 없는 노드는 자식이 둘일 때만 유지
+    private Node<V> compact(Node<V> node) {
+        if (node.value != null) {
+            return node;
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        return node;
+    }
+
+    private void visit(Node<V> node, PrefixVisitor<V> visitor) {
+        if (node == null) {
+            return;
+        }
+        if (node.value != null) {
+            visitor.visit(node.key, node.length, node.value);
+        }
+        visit(node.left, visitor);
+        visit(node.right, visitor);
+    }
+
+    private static boolean matches(int address, Node<?> node) {
+        return ((address ^ node.key) & IPv4.mask(node.length)) == 0;
+    }
+
+    private static int commonLength(int a, int aLength, int b, int bLength) {
+        return Math.min(Integer.numberOfLeadingZeros(a ^ b), Math.min(aLength, bLength));
+    }
+
+    // 최상위 비트부터 index 번째 비트
+    private static int bitAt(int address, int index) {
+        return (address >>> (31 - index)) & 1;
+    }
+}
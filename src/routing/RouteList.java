@@ -0,0 +1,46 @@
+package routing;
+
+import java.util.Arrays;
+
+// 경로를 병렬 원시 배열로 모아두는 목록 (증분 광고 등 임시 보관용)
+public class RouteList implements RoutingPacket.RouteSource {
+    private int[] addresses = new int[16];
+    private byte[] lengths = new byte[16];
+    private int[] distances = new int[16];
+    private int[] hops = new int[16];
+    private int[] nextHops = new int[16];
+    private int size;
+
+    public void add(int address, int prefixLength, int distance, int hops, int nextHop) {
+        if (size == addresses.length) {
+            int capacity = size * 2;
+            addresses = Arrays.copyOf(addresses, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            distances = Arrays.copyOf(distances, capacity);
+            this.hops = Arrays.copyOf(this.hops, capacity);
+            nextHops = Arrays.copyOf(nextHops, capacity);
+        }
+
+        addresses[size] = address;
+        lengths[size] = (byte) prefixLength;
+        distances[size] = distance;
+        this.hops[size] = hops;
+        nextHops[size] = nextHop;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void forEach(RoutingTable.RouteVisitor visitor) {
+        for (int i = 0; i < size; i++) {
+            visitor.visit(addresses[i], lengths[i], distances[i], hops[i], nextHops[i]);
+        }
+    }
+}
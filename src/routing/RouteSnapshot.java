@@ -0,0 +1,239 @@
+package routing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import clock.Clock;
+
+// 라우팅 테이블 스냅샷 파일 (재시작할 때 이전 경로로 빠르게 다시 채우기 위함)
+// 헤더: MAGIC(4) VERSION(2) ENTRY_SIZE(2) CAPACITY(4) COUNT(4) SAVED_AT(8) SAVES(4) CRC32(4)
+// 항목: 주소(4) 다음 홉(4) 거리(2) 접두사 길이(1) 홉(1) CRC32(4), 항목마다 체크섬이 있어서 쓰다 끊긴 항목만 버림
+// 파일을 메모리 매핑하고 목적지마다 칸을 고정해서, 저장할 때 값이 바뀐 칸과 헤더만 다시 씀
+// 없어진 경로의 칸은 마지막 칸으로 채워서 항목이 COUNT개로 빈틈없이 유지됨
+// 직접 연결된 서브넷(홉 0)과 도달 불가 경로는 저장하지 않음
+public class RouteSnapshot implements AutoCloseable {
+    private static final int MAGIC = 0x444E5253; // "DNRS"
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int ENTRY_SIZE = 16;
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final Map<Long, Integer> slots; // 목적지 키 -> 칸
+    private final CRC32 crc;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private long[] keys; // 칸 -> 목적지 키 (주소 << 8 | 접두사 길이)
+    private long[] values; // 칸 -> 다음 홉 << 32 | 거리 << 8 | 홉
+    private int[] seen; // 칸 -> 마지막으로 본 저장 번호
+    private int count;
+    private int saves;
+    private long savedAt = -1; // 열 때 읽은 파일의 저장 시각 (헤더가 잘못됐으면 -1)
+    private int corrupt; // 읽을 때 체크섬이 맞지 않은 항목 수
+
+    public RouteSnapshot(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.slots = new HashMap<>();
+        this.crc = new CRC32();
+
+        long size = channel.size();
+        this.capacity = INITIAL_CAPACITY;
+
+        if (size >= HEADER_SIZE) {
+            map(size);
+
+            if (isValidHeader(size)) {
+                savedAt = buffer.getLong(16);
+                saves = buffer.getInt(24);
+                capacity = buffer.getInt(8);
+            }
+        }
+        map(fileSize(capacity));
+
+        this.keys = new long[capacity];
+        this.values = new long[capacity];
+        this.seen = new int[capacity];
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    // 파일의 저장 시각 (Clock.millis, 경로 갱신 시각과 같은 기준), 파일이 없거나 헤더가 잘못됐으면 -1
+    public long getSavedAt() {
+        return savedAt;
+    }
+
+    // 마지막 load에서 체크섬이 맞지 않아 건너뛴 항목 수
+    public int getCorrupt() {
+        return corrupt;
+    }
+
+    // 파일에 남아 있던 경로를 방문하고 방문한 수 반환 (헤더가 잘못됐으면 0)
+    // 읽기만 하므로 다음 save가 모든 칸을 새로 씀
+    public synchronized int load(RoutingTable.RouteVisitor visitor) {
+        corrupt = 0;
+
+        if (savedAt < 0) {
+            return 0;
+        }
+
+        int loaded = 0;
+        int stored = buffer.getInt(12);
+
+        for (int slot = 0; slot < stored; slot++) {
+            int offset = HEADER_SIZE + slot * ENTRY_SIZE;
+
+            if (checksum(offset, ENTRY_SIZE - 4) != buffer.getInt(offset + 12)) {
+                corrupt++;
+                continue;
+            }
+            visitor.visit(buffer.getInt(offset), buffer.get(offset + 10) & 0xFF, buffer.getShort(offset + 8) & 0xFFFF,
+                buffer.get(offset + 11) & 0xFF, buffer.getInt(offset + 4));
+            loaded++;
+        }
+        return loaded;
+    }
+
+    // 테이블의 현재 경로를 저장하고 다시 쓴 칸 수 반환 (값이 그대로인 칸은 건드리지 않음)
+    public synchronized int save(RoutingTable table) throws IOException {
+        int save = ++saves;
+        int[] written = new int[1];
+
+        table.forEach((address, prefixLength, distance, hops, nextHop) -> {
+            if (hops == 0 || distance >= RoutingTable.INFINITY) {
+                return;
+            }
+
+            long key = (long) address << 8 | prefixLength;
+            long value = (long) nextHop << 32 | (long) distance << 8 | Math.min(hops, 0xFF);
+            Integer slot = slots.get(key);
+
+            if (slot == null) {
+                slot = append(key);
+            }
+            seen[slot] = save;
+
+            if (values[slot] != value) {
+                values[slot] = value;
+                writeEntry(slot);
+                written[0]++;
+            }
+        });
+
+        // 이번에 보지 못한 경로는 마지막 칸으로 채움 (뒤에서부터 보면 옮겨 온 칸은 이미 확인한 칸)
+        for (int slot = count - 1; slot >= 0; slot--) {
+            if (seen[slot] == save) {
+                continue;
+            }
+
+            int last = --count;
+            slots.remove(keys[slot]);
+
+            if (slot != last) {
+                keys[slot] = keys[last];
+                values[slot] = values[last];
+                seen[slot] = seen[last];
+                slots.put(keys[slot], slot);
+                writeEntry(slot);
+                written[0]++;
+            }
+        }
+
+        writeHeader(Clock.millis());
+        buffer.force();
+        return written[0];
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    // 새 목적지에 마지막 칸을 배정 (가득 차면 파일을 두 배로 늘려 다시 매핑)
+    private int append(long key) {
+        if (count == capacity) {
+            try {
+                capacity *= 2;
+                map(fileSize(capacity));
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot grow routing snapshot " + path + ": " + e.getMessage(), e);
+            }
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+            seen = Arrays.copyOf(seen, capacity);
+        }
+
+        int slot = count++;
+        keys[slot] = key;
+        values[slot] = -1; // 아직 쓰지 않은 칸
+        slots.put(key, slot);
+        return slot;
+    }
+
+    private void writeEntry(int slot) {
+        int offset = HEADER_SIZE + slot * ENTRY_SIZE;
+        long key = keys[slot];
+        long value = values[slot];
+
+        buffer.putInt(offset, (int) (key >>> 8));
+        buffer.putInt(offset + 4, (int) (value >>> 32));
+        buffer.putShort(offset + 8, (short) (value >>> 8));
+        buffer.put(offset + 10, (byte) key);
+        buffer.put(offset + 11, (byte) value);
+        buffer.putInt(offset + 12, checksum(offset, ENTRY_SIZE - 4));
+    }
+
+    private void writeHeader(long now) {
+        buffer.putInt(0, MAGIC);
+        buffer.putShort(4, VERSION);
+        buffer.putShort(6, (short) ENTRY_SIZE);
+        buffer.putInt(8, capacity);
+        buffer.putInt(12, count);
+        buffer.putLong(16, now);
+        buffer.putInt(24, saves);
+        buffer.putInt(28, checksum(0, HEADER_SIZE - 4));
+    }
+
+    private boolean isValidHeader(long size) {
+        if (buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION || buffer.getShort(6) != ENTRY_SIZE
+                || checksum(0, HEADER_SIZE - 4) != buffer.getInt(28)) {
+            return false;
+        }
+
+        int fileCapacity = buffer.getInt(8);
+        int stored = buffer.getInt(12);
+        return fileCapacity > 0 && stored >= 0 && stored <= fileCapacity && fileSize(fileCapacity) <= size;
+    }
+
+    private int checksum(int offset, int length) {
+        ByteBuffer bytes = buffer.slice(offset, length);
+        crc.reset();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    private void map(long size) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private static long fileSize(int capacity) {
+        return HEADER_SIZE + (long) capacity * ENTRY_SIZE;
+    }
+}
@@ -3,12 +3,32 @@ package routing;
 public class RoutingInfo {
     private final int distance;
     private final int hops;
-    private final String nextHop;
+    private final int nextHop; // int로 인코딩된 다음 홉 (전달 경로는 문자열을 거치지 않음)
+    private final String nextHopText; // 문자열로 만든 경우의 원래 값 (텍스트 광고 항목은 목적지 접두사를 담음), 아니면 null
+    private final long updatedAt; // 마지막으로 광고를 받은 시각(ms), 경로 시간 초과 판단용
+    private final Multipath alternates; // 같은 비용으로 쓸 수 있는 다른 다음 홉 (ECMP)
 
+    // 텍스트 광고 항목용 (nextHop 자리에 목적지 접두사가 올 수 있어 해석하지 않고 그대로 보관)
     public RoutingInfo(int distance, int hops, String nextHop) {
+        this.distance = distance;
+        this.hops = hops;
+        this.nextHop = 0;
+        this.nextHopText = nextHop;
+        this.updatedAt = 0;
+        this.alternates = Multipath.NONE;
+    }
+
+    public RoutingInfo(int distance, int hops, int nextHop, long updatedAt) {
+        this(distance, hops, nextHop, updatedAt, Multipath.NONE);
+    }
+
+    public RoutingInfo(int distance, int hops, int nextHop, long updatedAt, Multipath alternates) {
         this.distance = distance;
         this.hops = hops;
         this.nextHop = nextHop;
+        this.nextHopText = null;
+        this.updatedAt = updatedAt;
+        this.alternates = alternates;
     }
 
     public int getDistance() {
@@ -19,7 +39,35 @@ public class RoutingInfo {
         return hops;
     }
 
+    // 출력용 문자열 (부를 때마다 만듦)
     public String getNextHop() {
-        return nextHop;
+        return nextHopText != null ? nextHopText : IPv4.format(nextHop);
+    }
+
+    public int getNextHopAddress() {
+        return nextHopText != null ? IPv4.parse(nextHopText) : nextHop;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Multipath getAlternates() {
+        return alternates;
+    }
+
+    // 대표 다음 홉을 포함한 다음 홉 수
+    public int pathCount() {
+        return alternates.size() + 1;
+    }
+
+    // 흐름 해시로 고른 다음 홉 (같은 흐름은 다음 홉 목록이 바뀌지 않는 한 항상 같은 홉으로 감)
+    public int selectNextHop(int flowHash) {
+        return alternates.select(getNextHopAddress(), flowHash);
+    }
+
+    // 도달 불가로 광고 중인 경로가 아닌지
+    public boolean isReachable() {
+        return distance < RoutingTable.INFINITY;
     }
 }
@@ -1,11 +1,47 @@
 package routing;
 
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
+import logging.Logger;
+
+// 라우팅 광고 패킷
+// 텍스트: ROUTING_TABLE;목적지:거리:홉,...[,BIN]
+// 바이너리 v1: MAGIC(1) VERSION(1) TYPE(1) FLAGS(1) COUNT(2) + 항목
+// 바이너리 v2: MAGIC(1) VERSION(1) TYPE(1) FLAGS(1) COUNT(2) SEQUENCE(4) + 항목
+// 바이너리 v3: v2 헤더 + GENERATION(4) PAGE(2) PAGE_COUNT(2) + 항목 (한 광고를 여러 데이터그램으로 분할)
+// 항목: 주소(4) 접두사 길이(1) 거리(varint) 홉(varint)
 public class RoutingPacket {
+    public static final int TYPE_FULL_TABLE = 0; // 전체 테이블
+    public static final int TYPE_CHANGES = 1; // 바뀐 경로만 (증분)
+    public static final int TYPE_RESYNC_REQUEST = 2; // 전체 테이블 재전송 요청
+    public static final int NO_SEQUENCE = -1; // 순번이 없는 v1 패킷
+
     private static final String ROUTING_TABLE_PREFIX = "ROUTING_TABLE;";
+    private static final String BINARY_CAPABILITY = "BIN"; // 텍스트 광고에 붙이는 바이너리 지원 표시
+
+    private static final byte MAGIC = (byte) 0xD5; // 텍스트 광고의 첫 글자 'R'과 구분
+    private static final byte VERSION = 3;
+    private static final int V1_HEADER_SIZE = 6;
+    private static final int V2_HEADER_SIZE = 10;
+    private static final int HEADER_SIZE = 18;
+    private static final int MAX_ENTRY_SIZE = 4 + 1 + 5 + 5;
+    private static final int MAX_TEXT_ENTRY_SIZE = 18 + 1 + 10 + 1 + 10 + 1; // "a.b.c.d/len:거리:홉,"
+    private static final int MAX_PAGES = 0xFFFF;
+
+    // 바이너리 광고 항목을 받는 콜백
+    public interface EntryVisitor {
+        void visit(int address, int prefixLength, int distance, int hops);
+    }
+
+    // 광고할 경로 목록 (테이블 전체, 집약 결과, 변경분 등)
+    public interface RouteSource {
+        void forEach(RoutingTable.RouteVisitor visitor);
+    }
 
     private final List<RoutingInfo> routeInfos;
 
@@ -13,23 +49,27 @@ public class RoutingPacket {
         this.routeInfos = new ArrayList<RoutingInfo>();
 
         if (!message.startsWith(ROUTING_TABLE_PREFIX)) {
-            System.err.println("Invalid routing table format, ignoring.");
+            Logger.root().warn("Invalid routing table format, ignoring.");
             return;
         }
     
         String tableData = message.substring(ROUTING_TABLE_PREFIX.length());
         if (tableData.isEmpty()) {
-            System.err.println("Received an empty routing table, ignoring.");
+            Logger.root().warn("Received an empty routing table, ignoring.");
             return;
         }
 
         String[] entries = tableData.split(",");
 
         for (String entry : entries) {
+            if (entry.equals(BINARY_CAPABILITY)) {
+                continue;
+            }
+
             String[] parts = entry.split(":");
 
             if (parts.length != 3) {
-                System.err.println("Malformed routing table entry: " + entry);
+                Logger.root().warn("Malformed routing table entry: " + entry);
                 continue;
             }
     
@@ -41,7 +81,20 @@ public class RoutingPacket {
                 distance = Integer.parseInt(parts[1]);
                 hops = Integer.parseInt(parts[2]);
             } catch (NumberFormatException e) {
-                System.err.println("Invalid distance or hops value for entry: " + entry);
+                Logger.root().warn("Invalid distance or hops value for entry: " + entry);
+                continue;
+            }
+
+            if (!isValidMetric(distance, hops)) {
+                Logger.root().warn("Out of range distance or hops in routing table entry, ignoring packet: " + entry);
+                routeInfos.clear();
+                return;
+            }
+
+            try {
+                IPv4.prefixAddress(destination);
+            } catch (IllegalArgumentException e) {
+                Logger.root().warn("Invalid destination for entry: " + entry);
                 continue;
             }
 
@@ -55,27 +108,268 @@ public class RoutingPacket {
 
     // 라우팅 테이블을 패킷으로 변환
     public static String create(RoutingTable table, List<String> selfIPAddresses) {
-        if (table.isEmpty()) {
-            for (String selfIP : selfIPAddresses) {
-                table.addRoutingPath(selfIP, 0, 0, selfIP);
-            }
-        }
-        
+        seedIfEmpty(table, selfIPAddresses);
+        return createPages(table::forEachAggregated, false, Integer.MAX_VALUE).get(0);
+    }
+
+    // interfaceIP로 내보낼 라우팅 테이블 패킷 (분할 지평 + 역방향 독성 적용)
+    public static String create(RoutingTable table, List<String> selfIPAddresses, String interfaceIP, int prefixLength) {
+        seedIfEmpty(table, selfIPAddresses);
+        return createPages(poisonReverse(table::forEachAggregated, IPv4.parse(interfaceIP), prefixLength),
+            false, Integer.MAX_VALUE).get(0);
+    }
+
+    // 분할 지평 + 역방향 독성: 인터페이스 서브넷의 이웃을 다음 홉으로 쓰는 경로는 그 인터페이스로 도달 불가로 광고
+    // (그 이웃이 이 라우터를 거쳐 되돌아오는 경로를 고르지 않으므로 링크 장애 시 무한 세기가 생기지 않음)
+    public static RouteSource poisonReverse(RouteSource routes, int interfaceAddress, int prefixLength) {
+        int mask = IPv4.mask(prefixLength);
+
+        return visitor -> routes.forEach((address, length, distance, hops, nextHop) -> {
+            boolean viaInterface = nextHop != interfaceAddress && (nextHop & mask) == (interfaceAddress & mask);
+            visitor.visit(address, length, viaInterface ? RoutingTable.INFINITY : distance, hops, nextHop);
+        });
+    }
+
+    // 경로 목록을 maxSize 바이트 이하의 텍스트 패킷들로 변환, binaryCapable이면 바이너리 지원 표시 추가
+    // 각 페이지는 독립된 텍스트 광고이므로 기존 라우터도 그대로 병합할 수 있음
+    public static List<String> createPages(RouteSource routes, boolean binaryCapable, int maxSize) {
+        List<String> pages = new ArrayList<>();
+        String suffix = binaryCapable ? BINARY_CAPABILITY : "";
+        int limit = Math.max(maxSize - suffix.length(), ROUTING_TABLE_PREFIX.length() + MAX_TEXT_ENTRY_SIZE);
         StringBuilder sb = new StringBuilder(ROUTING_TABLE_PREFIX);
         
-        for (Map.Entry<String, RoutingInfo> entry : table.entrySet()) {
-            sb.append(entry.getKey())
+        routes.forEach((address, prefixLength, distance, hops, nextHop) -> {
+            if (sb.length() + MAX_TEXT_ENTRY_SIZE > limit) {
+                pages.add(sb.append(suffix).toString());
+                sb.setLength(ROUTING_TABLE_PREFIX.length());
+            }
+
+            sb.append(IPv4.formatPrefix(address, prefixLength))
               .append(":")
-              .append(entry.getValue().getDistance())
+              .append(distance)
               .append(":")
-              .append(entry.getValue().getHops())
+              .append(hops)
               .append(",");
+        });
+
+        pages.add(sb.append(suffix).toString());
+        return pages;
+    }
+
+    // 라우팅 테이블 전체를 maxSize 바이트 이하의 바이너리 페이지들로 인코딩
+    public static List<ByteBuffer> encodePages(RoutingTable table, List<String> selfIPAddresses, int maxSize) {
+        seedIfEmpty(table, selfIPAddresses);
+        return encodePages(TYPE_FULL_TABLE, 0, 0, table::forEachAggregated, maxSize);
+    }
+
+    // 경로 목록을 maxSize 바이트 이하의 바이너리 페이지들로 인코딩 (읽기 위치로 되돌린 버퍼 목록)
+    // 같은 광고의 페이지는 세대 번호를 공유하고 각자 페이지 번호와 전체 페이지 수를 가짐
+    public static List<ByteBuffer> encodePages(int type, int sequence, int generation, RouteSource routes, int maxSize) {
+        return encodePages(type, sequence, generation, routes, maxSize, null);
+    }
+
+    // 페이지 수 필드(16비트)의 한계인 MAX_PAGES를 넘는 경로는 담지 못하므로 경고하고 omitted에 더함 (null이면 세지 않음)
+    public static List<ByteBuffer> encodePages(int type, int sequence, int generation, RouteSource routes, int maxSize,
+            LongAdder omitted) {
+        int pageSize = Math.max(maxSize, HEADER_SIZE + MAX_ENTRY_SIZE);
+        List<ByteBuffer> pages = new ArrayList<>();
+        int[] dropped = new int[1];
+        pages.add(startPage(type, sequence, generation, 0, pageSize));
+
+        routes.forEach((address, prefixLength, distance, hops, nextHop) -> {
+            ByteBuffer page = pages.get(pages.size() - 1);
+
+            if (page.remaining() < MAX_ENTRY_SIZE) {
+                if (pages.size() == MAX_PAGES) {
+                    dropped[0]++;
+                    return;
+                }
+                page = startPage(type, sequence, generation, pages.size(), pageSize);
+                pages.add(page);
+            }
+
+            page.putInt(address).put((byte) prefixLength);
+            putVarint(page, distance);
+            putVarint(page, hops);
+            page.putShort(4, (short) (page.getShort(4) + 1));
+        });
+
+        for (ByteBuffer page : pages) {
+            page.putShort(16, (short) pages.size());
+            page.flip();
         }
-        return sb.toString();
+
+        if (dropped[0] > 0) {
+            Logger.root().warn("Routing advertisement exceeds " + MAX_PAGES + " pages of " + pageSize + " bytes, omitted "
+                + dropped[0] + " routes");
+
+            if (omitted != null) {
+                omitted.add(dropped[0]);
+            }
+        }
+        return pages;
+    }
+
+    private static ByteBuffer startPage(int type, int sequence, int generation, int page, int pageSize) {
+        ByteBuffer buffer = ByteBuffer.allocate(pageSize);
+        buffer.put(MAGIC).put(VERSION).put((byte) type).put((byte) 0).putShort((short) 0)
+            .putInt(sequence).putInt(generation).putShort((short) page).putShort((short) 1);
+        return buffer;
+    }
+
+    // 바이너리 패킷의 항목을 문자열 할당 없이 순서대로 전달, 형식이 잘못되면 false
+    public static boolean decode(ByteBuffer buffer, EntryVisitor visitor) {
+        try {
+            if (buffer.get() != MAGIC) {
+                Logger.root().warn("Invalid binary routing packet, ignoring.");
+                return false;
+            }
+
+            byte version = buffer.get();
+
+            if (version < 1 || version > VERSION) {
+                Logger.root().warn("Unsupported binary routing packet version: " + version);
+                return false;
+            }
+
+            byte type = buffer.get();
+            buffer.get(); // flags
+            int count = buffer.getShort() & 0xFFFF;
+
+            if (version >= 2) {
+                buffer.getInt(); // sequence
+            }
+
+            if (version >= 3) {
+                buffer.position(buffer.position() + 8); // generation, page, page count
+            }
+
+            if (type == TYPE_RESYNC_REQUEST) {
+                return true;
+            }
+
+            if (type != TYPE_FULL_TABLE && type != TYPE_CHANGES) {
+                Logger.root().warn("Unknown binary routing packet type: " + type);
+                return false;
+            }
+
+            // 범위를 벗어난 거리나 홉 수가 하나라도 있으면 광고 전체를 버림 (병합 전에 먼저 확인)
+            int entries = buffer.position();
+
+            for (int i = 0; i < count; i++) {
+                buffer.getInt(); // 주소
+                buffer.get(); // 접두사 길이
+                int distance = getVarint(buffer);
+                int hops = getVarint(buffer);
+
+                if (!isValidMetric(distance, hops)) {
+                    Logger.root().warn("Out of range distance or hops in binary routing packet, ignoring: "
+                        + Integer.toUnsignedString(distance) + ":" + Integer.toUnsignedString(hops));
+                    return false;
+                }
+            }
+            buffer.position(entries);
+
+            for (int i = 0; i < count; i++) {
+                int address = buffer.getInt();
+                int prefixLength = buffer.get() & 0xFF;
+                int distance = getVarint(buffer);
+                int hops = getVarint(buffer);
+
+                if (prefixLength > 32) {
+                    Logger.root().warn("Invalid prefix length in binary routing packet: " + prefixLength);
+                    continue;
+                }
+                visitor.visit(address & IPv4.mask(prefixLength), prefixLength, distance, hops);
+            }
+            return true;
+        } catch (BufferUnderflowException | BufferOverflowException e) {
+            Logger.root().warn("Truncated binary routing packet, ignoring.");
+            return false;
+        }
+    }
+
+    // 바이너리 패킷 종류 (위치를 옮기지 않음)
+    public static int getType(ByteBuffer buffer) {
+        return buffer.remaining() < V1_HEADER_SIZE ? -1 : buffer.get(buffer.position() + 2);
+    }
+
+    // 바이너리 패킷 순번 (v1이면 NO_SEQUENCE)
+    public static int getSequence(ByteBuffer buffer) {
+        if (buffer.remaining() < V2_HEADER_SIZE || buffer.get(buffer.position() + 1) < 2) {
+            return NO_SEQUENCE;
+        }
+        return buffer.getInt(buffer.position() + 6);
+    }
+
+    // 광고 세대 번호 (페이지가 없는 v1/v2면 0)
+    public static int getGeneration(ByteBuffer buffer) {
+        return isPaged(buffer) ? buffer.getInt(buffer.position() + 10) : 0;
+    }
+
+    // 페이지 번호 (0부터)
+    public static int getPage(ByteBuffer buffer) {
+        return isPaged(buffer) ? buffer.getShort(buffer.position() + 14) & 0xFFFF : 0;
+    }
+
+    // 광고 전체 페이지 수
+    public static int getPageCount(ByteBuffer buffer) {
+        return isPaged(buffer) ? buffer.getShort(buffer.position() + 16) & 0xFFFF : 1;
+    }
+
+    private static boolean isPaged(ByteBuffer buffer) {
+        return buffer.remaining() >= HEADER_SIZE && buffer.get(buffer.position() + 1) >= 3;
     }
 
     // 정상적인 라우팅 패킷인지 확인
     public static boolean isRoutingPacket(String message) {
         return message.startsWith(ROUTING_TABLE_PREFIX);
     }
+
+    // 바이너리 라우팅 패킷인지 확인 (첫 바이트로 자동 판별)
+    public static boolean isBinary(byte[] data, int offset, int length) {
+        return length > 0 && data[offset] == MAGIC;
+    }
+
+    // 텍스트 광고를 보낸 쪽이 바이너리를 지원하는지 확인
+    public static boolean isBinaryCapable(String message) {
+        return message.endsWith(BINARY_CAPABILITY);
+    }
+
+    // 빈 테이블이면 자신의 주소로 채움
+    private static void seedIfEmpty(RoutingTable table, List<String> selfIPAddresses) {
+        if (table.isEmpty()) {
+            for (String selfIP : selfIPAddresses) {
+                table.addRoutingPath(selfIP, 0, 0, selfIP);
+            }
+        }
+    }
+
+    // 거리는 0~INFINITY, 홉 수는 0 이상 INFINITY 이하 (음수 거리는 병합에서 모든 경로를 이김)
+    private static boolean isValidMetric(int distance, int hops) {
+        return distance >= 0 && distance <= RoutingTable.INFINITY && hops >= 0 && hops <= RoutingTable.INFINITY;
+    }
+
+    // 부호 없는 LEB128
+    private static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new BufferUnderflowException();
+    }
 }
@@ -1,66 +1,202 @@
 package routing;
 
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
-public class RoutingTable {
-    private final Map<String, RoutingInfo> table;
+import clock.Clock;
+import logging.Logger;
 
-    public RoutingTable() {
-        this.table = new ConcurrentHashMap<>();
+// 라우팅 테이블 공통 인터페이스 (병합 규칙은 구현과 무관하게 동일)
+public interface RoutingTable {
+    // 도달 불가 거리 (거리가 누적 딜레이(ms)라 RIP의 16 대신 큰 값 사용), 이 거리의 경로는 조회되지 않고 광고에만 쓰임
+    int INFINITY = 0xFFFF;
+
+    // 이 홉 수를 넘는 경로는 도달 불가로 취급 (무한 세기 제한)
+    int MAX_HOPS = 16;
+
+    // 경로가 없을 때 nextHop이 돌려주는 값 (0.0.0.0은 다음 홉이 될 수 없음)
+    int NO_ROUTE = 0;
+
+    // 경로를 받는 콜백 (주소와 다음 홉은 int로 인코딩된 IPv4)
+    interface RouteVisitor {
+        void visit(int address, int prefixLength, int distance, int hops, int nextHop);
+    }
+
+    // 더 짧은 거리일 때만 원자적으로 반영하고 반영 여부 반환 (조회에는 publish 이후 보임)
+    boolean improve(int address, int prefixLength, int distance, int hops, int nextHop);
+
+    // 거리와 상관없이 경로를 설정하고 값이 바뀌었으면 true (링크 상태 계산 결과 반영용)
+    default boolean replace(int address, int prefixLength, int distance, int hops, int nextHop) {
+        return replace(address, prefixLength, distance, hops, nextHop, Multipath.NONE);
+    }
+
+    // 같은 비용의 다른 다음 홉까지 함께 설정 (최대 경로 수를 넘는 다음 홉은 버림)
+    boolean replace(int address, int prefixLength, int distance, int hops, int nextHop, Multipath alternates);
+
+    // 이웃 광고 경로를 거리 벡터 규칙으로 원자적으로 반영하고 반영 여부 반환
+    // 더 짧은 거리면 교체, 현재 다음 홉이 다시 광고하면 더 나빠졌어도(도달 불가 포함) 교체
+    // 값이 같으면 갱신 시각만 새로 기록 (도달 불가 경로는 삭제 타이머를 늘리지 않음)
+    // 다른 이웃이 같은(slack 안) 거리로 광고하면 최대 경로 수까지 ECMP 다음 홉으로 보관하고,
+    // 대표 경로가 나빠지면 더 짧은 ECMP 다음 홉을 대표로 올림
+    boolean learn(int address, int prefixLength, int distance, int hops, int nextHop, long now);
+
+    // 경로 삭제, 있었으면 true
+    boolean remove(int address, int prefixLength);
+
+    // 학습한 경로(홉 1 이상) 노화: timeoutMs 동안 광고가 없으면 도달 불가로 바꿔 광고 대상에 넣고,
+    // 도달 불가가 된 뒤 gcMs가 지나면 삭제, 바뀐 경로 수 반환 (조회에는 publish 이후 보임)
+    // ECMP 다음 홉도 같은 시간으로 노화하고, 대표 경로가 시간 초과되면 남은 ECMP 다음 홉을 대신 씀
+    int expire(long now, long timeoutMs, long gcMs);
+
+    // 마지막 publish 이후의 변경을 조회용 FIB 스냅샷으로 공개
+    void publish();
+
+    // 공개된 FIB 버전 (publish마다 증가)
+    long getVersion();
+
+    // int 목적지 주소에 대한 최장 접두사 일치 경로 (공개된 스냅샷 기준, 잠금 없음, 도달 불가 경로 제외)
+    RoutingInfo get(int address);
+
+    // 전달 경로용 조회: 최장 일치 경로의 대표 다음 홉, 없으면 NO_ROUTE (get과 같은 기준, RoutingInfo를 만들지 않는 구현이 덮어씀)
+    default int nextHop(int address) {
+        RoutingInfo route = get(address);
+        return route == null ? NO_ROUTE : route.getNextHopAddress();
+    }
+
+    // 전달 경로용 조회: 흐름 해시로 고른 ECMP 다음 홉, 없으면 NO_ROUTE
+    default int nextHop(int address, int flowHash) {
+        RoutingInfo route = get(address);
+        return route == null ? NO_ROUTE : route.selectNextHop(flowHash);
+    }
+
+    boolean containsKey(String destination);
+
+    int getDistance(String destination);
+
+    int size();
+
+    // 모든 경로 방문 (광고용, 일관된 시점의 내용)
+    void forEach(RouteVisitor visitor);
+
+    // 마지막 drainChanges 이후 추가/변경된 경로가 있는지
+    boolean hasChanges();
+
+    // 추가/변경된 경로를 현재 값으로 방문하고 변경 기록을 비움 (증분 광고용)
+    void drainChanges(RouteVisitor visitor);
+
+    // "a.b.c.d/len" -> 경로 (출력용 사본)
+    Set<Entry<String, RoutingInfo>> entrySet();
+
+    // 라우팅 테이블에 경로 추가 (destination은 "a.b.c.d/len" 또는 "a.b.c.d")
+    default void addRoutingPath(String destination, int distance, int hops, String nextHop) {
+        addRoutingPath(IPv4.prefixAddress(destination), IPv4.prefixLength(destination),
+            distance, hops, IPv4.parse(nextHop));
     }
 
-    // 라우팅 테이블에 경로 추가
-    public void addRoutingPath(String destination, int distance, int hops, String nextHop) {
-        synchronized (table) { // 동기화를 통해 다중 스레드 환경에서 안전하게 작업
-            if (table.containsKey(destination)) {
-                int currentDistance = table.get(destination).getDistance();
+    // 라우팅 테이블에 경로 추가 (int 인코딩, 더 짧은 거리일 때만 반영하고 바로 공개)
+    default void addRoutingPath(int address, int prefixLength, int distance, int hops, int nextHop) {
+        if (improve(address, prefixLength, distance, hops, nextHop)) {
+            publish();
+        }
+    }
 
-                if (distance >= currentDistance) {
-                    return;
-                }
-            }
-            table.put(destination, new RoutingInfo(distance, hops, nextHop));
+    // 목적지 IP에 대한 최장 접두사 일치 경로
+    default RoutingInfo get(String destinationIP) {
+        if (destinationIP == null) {
+            return null;
+        }
 
-            System.out.println("Route added/updated: " + destination + " via " + nextHop 
-                + " with distance " + distance + " and hops " + hops);
+        try {
+            return get(IPv4.parse(destinationIP));
+        } catch (IllegalArgumentException e) {
+            return null;
         }
     }
 
-    // 라우팅 테이블 병합
-    public void mergeRoutingTable(String message, String sourceIP, int delay) {
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // 라우팅 테이블 병합 (패킷 하나의 변경을 모아서 한 번에 공개)
+    default void mergeRoutingTable(String message, String sourceIP, int delay) {
         RoutingPacket packet = new RoutingPacket(message);
+        int nextHop = IPv4.parse(sourceIP);
+        long now = Clock.millis();
 
         for (RoutingInfo info : packet.getRouteInfos()) {
-            // 기존 정보와 비교하여 더 짧은 경로로 업데이트
-            int newDistance = info.getDistance() + delay; // 누적 딜레이 반영
+            // 기존 정보와 비교하여 더 짧은 경로나 현재 다음 홉의 새 거리로 업데이트
             int newHops = info.getHops() + 1; // 홉 수 증가
+            int newDistance = newHops > MAX_HOPS ? INFINITY : addDistance(info.getDistance(), delay); // 누적 딜레이 반영
             
-            if (!containsKey(info.getNextHop()) || getDistance(info.getNextHop()) > newDistance) {
-                addRoutingPath(info.getNextHop(), newDistance, newHops, sourceIP);
-            }
+            String destination = info.getNextHop();
+
+            learn(IPv4.prefixAddress(destination), IPv4.prefixLength(destination), newDistance, newHops, nextHop, now);
         }
-    }    
+        publish();
+    }
+
+    // 바이너리 라우팅 패킷 병합 (항목별 문자열 할당 없음)
+    default void mergeRoutingTable(ByteBuffer packet, String sourceIP, int delay) {
+        int nextHop = IPv4.parse(sourceIP);
+        long now = Clock.millis();
+
+        RoutingPacket.decode(packet, (address, prefixLength, distance, hops) ->
+            learn(address, prefixLength, hops + 1 > MAX_HOPS ? INFINITY : addDistance(distance, delay), hops + 1, nextHop, now));
+        publish();
+    }
+
+    // 누적 거리 (INFINITY에서 포화)
+    static int addDistance(int distance, int delay) {
+        long sum = (long) distance + delay;
+        return sum >= INFINITY ? INFINITY : (int) sum;
+    }
+
+    // 같은 다음 홉으로 가는 접두사를 집약해서 방문 (광고용, 도달 불가 경로는 도달 가능한 경로와 합치지 않음)
+    default void forEachAggregated(RouteVisitor visitor) {
+        PrefixTrie<int[]> routes = new PrefixTrie<>(); // {거리, 홉, 다음 홉}
+
+        forEach((address, prefixLength, distance, hops, nextHop) ->
+            routes.put(address, prefixLength, new int[] { distance, hops, nextHop }));
 
-    public boolean isEmpty() {
-        return table.isEmpty();
+        routes.aggregate(
+            (a, b) -> a[2] == b[2] && (a[0] >= INFINITY) == (b[0] >= INFINITY),
+            (a, b) -> new int[] { Math.max(a[0], b[0]), Math.max(a[1], b[1]), a[2] })
+            .forEach((address, prefixLength, route) ->
+                visitor.visit(address, prefixLength, route[0], route[1], route[2]));
     }
 
-    public Set<Entry<String, RoutingInfo>> entrySet() {
-        return table.entrySet();
+    // 같은 다음 홉으로 가는 접두사를 집약한 경로 목록 (텍스트 광고용)
+    default Map<String, RoutingInfo> aggregatedRoutes() {
+        Map<String, RoutingInfo> result = new LinkedHashMap<>();
+
+        forEachAggregated((address, prefixLength, distance, hops, nextHop) ->
+            result.put(IPv4.formatPrefix(address, prefixLength), new RoutingInfo(distance, hops, nextHop, 0)));
+        return result;
     }
 
-    public boolean containsKey(String key) {
-        return table.containsKey(key);
+    // 구현 선택 ("map" 또는 "int")
+    static RoutingTable create(String type) {
+        return create(type, 1, 0);
     }
 
-    public int getDistance(String destination) {
-        return table.get(destination).getDistance();
+    // 목적지마다 다음 홉을 maxPaths개까지 두고, 대표 거리보다 slack 이하로 긴 경로까지 같은 비용으로 취급
+    // slack이 가장 작은 링크 비용보다 작아야 ECMP 다음 홉끼리 루프가 생기지 않음
+    static RoutingTable create(String type, int maxPaths, int slack) {
+        return create(type, maxPaths, slack, Logger.root());
     }
 
-    public RoutingInfo get(String destinationIP) {
-        return table.get(destinationIP);
+    // 경로 변경 기록을 장치 로그로 남김
+    static RoutingTable create(String type, int maxPaths, int slack, Logger log) {
+        switch (type.toLowerCase()) {
+            case "map":
+                return new MapRoutingTable(maxPaths, slack, log);
+            case "int":
+                return new IntRoutingTable(maxPaths, slack, log);
+            default:
+                throw new IllegalArgumentException("Unknown routing table type: " + type);
+        }
     }
-}
\ No newline at end of file
+}
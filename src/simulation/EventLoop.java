@@ -0,0 +1,259 @@
+package simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import clock.Clock;
+import logging.Logger;
+
+// 이산 사건 시뮬레이션 엔진: 가상 시계 + 시각 순 사건 큐 + 씨앗을 고정한 난수
+// 사건은 한 스레드에서 시각 순으로, 같은 시각이면 예약한 순서대로 실행하고, 실행하는 동안 가상 시각은 멈춰 있음
+// 장치에는 ScheduledExecutorService로 보이므로 주기 작업/지연 작업 코드가 그대로 가상 시간으로 동작하고,
+// 가상 네트워크의 링크 지연도 같은 큐의 사건이 됨
+// 같은 토폴로지와 씨앗이면 항상 같은 순서로 실행됨 (스레드 안전하지 않으므로 실행 전이나 사건 안에서만 호출)
+public class EventLoop extends AbstractExecutorService implements ScheduledExecutorService, Clock.Source {
+    // 예약된 사건 하나 (주기 사건은 실행 후 다음 시각으로 다시 넣음)
+    private final class Event<V> implements ScheduledFuture<V> {
+        private final Callable<V> task;
+        private final long period; // 0이면 한 번만
+        private long time; // 실행할 가상 시각(ns)
+        private long sequence; // 같은 시각이면 예약 순서대로
+        private boolean cancelled;
+        private boolean done;
+        private V result;
+        private Exception failure;
+
+        private Event(Callable<V> task, long time, long period) {
+            this.task = task;
+            this.time = time;
+            this.period = period;
+            this.sequence = nextSequence++;
+        }
+
+        private void run() {
+            try {
+                result = task.call();
+            } catch (Exception e) {
+                // ScheduledThreadPoolExecutor처럼 실패한 주기 사건은 더 실행하지 않음
+                failure = e;
+                done = true;
+                Logger.root().error("Simulation event failed at " + formatTime(now) + ": " + e);
+                return;
+            }
+
+            if (period > 0 && !cancelled && !shutdown) {
+                time += period;
+                sequence = nextSequence++;
+                queue.add(this);
+            } else {
+                done = true;
+            }
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(time - now, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other instanceof Event<?> event) {
+                int byTime = Long.compare(time, event.time);
+                return byTime != 0 ? byTime : Long.compare(sequence, event.sequence);
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+
+        // 큐에서 바로 빼지 않고 꺼낼 때 건너뜀
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (done) {
+                return false;
+            }
+            cancelled = true;
+            done = true;
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return done;
+        }
+
+        // 사건 루프 안에서는 기다릴 수 없으므로 끝난 사건의 결과만 돌려줌
+        @Override
+        public V get() throws ExecutionException {
+            if (cancelled) {
+                throw new CancellationException();
+            }
+            if (!done) {
+                throw new IllegalStateException("Cannot wait for a simulation event that has not run yet");
+            }
+            if (failure != null) {
+                throw new ExecutionException(failure);
+            }
+            return result;
+        }
+
+        @Override
+        public V get(long timeout, TimeUnit unit) throws ExecutionException {
+            return get();
+        }
+    }
+
+    private final PriorityQueue<Event<?>> queue;
+    private final Random random;
+    private final long seed;
+    private long now; // 가상 시각(ns), 0에서 시작
+    private long nextSequence;
+    private long processed; // 실행한 사건 수
+    private boolean shutdown;
+    private volatile boolean stopped; // 종료 훅 등 다른 스레드에서 멈출 수 있음
+
+    public EventLoop(long seed) {
+        this.queue = new PriorityQueue<>();
+        this.random = new Random(seed);
+        this.seed = seed;
+    }
+
+    // 손실/지터/장치별 씨앗 등 시뮬레이션의 모든 난수 (같은 씨앗이면 같은 순서)
+    public Random random() {
+        return random;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    // end(ns)까지의 사건을 실행하고 가상 시각을 end로 맞춤 (stop되면 그 자리에서 멈춤), 실행한 사건 수 반환
+    public long runUntil(long end) {
+        long before = processed;
+
+        while (!stopped) {
+            Event<?> event = queue.peek();
+
+            if (event == null || event.time > end) {
+                now = Math.max(now, end);
+                break;
+            }
+            queue.poll();
+
+            if (event.cancelled) {
+                continue;
+            }
+            now = event.time;
+            processed++;
+            event.run();
+        }
+        return processed - before;
+    }
+
+    // 실행 중인 runUntil을 현재 사건이 끝난 뒤 멈춤
+    public void stop() {
+        stopped = true;
+    }
+
+    // 가상 시각을 "초.밀리초 s"로
+    public static String formatTime(long nanos) {
+        return String.format("%.3f s", nanos / 1e9);
+    }
+
+    @Override
+    public long millis() {
+        return now / 1_000_000;
+    }
+
+    @Override
+    public long nanos() {
+        return now;
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return add(Executors.callable(command), unit.toNanos(delay), 0);
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        return add(callable, unit.toNanos(delay), 0);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive: " + period);
+        }
+        return add(Executors.callable(command), unit.toNanos(initialDelay), unit.toNanos(period));
+    }
+
+    // 사건은 가상 시간을 쓰지 않으므로 고정 지연과 고정 주기가 같음
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        return scheduleAtFixedRate(command, initialDelay, delay, unit);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        add(Executors.callable(command), 0, 0);
+    }
+
+    private <V> Event<V> add(Callable<V> task, long delay, long period) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Event loop is shut down");
+        }
+
+        Event<V> event = new Event<>(task, now + Math.max(0, delay), period);
+        queue.add(event);
+        return event;
+    }
+
+    // 새 사건을 받지 않고 주기 사건은 다음 실행부터 멈춤 (이미 예약된 사건은 runUntil에서 계속 실행)
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        queue.clear();
+        return new ArrayList<>();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && queue.isEmpty();
+    }
+
+    // 다른 스레드가 사건을 실행하지 않으므로 기다리지 않고 현재 상태를 돌려줌
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        return isTerminated();
+    }
+}
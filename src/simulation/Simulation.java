@@ -0,0 +1,280 @@
+package simulation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import clock.Clock;
+import device.DeviceOptions;
+import device.Host;
+import device.IRunnerable;
+import device.NetworkDevice;
+import device.Router;
+import logging.Logger;
+import routing.RoutingTable;
+import transport.InMemoryTransport;
+import transport.VirtualNetwork;
+
+// 토폴로지 파일의 모든 장치를 하나의 JVM에서 가상 네트워크로 실행
+// 형식: <host|router> <이름> <IP>... [key=value 옵션...]
+//       link <서브넷의 IP> [delay=ms] [jitter=ms] [loss=비율]  (없는 서브넷은 link-delay/link-jitter/link-loss 옵션)
+// engine=thread(기본): 장치마다 실제 스레드와 벽시계 시간으로 계속 실행
+// engine=event: 이산 사건 시뮬레이션, 모든 장치를 사건 루프 한 스레드에서 가상 시간으로 duration초 동안 실행하고
+//               수렴 시각과 라우팅 상태 요약, 호스트의 부하 측정 결과(traffic 옵션)를 출력한 뒤 끝냄 (seed가 같으면 같은 결과)
+public class Simulation implements IRunnerable {
+    private static final int DURATION = 300; // 사건 모드 기본 실행 시간(가상 초)
+    private static final int SAMPLE_INTERVAL = 100; // 수렴 판정용 FIB 버전 확인 간격(가상 ms)
+
+    private final VirtualNetwork network;
+    private final List<NetworkDevice> devices;
+    private final DeviceOptions defaults; // 모든 장치에 적용할 옵션 (줄별 옵션이 우선)
+    private final EventLoop events; // 사건 모드에서만
+    private final ScheduledExecutorService timer; // 스레드 모드에서 링크 지연이 있을 때만
+
+    public Simulation(String topologyFile, DeviceOptions defaults) throws IOException {
+        this.devices = new ArrayList<>();
+        this.defaults = defaults;
+
+        List<String> lines = new ArrayList<>();
+
+        for (String line : Files.readAllLines(Path.of(topologyFile))) {
+            line = line.strip();
+
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                lines.add(line);
+            }
+        }
+
+        // 링크 줄을 먼저 읽어야 스레드 모드에서 지연 전달용 타이머가 필요한지 알 수 있음
+        VirtualNetwork.Link defaultLink = parseLink(defaults, "link-", VirtualNetwork.Link.IDEAL);
+        Map<String, VirtualNetwork.Link> links = new LinkedHashMap<>(); // 서브넷의 IP -> 전달 특성
+        boolean delayed = defaultLink.isDelayed();
+
+        for (String line : lines) {
+            String[] tokens = line.split("\\s+");
+
+            if (tokens[0].equalsIgnoreCase("link")) {
+                if (tokens.length < 2) {
+                    throw new IllegalArgumentException("Malformed link line: " + line);
+                }
+
+                VirtualNetwork.Link link = parseLink(linkOptions(tokens), "", defaultLink);
+                links.put(tokens[1], link);
+                delayed |= link.isDelayed();
+            }
+        }
+
+        String engine = defaults.get("engine", "thread").toLowerCase();
+
+        switch (engine) {
+            case "event":
+                this.events = new EventLoop(defaults.getInt("seed", 1));
+                this.timer = null;
+                this.network = new VirtualNetwork(events, events.random());
+                Clock.use(events); // 장치를 만들기 전에 바꿔야 모든 시각이 가상 시각 기준
+                break;
+            case "thread":
+                this.events = null;
+                this.timer = delayed ? Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("virtual-network").daemon(true).factory()) : null;
+                this.network = new VirtualNetwork(timer, new Random(defaults.getInt("seed", 1)));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown simulation engine: " + engine);
+        }
+
+        network.setDefaultLink(defaultLink);
+        links.forEach(network::setLink);
+
+        for (String line : lines) {
+            if (!line.split("\\s+")[0].equalsIgnoreCase("link")) {
+                addDevice(line);
+            }
+        }
+    }
+
+    // <prefix>delay, <prefix>jitter (ms), <prefix>loss (0~1), 없는 값은 fallback 값
+    private static VirtualNetwork.Link parseLink(DeviceOptions options, String prefix, VirtualNetwork.Link fallback) {
+        if (!options.has(prefix + "delay") && !options.has(prefix + "jitter") && !options.has(prefix + "loss")) {
+            return fallback;
+        }
+        return new VirtualNetwork.Link(options.getDouble(prefix + "delay", fallback.getDelayMs()),
+            options.getDouble(prefix + "jitter", fallback.getJitterMs()), options.getDouble(prefix + "loss", fallback.getLoss()));
+    }
+
+    // link 줄의 key=value 옵션
+    private static DeviceOptions linkOptions(String[] tokens) {
+        DeviceOptions options = new DeviceOptions();
+
+        for (int i = 2; i < tokens.length; i++) {
+            if (!DeviceOptions.isOption(tokens[i])) {
+                throw new IllegalArgumentException("Invalid link option: " + tokens[i]);
+            }
+            String[] option = tokens[i].split("=", 2);
+            options.set(option[0], option[1]);
+        }
+        return options;
+    }
+
+    // 토폴로지 한 줄을 장치로 변환
+    private void addDevice(String line) {
+        String[] tokens = line.split("\\s+");
+
+        if (tokens.length < 3) {
+            throw new IllegalArgumentException("Malformed topology line: " + line);
+        }
+
+        List<String> ipAddresses = new ArrayList<>();
+        DeviceOptions options = new DeviceOptions().set("http", "0").putAll(defaults); // HTTP 서버는 명시한 호스트만
+
+        for (int i = 2; i < tokens.length; i++) {
+            if (DeviceOptions.isOption(tokens[i])) {
+                String[] option = tokens[i].split("=", 2);
+                options.set(option[0], option[1]);
+            } else {
+                ipAddresses.add(tokens[i]);
+            }
+        }
+
+        if (!options.has("name")) {
+            options.set("name", tokens[1]); // 스레드 이름에 장치 이름 사용
+        }
+
+        if (events != null) {
+            // 사건 루프 밖에서 요청을 받는 HTTP 서버는 재현성을 깨므로 띄우지 않음
+            if (options.getInt("http", 0) > 0) {
+                Logger.root().warn("HTTP server of " + tokens[1] + " is disabled in event-driven simulation");
+            }
+            options.set("http", "0");
+            options.set("seed", String.valueOf(events.random().nextInt())); // 장치 순서대로 씨앗에서 파생
+        }
+
+        InMemoryTransport transport = network.attach(ipAddresses);
+
+        switch (tokens[0].toLowerCase()) {
+            case "host":
+                devices.add(new Host(transport, options, events));
+                break;
+            case "router":
+                devices.add(new Router(transport, options, events));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown device type '" + tokens[0] + "' for " + tokens[1]);
+        }
+    }
+
+    @Override
+    public void run() {
+        for (IRunnerable device : devices) {
+            device.run();
+        }
+
+        if (events == null) {
+            Logger.root().info("Simulation started with " + devices.size() + " devices");
+            return;
+        }
+        runEvents();
+    }
+
+    // 사건 모드: duration초까지 실행하고 결과를 출력한 뒤 장치를 닫음
+    private void runEvents() {
+        long duration = TimeUnit.SECONDS.toNanos(defaults.getInt("duration", DURATION));
+        Convergence convergence = new Convergence();
+
+        Logger.root().info("Event-driven simulation of " + devices.size() + " devices for "
+            + EventLoop.formatTime(duration) + ", seed " + events.getSeed());
+
+        long sampleInterval = TimeUnit.MILLISECONDS.toNanos(defaults.getInt("sample-interval", SAMPLE_INTERVAL));
+        events.scheduleAtFixedRate(convergence::sample, sampleInterval, sampleInterval, TimeUnit.NANOSECONDS);
+
+        long start = System.nanoTime();
+        events.runUntil(duration);
+        double wallSeconds = (System.nanoTime() - start) / 1e9;
+
+        Logger.root().info(String.format("Simulated %s in %.3f s wall time (%d events, %.0f events/s)",
+            EventLoop.formatTime(events.nanos()), wallSeconds, events.getProcessed(), events.getProcessed() / Math.max(wallSeconds, 1e-9)));
+        Logger.root().info(convergence.summary());
+
+        for (NetworkDevice device : devices) {
+            if (device instanceof Host host) {
+                host.trafficSummary().forEach(line -> Logger.root().info(host.getName() + ": " + line));
+            }
+        }
+
+        shutdown();
+    }
+
+    // FIB 버전이 마지막으로 바뀐 가상 시각과 최종 라우팅 상태 요약
+    private class Convergence {
+        private final long[] versions = new long[devices.size()];
+        private long lastChange; // 마지막으로 어떤 장치의 FIB가 바뀐 가상 시각(ns)
+        private long changes; // FIB 버전이 바뀐 것을 본 횟수 (장치별)
+
+        private void sample() {
+            for (int i = 0; i < versions.length; i++) {
+                long version = devices.get(i).getRoutingTable().getVersion();
+
+                if (version != versions[i]) {
+                    versions[i] = version;
+                    lastChange = events.nanos();
+                    changes++;
+                }
+            }
+        }
+
+        // 경로 목록의 순서와 무관한 요약값으로 실행끼리 같은 상태인지 비교할 수 있음
+        private String summary() {
+            long[] totals = new long[3]; // 경로 수, 도달 불가 경로 수, 요약값
+
+            for (int i = 0; i < devices.size(); i++) {
+                long device = i + 1;
+
+                devices.get(i).getRoutingTable().forEach((address, prefixLength, distance, hops, nextHop) -> {
+                    totals[0]++;
+
+                    if (distance >= RoutingTable.INFINITY) {
+                        totals[1]++;
+                    }
+                    totals[2] += mix(((((device * 31 + address) * 31 + prefixLength) * 31 + distance) * 31 + hops) * 31 + nextHop);
+                });
+            }
+            return String.format("Routing converged at %s (%d FIB changes): %d routes, %d unreachable, state digest %016x",
+                EventLoop.formatTime(lastChange), changes, totals[0], totals[1], totals[2]);
+        }
+    }
+
+    // 64비트 해시 섞기 (MurmurHash3 마무리 단계), 더해도 항목끼리 상쇄되지 않도록
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+
+    @Override
+    public void shutdown() {
+        if (events != null) {
+            events.stop();
+        }
+        for (IRunnerable device : devices) {
+            device.shutdown();
+        }
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+    @Override
+    public void awaitShutdown() throws InterruptedException {
+        for (IRunnerable device : devices) {
+            device.awaitShutdown();
+        }
+    }
+}
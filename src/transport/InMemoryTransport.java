@@ -0,0 +1,179 @@
+package transport;
+
+import java.io.IOException;
+import java.net.BindException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// VirtualNetwork 위의 가상 인터페이스, 포트마다 수신 큐를 가짐
+public class InMemoryTransport implements Transport {
+    private static final int QUEUE_CAPACITY = 1024; // 포트별 수신 큐 크기 (소켓 버퍼 역할)
+    private static final int EPHEMERAL_PORT_START = 49152;
+
+    private final VirtualNetwork network;
+    private final List<String> ipAddresses;
+    private final Map<String, InetAddress> interfaceAddresses; // 인터페이스 IP -> 주소 객체 (패킷마다 만들지 않음)
+    private final Map<Integer, InMemorySocket> sockets; // 바인딩된 포트 -> 소켓
+    private final AtomicInteger nextEphemeralPort;
+
+    InMemoryTransport(VirtualNetwork network, List<String> ipAddresses) {
+        this.network = network;
+        this.ipAddresses = List.copyOf(ipAddresses);
+        this.interfaceAddresses = new ConcurrentHashMap<>();
+
+        for (String ip : ipAddresses) {
+            try {
+                interfaceAddresses.put(ip, InetAddress.getByName(ip));
+            } catch (UnknownHostException e) {
+                throw new IllegalArgumentException("Invalid interface address: " + ip);
+            }
+        }
+        this.sockets = new ConcurrentHashMap<>();
+        this.nextEphemeralPort = new AtomicInteger(EPHEMERAL_PORT_START);
+    }
+
+    @Override
+    public List<String> getIPAddresses() {
+        return ipAddresses;
+    }
+
+    @Override
+    public TransportSocket open(int port) throws IOException {
+        if (port == 0) {
+            InMemorySocket socket;
+
+            do {
+                port = nextEphemeralPort.getAndIncrement();
+                socket = new InMemorySocket(port);
+            } while (sockets.putIfAbsent(port, socket) != null);
+
+            return socket;
+        }
+
+        InMemorySocket socket = new InMemorySocket(port);
+
+        if (sockets.putIfAbsent(port, socket) != null) {
+            throw new BindException("Address already in use: " + port);
+        }
+        return socket;
+    }
+
+    // 주어진 서브넷에 속한 자신의 인터페이스 IP
+    String getInterfaceIn(String subnet) {
+        for (String ip : ipAddresses) {
+            if (VirtualNetwork.subnetOf(ip).equals(subnet)) {
+                return ip;
+            }
+        }
+        return null;
+    }
+
+    InetAddress getInterfaceAddress(String ip) {
+        return interfaceAddresses.get(ip);
+    }
+
+    // 수신 큐에 데이터그램 적재, 큐가 가득 차면 버림 (처리기가 있으면 큐 없이 바로 호출)
+    void deliver(int port, byte[] data, InetSocketAddress source) {
+        InMemorySocket socket = sockets.get(port);
+
+        if (socket == null) {
+            return;
+        }
+
+        TransportSocket.Receiver receiver = socket.receiver;
+
+        if (receiver != null) {
+            receiver.receive(ByteBuffer.wrap(data).asReadOnlyBuffer(), source); // 브로드캐스트는 수신자끼리 data를 공유
+            return;
+        }
+        socket.queue.offer(new Datagram(data, source));
+    }
+
+    private static class Datagram {
+        private static final Datagram CLOSED = new Datagram(null, null);
+
+        private final byte[] data;
+        private final InetSocketAddress source;
+
+        private Datagram(byte[] data, InetSocketAddress source) {
+            this.data = data;
+            this.source = source;
+        }
+    }
+
+    private class InMemorySocket implements TransportSocket {
+        private final int port;
+        private final BlockingQueue<Datagram> queue;
+        private volatile Receiver receiver; // 있으면 큐 대신 사용
+        private volatile boolean closed;
+
+        private InMemorySocket(int port) {
+            this.port = port;
+            this.queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        }
+
+        @Override
+        public void setBroadcast(boolean on) {
+            // 가상 네트워크에서는 항상 브로드캐스트 허용
+        }
+
+        @Override
+        public boolean send(ByteBuffer buffer, InetSocketAddress target) throws IOException {
+            if (closed) {
+                throw new SocketException("Socket is closed");
+            }
+
+            byte[] data = new byte[buffer.remaining()];
+            buffer.get(data);
+
+            network.send(InMemoryTransport.this, port, data, target.getAddress(), target.getPort());
+            return true; // 링크 손실과 받는 쪽 큐 초과는 네트워크에서 일어남
+        }
+
+        @Override
+        public void setReceiver(Receiver receiver) {
+            this.receiver = receiver;
+        }
+
+        @Override
+        public InetSocketAddress receive(ByteBuffer buffer) throws IOException {
+            Datagram datagram;
+
+            try {
+                datagram = closed ? Datagram.CLOSED : queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SocketException("Receive interrupted");
+            }
+
+            if (datagram == Datagram.CLOSED) {
+                throw new SocketException("Socket is closed");
+            }
+
+            // 실제 UDP와 같이 버퍼 크기를 넘는 부분은 잘라냄
+            buffer.put(datagram.data, 0, Math.min(datagram.data.length, buffer.remaining()));
+            return datagram.source;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            sockets.remove(port, this);
+
+            queue.clear();
+            queue.offer(Datagram.CLOSED);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package transport;
+
+import java.io.IOException;
+import java.util.List;
+
+public interface Transport {
+    // 장치에 할당된 IPv4 주소 목록
+    List<String> getIPAddresses();
+
+    // 지정한 포트에 바인딩된 소켓 생성 (0이면 임의 포트)
+    TransportSocket open(int port) throws IOException;
+}
@@ -0,0 +1,44 @@
+package transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+
+public interface TransportSocket extends Closeable {
+    // 수신 스레드 없이 데이터그램이 도착할 때마다 호출되는 처리기 (data는 읽기 전용, 호출이 끝나면 다시 쓰지 않음)
+    interface Receiver {
+        void receive(ByteBuffer data, InetSocketAddress source);
+    }
+
+    void setBroadcast(boolean on) throws IOException;
+
+    // buffer의 position~limit 구간을 전송, 송신 버퍼가 가득 차서 보내지 못했으면 false (buffer는 그대로)
+    boolean send(ByteBuffer buffer, InetSocketAddress target) throws IOException;
+
+    // 패킷이 도착할 때까지 대기 후 buffer에 기록하고 송신자 주소 반환, 남은 공간보다 큰 데이터는 잘림
+    InetSocketAddress receive(ByteBuffer buffer) throws IOException;
+
+    @Override
+    void close();
+
+    // receive 대신 도착할 때마다 receiver를 호출하도록 바꿈 (이산 사건 시뮬레이션용, 사건 루프에서 호출됨)
+    default void setReceiver(Receiver receiver) {
+        throw new UnsupportedOperationException("Callback receive is not supported by " + getClass().getSimpleName());
+    }
+
+    default boolean send(DatagramPacket packet) throws IOException {
+        return send(ByteBuffer.wrap(packet.getData(), packet.getOffset(), packet.getLength()),
+            (InetSocketAddress) packet.getSocketAddress());
+    }
+
+    // 패킷이 도착할 때까지 대기, 버퍼보다 큰 데이터는 잘림
+    default void receive(DatagramPacket packet) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(packet.getData(), packet.getOffset(), packet.getData().length - packet.getOffset());
+        InetSocketAddress source = receive(buffer);
+
+        packet.setLength(buffer.position() - packet.getOffset());
+        packet.setSocketAddress(source);
+    }
+}
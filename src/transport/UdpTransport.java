@@ -0,0 +1,162 @@
+package transport;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+import logging.Logger;
+
+// 실제 네트워크 인터페이스와 UDP 소켓을 사용하는 전송 계층
+public class UdpTransport implements Transport {
+    private final List<String> ipAddresses; // 실제 IP 주소 목록
+
+    public UdpTransport() {
+        this.ipAddresses = new ArrayList<>();
+        fetchIPAddresses();
+    }
+
+    // 네트워크 인터페이스에서 IP 주소 가져오기
+    private void fetchIPAddresses() {
+        try {
+            Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
+            while (interfaces.hasMoreElements()) {
+                NetworkInterface networkInterface = interfaces.nextElement();
+
+                // 활성화된 네트워크 인터페이스만 처리
+                if (!networkInterface.isUp() || networkInterface.isLoopback()) {
+                    continue;
+                }
+
+                // 네트워크 인터페이스에서 IP 주소 추출
+                Enumeration<InetAddress> addresses = networkInterface.getInetAddresses();
+                while (addresses.hasMoreElements()) {
+                    InetAddress address = addresses.nextElement();
+
+                    // IPv4 주소만 처리
+                    if (address instanceof Inet4Address) {
+                        ipAddresses.add(address.getHostAddress());
+                    }
+                }
+            }
+        } catch (Exception e) {
+            Logger.root().error("Error fetching IP addresses: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public List<String> getIPAddresses() {
+        return ipAddresses;
+    }
+
+    @Override
+    public TransportSocket open(int port) throws IOException {
+        DatagramChannel channel = DatagramChannel.open(StandardProtocolFamily.INET);
+
+        try {
+            channel.bind(new InetSocketAddress(port));
+            channel.configureBlocking(false);
+            return new UdpSocket(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // 논블로킹 DatagramChannel과 Selector 기반 소켓 (열어둔 채로 재사용)
+    // 가상 스레드에서 받을 때는 블로킹 모드로 바꿔서 캐리어 스레드를 붙잡지 않고 대기
+    private static class UdpSocket implements TransportSocket {
+        private final DatagramChannel channel;
+        private Selector selector; // 플랫폼 스레드에서 처음 받을 때 생성
+
+        private UdpSocket(DatagramChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void setBroadcast(boolean on) throws IOException {
+            channel.setOption(StandardSocketOptions.SO_BROADCAST, on);
+        }
+
+        @Override
+        public boolean send(ByteBuffer buffer, InetSocketAddress target) throws IOException {
+            // 논블로킹 모드에서 송신 버퍼가 가득 차면 아무것도 보내지 않고 0을 돌려줌 (빈 데이터그램도 0)
+            return channel.send(buffer, target) > 0 || !buffer.hasRemaining();
+        }
+
+        @Override
+        public InetSocketAddress receive(ByteBuffer buffer) throws IOException {
+            if (Thread.currentThread().isVirtual() && selector == null) {
+                if (channel.isBlocking() || setBlocking()) {
+                    return (InetSocketAddress) channel.receive(buffer);
+                }
+            }
+
+            try {
+                while (true) {
+                    InetSocketAddress source = (InetSocketAddress) channel.receive(buffer);
+
+                    if (source != null) {
+                        return source;
+                    }
+
+                    select();
+
+                    if (!channel.isOpen()) {
+                        throw new ClosedChannelException();
+                    }
+                }
+            } catch (ClosedSelectorException e) {
+                throw new ClosedChannelException();
+            }
+        }
+
+        private synchronized boolean setBlocking() throws IOException {
+            if (selector == null) {
+                channel.configureBlocking(true);
+                return true;
+            }
+            return false;
+        }
+
+        private void select() throws IOException {
+            Selector current;
+
+            synchronized (this) {
+                if (selector == null) {
+                    selector = Selector.open();
+                    channel.register(selector, SelectionKey.OP_READ);
+                }
+                current = selector;
+            }
+            current.select();
+            current.selectedKeys().clear();
+        }
+
+        @Override
+        public synchronized void close() {
+            try {
+                channel.close();
+
+                if (selector != null) {
+                    selector.wakeup();
+                    selector.close();
+                }
+            } catch (IOException e) {
+                Logger.root().error("Error closing socket: " + e.getMessage());
+            }
+        }
+    }
+}
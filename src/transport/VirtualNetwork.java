@@ -0,0 +1,146 @@
+package transport;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// 하나의 JVM 안에서 동작하는 가상 네트워크 (서브넷 = /24 브로드캐스트 도메인)
+// 서브넷마다 지연/지터/손실을 둘 수 있고, 지연 전달은 타이머(이산 사건 시뮬레이션이면 사건 루프)에 맡김
+public class VirtualNetwork {
+    // 서브넷 하나의 전달 특성, 지연은 [delay, delay + jitter) 에서 고르게 정하므로 지터가 있으면 순서가 바뀔 수 있음
+    public static class Link {
+        public static final Link IDEAL = new Link(0, 0, 0);
+
+        private final long delayNanos;
+        private final long jitterNanos;
+        private final double loss; // 수신자마다 독립적으로 버릴 확률
+
+        public Link(double delayMs, double jitterMs, double loss) {
+            if (delayMs < 0 || jitterMs < 0 || loss < 0 || loss > 1) {
+                throw new IllegalArgumentException("Invalid link: delay " + delayMs + "ms, jitter " + jitterMs + "ms, loss " + loss);
+            }
+            this.delayNanos = (long) (delayMs * 1_000_000);
+            this.jitterNanos = (long) (jitterMs * 1_000_000);
+            this.loss = loss;
+        }
+
+        public double getDelayMs() {
+            return delayNanos / 1e6;
+        }
+
+        public double getJitterMs() {
+            return jitterNanos / 1e6;
+        }
+
+        public double getLoss() {
+            return loss;
+        }
+
+        public boolean isDelayed() {
+            return delayNanos > 0 || jitterNanos > 0;
+        }
+    }
+
+    private final Map<String, InMemoryTransport> interfaces; // 인터페이스 IP -> 소유 장치
+    private final Map<String, Set<String>> subnets; // 서브넷 -> 소속 인터페이스 IP
+    private final Map<String, Link> links; // 서브넷 -> 전달 특성 (없으면 defaultLink)
+    private final ScheduledExecutorService timer; // 없으면 지연 없이 보내는 스레드에서 바로 전달
+    private final Random random; // 손실과 지터 (시뮬레이션 씨앗을 쓰면 재현 가능)
+    private volatile Link defaultLink;
+
+    public VirtualNetwork() {
+        this(null, new Random());
+    }
+
+    // timer가 있으면 모든 전달을 (지연이 0이어도) timer 작업으로 넘겨 보내는 쪽과 받는 쪽 처리를 분리
+    public VirtualNetwork(ScheduledExecutorService timer, Random random) {
+        this.interfaces = new ConcurrentHashMap<>();
+        this.subnets = new ConcurrentHashMap<>();
+        this.links = new ConcurrentHashMap<>();
+        this.timer = timer;
+        this.random = random;
+        this.defaultLink = Link.IDEAL;
+    }
+
+    // 가상 인터페이스를 가진 장치를 네트워크에 연결
+    public InMemoryTransport attach(List<String> ipAddresses) {
+        InMemoryTransport transport = new InMemoryTransport(this, ipAddresses);
+
+        for (String ip : ipAddresses) {
+            if (interfaces.putIfAbsent(ip, transport) != null) {
+                throw new IllegalArgumentException("Duplicate interface address: " + ip);
+            }
+            subnets.computeIfAbsent(subnetOf(ip), key -> ConcurrentHashMap.newKeySet()).add(ip);
+        }
+        return transport;
+    }
+
+    // 따로 정하지 않은 서브넷의 전달 특성
+    public void setDefaultLink(Link link) {
+        this.defaultLink = link;
+    }
+
+    // ip가 속한 서브넷의 전달 특성
+    public void setLink(String ip, Link link) {
+        links.put(subnetOf(ip), link);
+    }
+
+    // 데이터그램 전달 (브로드캐스트 주소면 서브넷 전체로)
+    void send(InMemoryTransport sender, int sourcePort, byte[] data, InetAddress destination, int port) {
+        String destinationIP = destination.getHostAddress();
+        String subnet = subnetOf(destinationIP);
+        String sourceIP = sender.getInterfaceIn(subnet);
+
+        // 같은 서브넷에 인터페이스가 없으면 도달 불가 (UDP처럼 조용히 버림)
+        if (sourceIP == null) {
+            return;
+        }
+
+        InetSocketAddress source = new InetSocketAddress(sender.getInterfaceAddress(sourceIP), sourcePort);
+        Link link = links.getOrDefault(subnet, defaultLink);
+
+        if (destinationIP.endsWith(".255")) {
+            // 해시 집합의 순회 순서는 내용으로만 정해지므로 손실/지터 난수를 쓰는 순서도 실행마다 같음
+            for (String ip : subnets.getOrDefault(subnet, Set.of())) {
+                InMemoryTransport receiver = interfaces.get(ip);
+
+                if (receiver != sender) {
+                    transmit(link, receiver, port, data, source);
+                }
+            }
+            return;
+        }
+
+        InMemoryTransport receiver = interfaces.get(destinationIP);
+
+        if (receiver != null) {
+            transmit(link, receiver, port, data, source);
+        }
+    }
+
+    // 손실을 적용하고 지연 뒤에 전달
+    private void transmit(Link link, InMemoryTransport receiver, int port, byte[] data, InetSocketAddress source) {
+        if (link.loss > 0 && random.nextDouble() < link.loss) {
+            return;
+        }
+
+        if (timer == null) {
+            receiver.deliver(port, data, source);
+            return;
+        }
+
+        long delay = link.delayNanos + (link.jitterNanos > 0 ? (long) (random.nextDouble() * link.jitterNanos) : 0);
+        timer.schedule(() -> receiver.deliver(port, data, source), delay, TimeUnit.NANOSECONDS);
+    }
+
+    // 서브넷 식별자 (앞 세 옥텟)
+    static String subnetOf(String ip) {
+        return ip.substring(0, ip.lastIndexOf('.'));
+    }
+}
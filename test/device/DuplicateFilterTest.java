@@ -0,0 +1,84 @@
+package device;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class DuplicateFilterTest {
+    private static final int SOURCE = 0x0A000001; // 10.0.0.1
+    private static final int FLOW = 1;
+
+    @Test
+    void dropsDuplicatesInsideWindow() {
+        DuplicateFilter filter = new DuplicateFilter(16);
+
+        for (int sequence = 0; sequence < 10; sequence++) {
+            assertFalse(filter.isDuplicate(SOURCE, FLOW, sequence));
+        }
+        for (int sequence = 0; sequence < 10; sequence++) {
+            assertTrue(filter.isDuplicate(SOURCE, FLOW, sequence));
+        }
+    }
+
+    @Test
+    void acceptsReorderedPacketsOnce() {
+        DuplicateFilter filter = new DuplicateFilter(16);
+
+        assertFalse(filter.isDuplicate(SOURCE, FLOW, 10));
+        assertFalse(filter.isDuplicate(SOURCE, FLOW, 7));
+        assertFalse(filter.isDuplicate(SOURCE, FLOW, 9));
+        assertTrue(filter.isDuplicate(SOURCE, FLOW, 7));
+        assertFalse(filter.isDuplicate(SOURCE, FLOW, 8));
+        assertTrue(filter.isDuplicate(SOURCE, FLOW, 10));
+    }
+
+    @Test
+    void dropsPacketsOlderThanWindow() {
+        DuplicateFilter filter = new DuplicateFilter(16);
+
+        assertFalse(filter.isDuplicate(SOURCE, FLOW, 100));
+        assertFalse(filter.isDuplicate(SOURCE, FLOW, 37)); // 창 안 (63 뒤)
+        assertTrue(filter.isDuplicate(SOURCE, FLOW, 36)); // 창 밖 (64 뒤)
+    }
+
+    @Test
+    void sequenceWrapInsideWindow() {
+        DuplicateFilter filter = new DuplicateFilter(16);
+        int sequence = Integer.MAX_VALUE - 5;
+
+        for (int i = 0; i < 12; i++) {
+            assertFalse(filter.isDuplicate(SOURCE, FLOW, sequence + i));
+        }
+        // 넘친 뒤에도 넘기 전 순번은 같은 창 안의 중복
+        for (int i = 0; i < 12; i++) {
+            assertTrue(filter.isDuplicate(SOURCE, FLOW, sequence + i), "sequence " + (sequence + i));
+        }
+        assertFalse(filter.isDuplicate(SOURCE, FLOW, Integer.MIN_VALUE + 6));
+    }
+
+    @Test
+    void largeBackwardJumpIsRestart() {
+        DuplicateFilter filter = new DuplicateFilter(16);
+
+        for (int sequence = 0; sequence < 5000; sequence++) {
+            assertFalse(filter.isDuplicate(SOURCE, FLOW, sequence));
+        }
+
+        // 재시작한 송신 측은 0부터 다시 보냄
+        for (int sequence = 0; sequence < 5000; sequence++) {
+            assertFalse(filter.isDuplicate(SOURCE, FLOW, sequence), "sequence " + sequence);
+        }
+        assertTrue(filter.isDuplicate(SOURCE, FLOW, 4999));
+    }
+
+    @Test
+    void tracksFlowsSeparately() {
+        DuplicateFilter filter = new DuplicateFilter(16);
+
+        assertFalse(filter.isDuplicate(SOURCE, FLOW, 1));
+        assertFalse(filter.isDuplicate(SOURCE, FLOW + 1, 1));
+        assertFalse(filter.isDuplicate(SOURCE + 1, FLOW, 1));
+        assertTrue(filter.isDuplicate(SOURCE, FLOW, 1));
+    }
+}
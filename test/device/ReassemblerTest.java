@@ -0,0 +1,158 @@
+package device;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import clock.Clock;
+import metrics.Metrics;
+
+class ReassemblerTest {
+    private static final int SOURCE = 0x0A000001; // 10.0.0.1
+    private static final int DESTINATION = 0x0A000002;
+    private static final int FRAGMENT_SIZE = 300;
+
+    private final Metrics metrics = new Metrics();
+    private final Metrics.Counters<String> dropped = metrics.counters("packets_dropped_total", "Dropped packets", "reason", r -> r);
+
+    @AfterEach
+    void restoreClock() {
+        Clock.use(null);
+    }
+
+    @Test
+    void reassemblesOutOfOrderFragments() {
+        Random random = new Random(9);
+
+        for (int trial = 0; trial < 50; trial++) {
+            Reassembler reassembler = newReassembler();
+            ByteBuffer packet = packet(trial, 1000 + random.nextInt(2000), random);
+            List<ByteBuffer> fragments = fragments(packet);
+            Collections.shuffle(fragments, random);
+
+            for (int i = 0; i < fragments.size() - 1; i++) {
+                assertNull(reassembler.add(fragments.get(i)));
+            }
+            assertReassembled(packet, reassembler.add(fragments.get(fragments.size() - 1)));
+        }
+        assertEquals(0, dropped.get("bad_fragment").sum());
+    }
+
+    @Test
+    void duplicateFragmentsDoNotCompleteEarly() {
+        Random random = new Random(4);
+        Reassembler reassembler = newReassembler();
+        ByteBuffer packet = packet(1, 1000, random);
+        List<ByteBuffer> fragments = fragments(packet); // 300, 300, 300, 100
+
+        assertNull(reassembler.add(fragments.get(3)));
+        assertNull(reassembler.add(fragments.get(3).duplicate()));
+        assertNull(reassembler.add(fragments.get(0)));
+        assertNull(reassembler.add(fragments.get(0).duplicate()));
+        assertNull(reassembler.add(fragments.get(2)));
+        assertNull(reassembler.add(fragments.get(2).duplicate()));
+        assertReassembled(packet, reassembler.add(fragments.get(1)));
+
+        assertEquals(0, dropped.get("bad_fragment").sum());
+    }
+
+    @Test
+    void overlappingFragmentsReassemble() {
+        Random random = new Random(6);
+        Reassembler reassembler = newReassembler();
+        ByteBuffer packet = packet(1, 1000, random);
+
+        assertNull(reassembler.add(fragment(packet, 500, 500, false)));
+        assertNull(reassembler.add(fragment(packet, 0, 400, true)));
+        assertReassembled(packet, reassembler.add(fragment(packet, 300, 400, true)));
+    }
+
+    @Test
+    void dropsPacketWithConflictingEnds() {
+        Random random = new Random(2);
+        Reassembler reassembler = newReassembler();
+        ByteBuffer packet = packet(1, 1000, random);
+
+        assertNull(reassembler.add(fragment(packet, 0, 300, true)));
+        assertNull(reassembler.add(fragment(packet, 700, 300, false)));
+        assertNull(reassembler.add(fragment(packet, 600, 300, false))); // 끝이 다름
+        assertEquals(1, dropped.get("bad_fragment").sum());
+
+        // 버린 뒤 남은 조각만으로는 완성되지 않음
+        assertNull(reassembler.add(fragment(packet, 300, 400, true)));
+    }
+
+    @Test
+    void dropsIncompletePacketAfterTimeout() {
+        long[] now = {0};
+        Clock.use(new Clock.Source() {
+            @Override
+            public long millis() {
+                return now[0];
+            }
+
+            @Override
+            public long nanos() {
+                return now[0] * 1_000_000;
+            }
+        });
+
+        Random random = new Random(8);
+        Reassembler reassembler = newReassembler();
+        ByteBuffer packet = packet(1, 1000, random);
+        List<ByteBuffer> fragments = fragments(packet);
+
+        assertNull(reassembler.add(fragments.get(0)));
+        now[0] = 5000;
+        assertNull(reassembler.add(fragments.get(1))); // 앞 조각은 시간 초과로 버려지고 새로 시작
+        assertEquals(1, dropped.get("reassembly_timeout").sum());
+
+        assertNull(reassembler.add(fragments.get(2)));
+        assertNull(reassembler.add(fragments.get(3)));
+    }
+
+    private Reassembler newReassembler() {
+        return new Reassembler(1000, 1 << 20, metrics, dropped);
+    }
+
+    private static ByteBuffer packet(int sequence, int size, Random random) {
+        byte[] payload = new byte[size];
+        random.nextBytes(payload);
+        return DataPacket.create(SOURCE, DESTINATION, 16, 1, sequence, payload);
+    }
+
+    private static List<ByteBuffer> fragments(ByteBuffer packet) {
+        List<ByteBuffer> fragments = new ArrayList<>();
+        int size = DataPacket.getPayloadLength(packet);
+
+        for (int offset = 0; offset < size; offset += FRAGMENT_SIZE) {
+            int length = Math.min(FRAGMENT_SIZE, size - offset);
+            fragments.add(fragment(packet, offset, length, offset + length < size));
+        }
+        return fragments;
+    }
+
+    private static ByteBuffer fragment(ByteBuffer packet, int offset, int length, boolean more) {
+        ByteBuffer out = ByteBuffer.allocate(DataPacket.HEADER_SIZE + length);
+        DataPacket.encodeFragment(out, packet, offset, length, more);
+        return out.flip();
+    }
+
+    private static void assertReassembled(ByteBuffer packet, ByteBuffer reassembled) {
+        assertNotNull(reassembled);
+        assertFalse(DataPacket.isFragment(reassembled));
+        assertEquals(DataPacket.getSequence(packet), DataPacket.getSequence(reassembled));
+        assertArrayEquals(DataPacket.getPayload(packet), DataPacket.getPayload(reassembled));
+    }
+}
@@ -0,0 +1,151 @@
+package routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import logging.Logger;
+
+class IntRoutingTableTest {
+    private static final int NEXT_HOP = 0x0B000001; // 11.0.0.1
+
+    @Test
+    void deleteAndReinsertUnderProbeCollisions() {
+        Random random = new Random(3);
+
+        // 처음 16칸에 12개(부하율 75%)까지 채우면 선형 탐사 묶음이 반드시 생김
+        for (int trial = 0; trial < 500; trial++) {
+            IntRoutingTable table = newTable();
+            Map<Integer, Integer> model = new HashMap<>(); // /32 주소 -> 거리
+            List<Integer> addresses = new ArrayList<>();
+
+            while (addresses.size() < 12) {
+                int address = 0x0A000000 | random.nextInt(1 << 16);
+
+                if (!model.containsKey(address)) {
+                    addresses.add(address);
+                    model.put(address, 1 + random.nextInt(100));
+                    assertTrue(table.improve(address, 32, model.get(address), 1, NEXT_HOP));
+                }
+            }
+            table.publish();
+
+            Collections.shuffle(addresses, random);
+            List<Integer> removed = addresses.subList(0, 1 + random.nextInt(addresses.size()));
+
+            for (int address : removed) {
+                assertTrue(table.remove(address, 32));
+                model.remove(address);
+                assertMatches(model, table, addresses, 32);
+            }
+            for (int address : removed) {
+                assertFalse(table.remove(address, 32));
+            }
+
+            // 지운 자리에 다른 거리로 다시 넣어도 남은 항목과 섞이지 않음
+            for (int address : removed) {
+                model.put(address, 200 + random.nextInt(100));
+                assertTrue(table.improve(address, 32, model.get(address), 1, NEXT_HOP));
+                assertMatches(model, table, addresses, 32);
+            }
+            table.publish();
+
+            for (int address : addresses) {
+                RoutingInfo route = table.get(address);
+                assertEquals(model.get(address), route.getDistance(), IPv4.format(address));
+            }
+            assertEquals(model.size(), table.size());
+        }
+    }
+
+    @Test
+    void randomInsertAndDeleteAcrossResizes() {
+        Random random = new Random(11);
+        IntRoutingTable table = newTable();
+        Map<Integer, Integer> model = new HashMap<>();
+        List<Integer> addresses = new ArrayList<>();
+
+        for (int i = 0; i < 2000; i++) {
+            addresses.add(0x0A000000 | i << 4);
+        }
+
+        for (int step = 0; step < 20000; step++) {
+            int address = addresses.get(random.nextInt(addresses.size()));
+
+            if (random.nextInt(3) == 0) {
+                assertEquals(model.remove(address) != null, table.remove(address, 28));
+            } else if (!model.containsKey(address)) {
+                model.put(address, 1 + random.nextInt(100));
+                table.improve(address, 28, model.get(address), 1, NEXT_HOP);
+            }
+
+            if (step % 1000 == 0) {
+                table.publish();
+                assertMatches(model, table, addresses, 28);
+            }
+        }
+        table.publish();
+        assertMatches(model, table, addresses, 28);
+
+        for (int address : addresses) {
+            RoutingInfo route = table.get(address | 5); // /28 안의 다른 주소
+            assertEquals(model.get(address), route == null ? null : route.getDistance(), IPv4.format(address));
+        }
+    }
+
+    @Test
+    void garbageCollectionInsideClusterKeepsNeighbours() {
+        IntRoutingTable table = newTable();
+        List<Integer> addresses = new ArrayList<>();
+
+        for (int i = 0; i < 12; i++) {
+            int address = 0x0A000000 | i << 8;
+            addresses.add(address);
+            table.learn(address, 24, 10, 1, NEXT_HOP, 0);
+        }
+        table.publish();
+
+        // 짝수 번째 경로만 계속 광고를 받고, 나머지는 시간 초과 후 삭제
+        for (int i = 0; i < 12; i += 2) {
+            table.learn(addresses.get(i), 24, 10, 1, NEXT_HOP, 1000);
+        }
+        assertEquals(6, table.expire(1001, 500, 10_000)); // 도달 불가로
+        assertEquals(6, table.expire(20_000, 50_000, 10_000)); // 삭제
+        table.publish();
+
+        assertEquals(6, table.size());
+
+        for (int i = 0; i < 12; i++) {
+            assertEquals(i % 2 == 0, table.containsKey(IPv4.formatPrefix(addresses.get(i), 24)), "route " + i);
+            assertEquals(i % 2 == 0 ? NEXT_HOP : RoutingTable.NO_ROUTE, table.nextHop(addresses.get(i) | 1), "route " + i);
+        }
+    }
+
+    private static IntRoutingTable newTable() {
+        return new IntRoutingTable(1, 0, new Logger("test", Logger.Level.OFF, 1));
+    }
+
+    // 작업용 배열 기준으로 모델과 같은지 (지운 키는 없고, 남은 키는 거리까지 같음)
+    private static void assertMatches(Map<Integer, Integer> model, IntRoutingTable table, List<Integer> addresses, int prefixLength) {
+        for (int address : addresses) {
+            String prefix = IPv4.formatPrefix(address, prefixLength);
+            Integer distance = model.get(address);
+
+            assertEquals(distance != null, table.containsKey(prefix), prefix);
+
+            if (distance != null) {
+                assertEquals(distance.intValue(), table.getDistance(prefix), prefix);
+            }
+        }
+        assertEquals(model.size(), table.size());
+    }
+}
@@ -0,0 +1,79 @@
+package routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static routing.PageAssembler.COMPLETE;
+import static routing.PageAssembler.FIRST_PAGE;
+import static routing.PageAssembler.PREVIOUS_INCOMPLETE;
+import static routing.PageAssembler.STALE;
+
+import org.junit.jupiter.api.Test;
+
+class PageAssemblerTest {
+    private static final String A = "10.0.0.1"; // 이웃
+    private static final String B = "10.0.0.2";
+
+    @Test
+    void completesPagesInAnyOrder() {
+        PageAssembler pages = new PageAssembler();
+
+        assertEquals(FIRST_PAGE, pages.accept(A, 1, 2, 3));
+        assertEquals(0, pages.accept(A, 1, 0, 3));
+        assertEquals(0, pages.accept(A, 1, 0, 3)); // 중복 페이지
+        assertEquals(COMPLETE, pages.accept(A, 1, 1, 3));
+    }
+
+    @Test
+    void singlePageIsFirstAndComplete() {
+        PageAssembler pages = new PageAssembler();
+
+        assertEquals(FIRST_PAGE | COMPLETE, pages.accept(A, 1, 0, 1));
+        assertEquals(FIRST_PAGE | COMPLETE, pages.accept(A, 2, 0, 1));
+    }
+
+    @Test
+    void pageSetSplitAcrossGenerations() {
+        PageAssembler pages = new PageAssembler();
+
+        assertEquals(FIRST_PAGE, pages.accept(A, 1, 0, 3));
+        assertEquals(0, pages.accept(A, 1, 1, 3));
+
+        // 1세대 마지막 페이지가 오기 전에 2세대 시작
+        assertEquals(FIRST_PAGE | PREVIOUS_INCOMPLETE, pages.accept(A, 2, 1, 2));
+        assertEquals(STALE, pages.accept(A, 1, 2, 3)); // 늦게 온 1세대 페이지는 2세대에 섞이지 않음
+        assertEquals(COMPLETE, pages.accept(A, 2, 0, 2));
+
+        // 완성된 세대 다음은 유실 없이 시작
+        assertEquals(FIRST_PAGE, pages.accept(A, 3, 0, 2));
+    }
+
+    @Test
+    void trackGenerationsPerNeighbour() {
+        PageAssembler pages = new PageAssembler();
+
+        assertEquals(FIRST_PAGE, pages.accept(A, 5, 0, 2));
+        assertEquals(FIRST_PAGE | COMPLETE, pages.accept(B, 1, 0, 1));
+        assertEquals(COMPLETE, pages.accept(A, 5, 1, 2));
+    }
+
+    @Test
+    void restartedNeighbourStartsNewGeneration() {
+        PageAssembler pages = new PageAssembler();
+
+        assertEquals(FIRST_PAGE | COMPLETE, pages.accept(A, 1000, 0, 1));
+        assertEquals(STALE, pages.accept(A, 1000 - 63, 0, 1));
+
+        // 창보다 멀리 뒤로 간 세대는 재시작으로 보고 받아들임
+        assertEquals(FIRST_PAGE | COMPLETE, pages.accept(A, 0, 0, 1));
+        assertEquals(FIRST_PAGE, pages.accept(A, 1, 0, 2));
+    }
+
+    @Test
+    void generationWrapIsNotStale() {
+        PageAssembler pages = new PageAssembler();
+
+        assertEquals(FIRST_PAGE | COMPLETE, pages.accept(A, Integer.MAX_VALUE, 0, 1));
+        assertEquals(FIRST_PAGE, pages.accept(A, Integer.MIN_VALUE, 0, 2));
+        assertEquals(STALE, pages.accept(A, Integer.MAX_VALUE, 0, 1));
+        assertEquals(COMPLETE, pages.accept(A, Integer.MIN_VALUE, 1, 2));
+    }
+}
@@ -0,0 +1,107 @@
+package routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+class PrefixTrieTest {
+    private static final int A = 1; // 다음 홉
+    private static final int B = 2;
+
+    @Test
+    void mergesSiblingsWithSameNextHop() {
+        PrefixTrie<Integer> trie = new PrefixTrie<>();
+        put(trie, "10.0.0.0/25", A);
+        put(trie, "10.0.0.128/25", A);
+
+        assertEquals(Map.of("10.0.0.0/24", A), prefixes(aggregate(trie)));
+    }
+
+    @Test
+    void mergesRepeatedlyUpToCommonParent() {
+        PrefixTrie<Integer> trie = new PrefixTrie<>();
+
+        for (int i = 0; i < 4; i++) {
+            put(trie, "10.0.0." + i * 64 + "/26", A);
+        }
+
+        assertEquals(Map.of("10.0.0.0/24", A), prefixes(aggregate(trie)));
+    }
+
+    @Test
+    void keepsSiblingsWithDifferentNextHops() {
+        PrefixTrie<Integer> trie = new PrefixTrie<>();
+        put(trie, "10.0.0.0/25", A);
+        put(trie, "10.0.0.128/25", B);
+
+        assertEquals(Map.of("10.0.0.0/25", A, "10.0.0.128/25", B), prefixes(aggregate(trie)));
+    }
+
+    @Test
+    void keepsNonSiblingNeighbours() {
+        // 10.0.1.0/24와 10.0.2.0/24는 이웃이지만 같은 /23에 속하지 않음
+        PrefixTrie<Integer> trie = new PrefixTrie<>();
+        put(trie, "10.0.1.0/24", A);
+        put(trie, "10.0.2.0/24", A);
+
+        assertEquals(Map.of("10.0.1.0/24", A, "10.0.2.0/24", A), prefixes(aggregate(trie)));
+    }
+
+    @Test
+    void dropsMoreSpecificCoveredBySameForwarding() {
+        PrefixTrie<Integer> trie = new PrefixTrie<>();
+        put(trie, "10.0.0.0/16", A);
+        put(trie, "10.0.5.0/24", A);
+        put(trie, "10.0.6.0/24", B);
+
+        assertEquals(Map.of("10.0.0.0/16", A, "10.0.6.0/24", B), prefixes(aggregate(trie)));
+    }
+
+    @Test
+    void doesNotMergeSiblingsIntoExistingParentWithOtherForwarding() {
+        PrefixTrie<Integer> trie = new PrefixTrie<>();
+        put(trie, "10.0.0.0/24", B);
+        put(trie, "10.0.0.0/25", A);
+        put(trie, "10.0.0.128/25", A);
+
+        assertEquals(Map.of("10.0.0.0/24", B, "10.0.0.0/25", A, "10.0.0.128/25", A), prefixes(aggregate(trie)));
+    }
+
+    @Test
+    void aggregationPreservesLongestMatchForwarding() {
+        Random random = new Random(7);
+
+        for (int trial = 0; trial < 50; trial++) {
+            PrefixTrie<Integer> trie = new PrefixTrie<>();
+
+            for (int i = 0; i < 64; i++) {
+                int length = 22 + random.nextInt(7);
+                trie.put(0x0A000000 | random.nextInt(1 << 12) << 8, length, 1 + random.nextInt(2));
+            }
+            PrefixTrie<Integer> aggregated = aggregate(trie);
+
+            for (int i = 0; i < 2000; i++) {
+                int address = 0x0A000000 | random.nextInt(1 << 20);
+                assertEquals(trie.longestMatch(address), aggregated.longestMatch(address), IPv4.format(address));
+            }
+        }
+    }
+
+    private static PrefixTrie<Integer> aggregate(PrefixTrie<Integer> trie) {
+        return trie.aggregate(Integer::equals, (a, b) -> a);
+    }
+
+    private static void put(PrefixTrie<Integer> trie, String prefix, int nextHop) {
+        trie.put(IPv4.prefixAddress(prefix), IPv4.prefixLength(prefix), nextHop);
+    }
+
+    private static Map<String, Integer> prefixes(PrefixTrie<Integer> trie) {
+        Map<String, Integer> result = new TreeMap<>();
+        trie.forEach((address, prefixLength, value) -> result.put(IPv4.formatPrefix(address, prefixLength), value));
+        return result;
+    }
+}
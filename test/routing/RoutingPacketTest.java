@@ -0,0 +1,62 @@
+package routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.Test;
+
+class RoutingPacketTest {
+    @Test
+    void pagesShareGenerationAndReassembleInAnyOrder() {
+        List<Integer> routes = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            routes.add(0x0A000000 | i << 8);
+        }
+
+        List<ByteBuffer> pages = RoutingPacket.encodePages(RoutingPacket.TYPE_FULL_TABLE, 7, 42,
+            visitor -> routes.forEach(address -> visitor.visit(address, 24, 3, 1, 0)), 200);
+        assertTrue(pages.size() > 1);
+
+        Collections.shuffle(pages, new Random(5));
+        PageAssembler assembler = new PageAssembler();
+        List<Integer> received = new ArrayList<>();
+        int status = 0;
+
+        for (ByteBuffer page : pages) {
+            assertEquals(42, RoutingPacket.getGeneration(page));
+            assertEquals(pages.size(), RoutingPacket.getPageCount(page));
+
+            status = assembler.accept("10.0.0.1", RoutingPacket.getGeneration(page), RoutingPacket.getPage(page),
+                RoutingPacket.getPageCount(page));
+            assertTrue(RoutingPacket.decode(page, (address, prefixLength, distance, hops) -> received.add(address)));
+        }
+        assertEquals(PageAssembler.COMPLETE, status & PageAssembler.COMPLETE);
+
+        Collections.sort(received);
+        assertEquals(routes, received);
+    }
+
+    @Test
+    void countsRoutesBeyondPageLimit() {
+        // 최소 페이지 크기에서는 페이지마다 경로 하나
+        int routes = 0xFFFF + 10;
+        LongAdder omitted = new LongAdder();
+
+        List<ByteBuffer> pages = RoutingPacket.encodePages(RoutingPacket.TYPE_FULL_TABLE, 0, 1, visitor -> {
+            for (int i = 0; i < routes; i++) {
+                visitor.visit(i << 8, 24, 1, 1, 0);
+            }
+        }, 0, omitted);
+
+        assertEquals(0xFFFF, pages.size());
+        assertEquals(10, omitted.sum());
+    }
+}